@@ -0,0 +1,93 @@
+package com.stancu.benchmarks;
+
+import com.stancu.engine.StepCounter;
+import com.stancu.engine.VectorSupport;
+import com.stancu.v1.PasswordValidator;
+import com.stancu.v2_refactored.PasswordValidator2;
+import com.stancu.v3_faster_ideas.Solution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Compares the three versions of the checker on the same inputs: one operation is one password, taken in turn from
+    a fixed set of the chosen family. Run it with "-prof gc" (BenchmarkRunner does it) to see gc.alloc.rate.norm,
+    the bytes allocated per password. The forks run with the Vector API, so vectorPasswordChecker measures VectorSolution.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PasswordCheckerBenchmark {
+
+    private static final int PASSWORDS_PER_FAMILY = 1024;
+    private static final long SEED = 20;
+
+    @Param({"SHORT", "NORMAL", "LONG_RUNS", "MAX_PLUS_1000", "ALL_SAME", "RANDOM"})
+    public PasswordFamily family;
+
+    private String[] passwords;
+    private int next;
+
+    private final PasswordValidator validator = new PasswordValidator();
+    private final PasswordValidator2 validator2 = new PasswordValidator2();
+    private final Solution solution = new Solution();
+    private final StepCounter vectorSolution = VectorSupport.stepCounter();
+
+    private PrintStream standardOutput;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        passwords = family.generate(PASSWORDS_PER_FAMILY, SEED);
+        // v1 prints the recommended password, and the benchmark must not measure the console
+        standardOutput = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(standardOutput);
+    }
+
+    private String nextPassword() {
+        String password = passwords[next];
+        next = (next + 1) & (PASSWORDS_PER_FAMILY - 1);
+        return password;
+    }
+
+    @Benchmark
+    public int v1StrongPasswordChecker() {
+        return validator.strongPasswordChecker(nextPassword());
+    }
+
+    @Benchmark
+    public int v2StrongPasswordChecker() {
+        return validator2.strongPasswordChecker(nextPassword());
+    }
+
+    @Benchmark
+    public int v3PasswordChecker() {
+        return solution.passwordChecker(nextPassword());
+    }
+
+    @Benchmark
+    public int vectorPasswordChecker() {
+        return vectorSolution.countSteps(nextPassword());
+    }
+}
@@ -0,0 +1,84 @@
+package com.stancu.benchmarks;
+
+import java.util.Random;
+
+/*
+    The families of inputs that the benchmarks run on. Every family builds its passwords from a fixed seed,
+    so two runs (and two versions of the validators) see exactly the same inputs.
+*/
+public enum PasswordFamily {
+
+    // Shorter than the minimum length, so only insertions and replacements
+    SHORT {
+        @Override
+        String generate(Random random) {
+            return randomPassword(random, 1 + random.nextInt(5), 0);
+        }
+    },
+    // Between the minimum and the maximum length
+    NORMAL {
+        @Override
+        String generate(Random random) {
+            return randomPassword(random, 6 + random.nextInt(15), 0);
+        }
+    },
+    // Passwords made mostly of long repeating sequences
+    LONG_RUNS {
+        @Override
+        String generate(Random random) {
+            return randomPassword(random, 6 + random.nextInt(60), 12);
+        }
+    },
+    // 1000 characters over the maximum length, so the deletions dominate
+    MAX_PLUS_1000 {
+        @Override
+        String generate(Random random) {
+            return randomPassword(random, 1020, 2);
+        }
+    },
+    // One character repeated, the worst case for the replacements
+    ALL_SAME {
+        @Override
+        String generate(Random random) {
+            return "a".repeat(1 + random.nextInt(60));
+        }
+    },
+    // Any printable ASCII character, with any length up to 100
+    RANDOM {
+        @Override
+        String generate(Random random) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(101);
+            for (int i = 0; i < length; i++) {
+                builder.append((char) (' ' + random.nextInt(95)));
+            }
+            return builder.toString();
+        }
+    };
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!.";
+
+    abstract String generate(Random random);
+
+    public String[] generate(int count, long seed) {
+        Random random = new Random(seed);
+        String[] passwords = new String[count];
+        for (int i = 0; i < count; i++) {
+            passwords[i] = generate(random);
+        }
+        return passwords;
+    }
+
+    //    A random password where every character starts a run of 1 to maxRun characters (1 when maxRun is 0)
+    private static String randomPassword(Random random, int length, int maxRun) {
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            char character = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            int run = maxRun == 0 ? 1 : 1 + random.nextInt(maxRun);
+            for (int i = 0; i < run && builder.length() < length; i++) {
+                builder.append(character);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+#
+# Measures the start of the command line checker (com.stancu.Main), which is what a pipeline or a cron job pays for
+# every call: the average wall time of --runs calls that check a small input, for
+#   - the plain jar,
+#   - the jar with C1 only (-XX:TieredStopAtLevel=1), which is enough for a short run,
+#   - the jar with an application CDS archive of its classes (created by the first call, see -XX:ArchiveClassesAtExit),
+#   - the jar with the CDS archive and C1 only,
+#   - the native image, if it was built with "mvn -Pnative package" in core.
+#
+# Usage: benchmarks/startup-benchmark.sh [runs] [input file]   (after "mvn install" in the root)
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${1:-20}"
+INPUT="${2:-}"
+JAR="$ROOT/core/target/umt-test-solution-1.0-SNAPSHOT.jar"
+NATIVE="$ROOT/core/target/password-check"
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+
+if [[ ! -f "$JAR" ]]; then
+    echo "The jar $JAR does not exist, run \"mvn install\" first" >&2
+    exit 2
+fi
+if [[ -z "$INPUT" ]]; then
+    INPUT="$WORK/passwords.txt"
+    printf '%s\n' bbb aA1bcdef aaaaaaaaaaaaaaaaaaaaaa "" 1337C0d3 ABABABABABABABABABABABAB > "$INPUT"
+fi
+
+# Prints the average milliseconds of RUNS calls of the command
+measure() {
+    local name="$1"
+    shift
+    "$@" < "$INPUT" > /dev/null
+    local start end
+    start=$(date +%s%N)
+    for ((i = 0; i < RUNS; i++)); do
+        "$@" < "$INPUT" > /dev/null
+    done
+    end=$(date +%s%N)
+    local micros=$(((end - start) / RUNS / 1000))
+    printf '%-28s %5d.%d ms\n' "$name" $((micros / 1000)) $((micros % 1000 / 100))
+}
+
+echo "Average start and check of $(wc -l < "$INPUT") passwords over $RUNS runs"
+measure "jar" java -jar "$JAR"
+measure "jar, C1 only" java -XX:TieredStopAtLevel=1 -jar "$JAR"
+
+java -XX:ArchiveClassesAtExit="$WORK/cli.jsa" -jar "$JAR" < "$INPUT" > /dev/null 2>&1
+measure "jar, AppCDS" java -XX:SharedArchiveFile="$WORK/cli.jsa" -jar "$JAR"
+measure "jar, AppCDS, C1 only" java -XX:SharedArchiveFile="$WORK/cli.jsa" -XX:TieredStopAtLevel=1 -jar "$JAR"
+
+if [[ -x "$NATIVE" ]]; then
+    measure "native image" "$NATIVE"
+else
+    echo "native image                 not built (mvn -Pnative package in core)"
+fi
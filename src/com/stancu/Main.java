@@ -1,16 +1,14 @@
 package com.stancu;
 
-import com.stancu.v1.PasswordValidator;
-import com.stancu.v2_refactored.PasswordValidator2;
+import com.stancu.cli.PasswordCheckCli;
 
+//    Entry point of the jar: the command line checker (see PasswordCheckCli for the options)
 public class Main {
 
     public static void main(String[] args) {
-
-        PasswordValidator passwordValidator = new PasswordValidator();
-//        PasswordValidator2 passwordValidator = new PasswordValidator2();
-        String password = "bbb";
-        System.out.println(passwordValidator.strongPasswordChecker(password));
-
+        int exitCode = PasswordCheckCli.run(args);
+        if (exitCode != PasswordCheckCli.EXIT_OK) {
+            System.exit(exitCode);
+        }
     }
 }
@@ -0,0 +1,113 @@
+package com.stancu.batch;
+
+import com.stancu.engine.StepCounter;
+import com.stancu.v2_refactored.PasswordValidator2;
+import com.stancu.v3_faster_ideas.Solution;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/*
+    Checks many passwords at once. The passwords are split in halves with fork/join until a part has at most
+    'chunkSize' passwords, and every such part is checked by its own StepCounter from the factory. The validators can be
+    shared between threads, but an engine like VectorSolution keeps a reusable buffer, so the factory may create one.
+    The step count of a password is written at the same index in the result, so the result is exactly the one of
+    checking the passwords one after another.
+*/
+public class BatchPasswordChecker {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private final Supplier<? extends StepCounter> counterFactory;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public BatchPasswordChecker(Supplier<? extends StepCounter> counterFactory) {
+        this(counterFactory, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchPasswordChecker(Supplier<? extends StepCounter> counterFactory, int chunkSize) {
+        this(counterFactory, chunkSize, ForkJoinPool.commonPool());
+    }
+
+    public BatchPasswordChecker(Supplier<? extends StepCounter> counterFactory, int chunkSize, ForkJoinPool pool) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be at least 1, but it is " + chunkSize);
+        }
+        this.counterFactory = counterFactory;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    //    Batch checker over the refactored validator
+    public static BatchPasswordChecker refactored() {
+        return new BatchPasswordChecker(PasswordValidator2::new);
+    }
+
+    //    Batch checker over the counting solution
+    public static BatchPasswordChecker fast() {
+        return new BatchPasswordChecker(Solution::new);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int[] check(String[] passwords) {
+        int[] steps = new int[passwords.length];
+        if (passwords.length <= chunkSize) {
+            // Small batches are not worth the forking
+            checkRange(passwords, steps, 0, passwords.length);
+        } else {
+            pool.invoke(new CheckTask(passwords, steps, 0, passwords.length));
+        }
+        return steps;
+    }
+
+    //    The list is copied once into an array (only the references), so a linked list does not cost O(n) for every get
+    public int[] check(List<String> passwords) {
+        return check(passwords.toArray(new String[0]));
+    }
+
+    //    The stream is read in order into an array, because only an array can be split by index between the tasks
+    public int[] check(Stream<String> passwords) {
+        return check(passwords.toArray(String[]::new));
+    }
+
+    private void checkRange(String[] passwords, int[] steps, int from, int to) {
+        StepCounter counter = counterFactory.get();
+        for (int i = from; i < to; i++) {
+            steps[i] = counter.countSteps(passwords[i]);
+        }
+    }
+
+    private final class CheckTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] passwords;
+        private final int[] steps;
+        private final int from;
+        private final int to;
+
+        private CheckTask(String[] passwords, int[] steps, int from, int to) {
+            this.passwords = passwords;
+            this.steps = steps;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                checkRange(passwords, steps, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CheckTask(passwords, steps, from, middle), new CheckTask(passwords, steps, middle, to));
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.stancu.batch;
+
+import com.stancu.v3_faster_ideas.Solution;
+import com.stancu.v3_faster_ideas.StepCount;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    Many passwords and their results without a String or an Integer per password. The passwords are kept one after
+    another, in UTF-8, in one direct buffer, and the columns are primitive: the offset of every password (an int, the end
+    of the last password is the offset after it), its steps (an int) and its failed rules (a byte, see PasswordRules).
+    The columns are direct buffers too, so a batch is a handful of objects whatever the number of passwords, and check()
+    fills the result columns with the counting solution, directly from the bytes (see Solution).
+
+    A batch can be spilled to a file (spillTo) and mapped back (map), so the batches of an audit that does not fit in
+    memory are kept on disk and the operating system only pages in the one that is checked. A mapped batch is mapped
+    read-write, so check() writes the results into the file itself, and force() makes them durable.
+    The file is a header of 4 ints (magic, size, data bytes, checked passwords) and then the columns in this order:
+    offsets ((size + 1) ints), steps (size ints), failed rules (size bytes) and the passwords. All the numbers are big-endian.
+
+    A batch has at most 2 GB of passwords (the limit of a buffer), and it is not thread-safe: a parallel audit checks
+    one batch per thread.
+*/
+public class ColumnarPasswordBatch {
+
+    public static final int DEFAULT_INITIAL_PASSWORDS = 1024;
+    public static final int DEFAULT_INITIAL_BYTES = 16 * 1024;
+
+    private static final int MAGIC = 0x50574231;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    private final Solution solution = new Solution();
+    private final StepCount count = new StepCount();
+    // The whole file of a mapped batch, or null for a batch in memory
+    private final MappedByteBuffer mapping;
+
+    private ByteBuffer offsets;
+    private ByteBuffer steps;
+    private ByteBuffer failedRules;
+    private ByteBuffer data;
+    private int size;
+    private int checked;
+
+    public ColumnarPasswordBatch() {
+        this(DEFAULT_INITIAL_PASSWORDS, DEFAULT_INITIAL_BYTES);
+    }
+
+    //    The columns grow when they are full (their size doubles), so the initial capacity only saves the copies
+    public ColumnarPasswordBatch(int initialPasswords, int initialBytes) {
+        if (initialPasswords < 1 || initialBytes < 1) {
+            throw new IllegalArgumentException("The initial capacity must be at least 1 password and 1 byte, but it is "
+                    + initialPasswords + " passwords and " + initialBytes + " bytes");
+        }
+        this.mapping = null;
+        this.offsets = ByteBuffer.allocateDirect((initialPasswords + 1) * Integer.BYTES);
+        this.steps = ByteBuffer.allocateDirect(initialPasswords * Integer.BYTES);
+        this.failedRules = ByteBuffer.allocateDirect(initialPasswords);
+        this.data = ByteBuffer.allocateDirect(initialBytes);
+    }
+
+    private ColumnarPasswordBatch(MappedByteBuffer mapping, int size, int dataBytes, int checked) {
+        this.mapping = mapping;
+        this.size = size;
+        this.checked = checked;
+        int position = HEADER_BYTES;
+        this.offsets = mapping.slice(position, (size + 1) * Integer.BYTES);
+        position += (size + 1) * Integer.BYTES;
+        this.steps = mapping.slice(position, size * Integer.BYTES);
+        position += size * Integer.BYTES;
+        this.failedRules = mapping.slice(position, size);
+        position += size;
+        this.data = mapping.slice(position, dataBytes);
+    }
+
+    public void add(String password) {
+        byte[] utf8 = password.getBytes(StandardCharsets.UTF_8);
+        add(utf8, 0, utf8.length);
+    }
+
+    public void add(byte[] utf8, int offset, int length) {
+        add(ByteBuffer.wrap(utf8, offset, length));
+    }
+
+    //    Adds the remaining bytes of the buffer (from its position to its limit) as one password, without moving its position
+    public void add(ByteBuffer utf8) {
+        if (mapping != null) {
+            throw new IllegalStateException("A mapped batch cannot get more passwords");
+        }
+        int length = utf8.remaining();
+        int start = dataBytes();
+        if (length > Integer.MAX_VALUE - start) {
+            throw new IllegalStateException("The batch is full: it has " + start + " bytes of passwords");
+        }
+        if (size == failedRules.capacity()) {
+            growColumns();
+        }
+        if (start + length > data.capacity()) {
+            data = grow(data, Math.max(start + length, (int) Math.min(Integer.MAX_VALUE, 2L * data.capacity())), start);
+        }
+        data.put(start, utf8, utf8.position(), length);
+        size++;
+        offsets.putInt(size * Integer.BYTES, start + length);
+    }
+
+    private void growColumns() {
+        int capacity = (int) Math.min(Integer.MAX_VALUE / Integer.BYTES - 1, 2L * failedRules.capacity());
+        if (capacity == size) {
+            throw new IllegalStateException("The batch is full: it has " + size + " passwords");
+        }
+        offsets = grow(offsets, (capacity + 1) * Integer.BYTES, (size + 1) * Integer.BYTES);
+        steps = grow(steps, capacity * Integer.BYTES, size * Integer.BYTES);
+        failedRules = grow(failedRules, capacity, size);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity, int usedBytes) {
+        ByteBuffer bigger = ByteBuffer.allocateDirect(capacity);
+        bigger.put(0, buffer, 0, usedBytes);
+        return bigger;
+    }
+
+    /*
+        Counts the passwords that have no results yet and writes their steps and failed rules into the columns.
+        The passwords are counted directly from the batch (see Solution.passwordChecker), so nothing is allocated.
+    */
+    public void check() {
+        for (int i = checked; i < size; i++) {
+            int start = offsets.getInt(i * Integer.BYTES);
+            int end = offsets.getInt((i + 1) * Integer.BYTES);
+            solution.passwordChecker(data, start, end - start, count);
+            steps.putInt(i * Integer.BYTES, count.getSteps());
+            failedRules.put(i, (byte) count.getFailedRules());
+        }
+        checked = size;
+        if (mapping != null) {
+            mapping.putInt(3 * Integer.BYTES, checked);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //    The passwords that have results (the ones added after the last check() have none yet)
+    public int getChecked() {
+        return checked;
+    }
+
+    public int dataBytes() {
+        return offsets.getInt(size * Integer.BYTES);
+    }
+
+    public boolean isMapped() {
+        return mapping != null;
+    }
+
+    public int getSteps(int index) {
+        checkResult(index);
+        return steps.getInt(index * Integer.BYTES);
+    }
+
+    public int getFailedRules(int index) {
+        checkResult(index);
+        return failedRules.get(index) & 0xFF;
+    }
+
+    //    The length of the password in bytes
+    public int getLength(int index) {
+        checkIndex(index);
+        return offsets.getInt((index + 1) * Integer.BYTES) - offsets.getInt(index * Integer.BYTES);
+    }
+
+    //    Decodes the password into a String, for reports and debugging
+    public String getPassword(int index) {
+        checkIndex(index);
+        byte[] utf8 = new byte[getLength(index)];
+        data.get(offsets.getInt(index * Integer.BYTES), utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    public int countStrong() {
+        int strong = 0;
+        for (int i = 0; i < checked; i++) {
+            if (failedRules.get(i) == 0) {
+                strong++;
+            }
+        }
+        return strong;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of the batch of " + size + " passwords");
+        }
+    }
+
+    private void checkResult(int index) {
+        checkIndex(index);
+        if (index >= checked) {
+            throw new IllegalStateException("The password " + index + " was not checked yet");
+        }
+    }
+
+    //    Forgets the passwords and the results, but keeps the columns, so the next passwords do not allocate them again
+    public void clear() {
+        if (mapping != null) {
+            throw new IllegalStateException("A mapped batch cannot be cleared");
+        }
+        size = 0;
+        checked = 0;
+    }
+
+    //    Writes the batch into the file (see the class comment for the layout), so it can be cleared and mapped back later
+    public void spillTo(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(size).putInt(dataBytes()).putInt(checked);
+            writeFully(channel, header.flip());
+            writeFully(channel, offsets.slice(0, (size + 1) * Integer.BYTES));
+            writeFully(channel, steps.slice(0, size * Integer.BYTES));
+            writeFully(channel, failedRules.slice(0, size));
+            writeFully(channel, data.slice(0, dataBytes()));
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /*
+        Maps a spilled batch read-write. Only the header and the offsets are read, to check that every password is inside
+        the data (the first offset is 0, they never go down, and the last one is the end of the data), so a damaged file
+        fails here instead of in a check. The other columns are not read until they are used.
+    */
+    public static ColumnarPasswordBatch map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileBytes = channel.size();
+            if (fileBytes < HEADER_BYTES || fileBytes > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a spilled batch: it has " + fileBytes + " bytes");
+            }
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+            int magic = mapping.getInt(0);
+            int size = mapping.getInt(Integer.BYTES);
+            int dataBytes = mapping.getInt(2 * Integer.BYTES);
+            int checked = mapping.getInt(3 * Integer.BYTES);
+            long expectedBytes = HEADER_BYTES + (size + 1L) * Integer.BYTES + (long) size * Integer.BYTES + size + dataBytes;
+            if (magic != MAGIC || size < 0 || dataBytes < 0 || checked < 0 || checked > size || expectedBytes != fileBytes) {
+                throw new IOException(file + " is not a spilled batch");
+            }
+            int previous = 0;
+            for (int i = 0; i <= size; i++) {
+                int offset = mapping.getInt(HEADER_BYTES + i * Integer.BYTES);
+                if (i == 0 ? offset != 0 : offset < previous) {
+                    throw new IOException(file + " is not a spilled batch: the offset of the password " + i + " is " + offset
+                            + ", after " + previous);
+                }
+                previous = offset;
+            }
+            if (previous != dataBytes) {
+                throw new IOException(file + " is not a spilled batch: the passwords end at " + previous + ", but there are "
+                        + dataBytes + " bytes of them");
+            }
+            return new ColumnarPasswordBatch(mapping, size, dataBytes, checked);
+        }
+    }
+
+    //    Writes the results of a mapped batch to the disk
+    public void force() {
+        if (mapping != null) {
+            mapping.force();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarPasswordBatch{size=" + size + ", checked=" + checked + ", dataBytes=" + dataBytes()
+                + (mapping != null ? ", mapped" : "") + "}";
+    }
+}
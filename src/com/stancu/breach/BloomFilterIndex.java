@@ -0,0 +1,135 @@
+package com.stancu.breach;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    Bloom filter of the breach keys (see BreachHash), kept in a file and memory-mapped, so opening it is instant and only
+    the pages that the lookups touch are read. The k bits of a key are first + i * second (i from 0 to k - 1) modulo the
+    number of bits, from the two halves of the key, so a lookup hashes the password once.
+    The file is a header of 32 bytes (magic, number of hashes, number of bits, number of entries) and the bits as longs.
+    A filter is built in memory, where all the threads can add keys at the same time (the words are updated atomically),
+    and then written to its file (see BreachIndexBuilder).
+*/
+public class BloomFilterIndex {
+
+    static final int HEADER_BYTES = 32;
+    private static final int MAGIC = 0x42524246;
+
+    private final MappedLongArray words;
+    private final int hashCount;
+    private final long bitCount;
+    private final long entries;
+
+    private BloomFilterIndex(MappedLongArray words, int hashCount, long bitCount, long entries) {
+        this.words = words;
+        this.hashCount = hashCount;
+        this.bitCount = bitCount;
+        this.entries = entries;
+    }
+
+    public static BloomFilterIndex open(Path file) throws IOException {
+        MappedLongArray words = new MappedLongArray(file, HEADER_BYTES);
+        int hashCount = words.headerInt(Integer.BYTES);
+        long bitCount = words.headerLong(8);
+        long entries = words.headerLong(16);
+        if (words.headerInt(0) != MAGIC || hashCount < 1 || bitCount != words.length() * Long.SIZE) {
+            throw new IOException(file + " is not a Bloom filter index");
+        }
+        return new BloomFilterIndex(words, hashCount, bitCount, entries);
+    }
+
+    boolean mightContain(long first, long second) {
+        long combined = first;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(combined, bitCount);
+            if ((words.get(bit >>> 6) & 1L << bit) == 0) {
+                return false;
+            }
+            combined += second;
+        }
+        return true;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    //    The false positive rate of the filter with its number of entries
+    public double getFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * entries / bitCount), hashCount);
+    }
+
+    //    The bits of a filter while it is built, which any number of threads can add keys to
+    static final class Builder {
+
+        private final AtomicLongArray words;
+        private final int hashCount;
+        private final long bitCount;
+
+        /*
+            The usual sizes for n entries and a false positive rate p: -n ln p / (ln 2)^2 bits (rounded up to whole longs)
+            and (bits / n) ln 2 hashes.
+        */
+        Builder(long expectedEntries, double falsePositiveRate) {
+            long entries = Math.max(1, expectedEntries);
+            double bits = Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            long wordCount = Math.max(1, (long) Math.ceil(bits / Long.SIZE));
+            if (wordCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("A filter of " + expectedEntries + " entries with a false positive rate of "
+                        + falsePositiveRate + " is too big");
+            }
+            this.words = new AtomicLongArray((int) wordCount);
+            this.bitCount = wordCount * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+        }
+
+        void add(long first, long second) {
+            long combined = first;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Long.remainderUnsigned(combined, bitCount);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndAccumulate(word, mask, (current, added) -> current | added);
+                }
+                combined += second;
+            }
+        }
+
+        void writeTo(Path file, long entries) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+                buffer.putInt(MAGIC).putInt(hashCount).putLong(bitCount).putLong(entries).putLong(0);
+                for (int i = 0; i < words.length(); i++) {
+                    if (!buffer.hasRemaining()) {
+                        write(channel, buffer);
+                    }
+                    buffer.putLong(words.get(i));
+                }
+                write(channel, buffer);
+            }
+        }
+    }
+
+    static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,100 @@
+package com.stancu.breach;
+
+import com.stancu.state.ScratchPool;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/*
+    The key of a password in the breach indexes: the first 128 bits of its SHA-1, as two longs (big-endian), so the lists
+    of SHA-1 hashes can be indexed without knowing the passwords. An instance keeps its MessageDigest, so the instances
+    come from a ScratchPool (a ThreadLocal would make a new digest for every virtual thread of the server): a lookup
+    takes one with acquire(), sets the key, reads the two halves and gives it back with release().
+*/
+final class BreachHash {
+
+    private static final ScratchPool<BreachHash> HASHES = new ScratchPool<>(BreachHash::new);
+    private static final int SHA1_HEX_LENGTH = 40;
+
+    private final MessageDigest sha1;
+    private final byte[] digest = new byte[20];
+
+    long first;
+    long second;
+
+    private BreachHash() {
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-1 is not available", exception);
+        }
+    }
+
+    static BreachHash acquire() {
+        return HASHES.acquire();
+    }
+
+    static void release(BreachHash hash) {
+        HASHES.release(hash);
+    }
+
+    BreachHash setPassword(String password) {
+        byte[] bytes = password.getBytes(StandardCharsets.UTF_8);
+        return setPassword(bytes, bytes.length);
+    }
+
+    //    The key of the first 'length' bytes, as they are: a line of a list which is not valid UTF-8 is still hashed
+    BreachHash setPassword(byte[] bytes, int length) {
+        sha1.update(bytes, 0, length);
+        try {
+            sha1.digest(digest, 0, digest.length);
+        } catch (DigestException exception) {
+            throw new IllegalStateException(exception);
+        }
+        first = longAt(digest, 0);
+        second = longAt(digest, 8);
+        return this;
+    }
+
+    //    Reads the first 32 hexadecimal digits of a SHA1_HEX line (the rest of the hash only has to be valid)
+    BreachHash setHex(byte[] line, int length) {
+        if (length < SHA1_HEX_LENGTH || (length > SHA1_HEX_LENGTH && line[SHA1_HEX_LENGTH] != ':')) {
+            throw notHex(line, length);
+        }
+        first = hexAt(line, length, 0);
+        second = hexAt(line, length, 16);
+        hexAt(line, length, 24);
+        return this;
+    }
+
+    //    The key of the first 'length' bytes of a line of the list, without its line end
+    BreachHash set(byte[] line, int length, BreachListFormat format) {
+        return format == BreachListFormat.SHA1_HEX ? setHex(line, length) : setPassword(line, length);
+    }
+
+    private static long longAt(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + Long.BYTES; i++) {
+            value = value << 8 | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long hexAt(byte[] line, int length, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 16; i++) {
+            int digit = Character.digit(line[i] & 0xFF, 16);
+            if (digit < 0) {
+                throw notHex(line, length);
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException notHex(byte[] line, int length) {
+        return new IllegalArgumentException("Not a SHA-1 line: " + new String(line, 0, length, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,213 @@
+package com.stancu.breach;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+/*
+    Builds the breach indexes from a local breach list (see BreachListFormat) in one streaming pass: the file is split
+    into byte ranges that a parallel stream reads (a range takes the lines which start in it), every line is hashed once
+    (see BreachHash) and its key is added to the Bloom filter and, if it is asked for, to the runs of the sorted hash
+    index. The lines are never decoded: a password is hashed from its bytes as they are, so a list with some lines that
+    are not valid UTF-8 (common in the leaked lists) is still indexed, and those lines get the SHA-1 of their bytes like
+    with any other tool. The list is never loaded in memory: the filter takes its bits, and the sorted index one buffer of
+    keys per running task.
+    The filter is sized from the number of lines, which are counted first, unless the expected number of entries is given.
+
+    Usage: BreachIndexBuilder <list> <bloom file> [sorted file] [--format passwords|sha1_hex] [--fpp 0.01] [--entries n]
+*/
+public class BreachIndexBuilder {
+
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    // 32 MB of keys per running task for a run of the sorted index
+    public static final int DEFAULT_RUN_LONGS = 1 << 22;
+    // The byte ranges are at most 64 MB, and there are a few of them per thread for the balance
+    private static final long MAX_RANGE_BYTES = 1L << 26;
+    private static final long MIN_RANGE_BYTES = 1L << 20;
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+
+    private final BreachListFormat format;
+    private final double falsePositiveRate;
+    private final long expectedEntries;
+    private final int runLongs;
+
+    public BreachIndexBuilder(BreachListFormat format) {
+        this(format, DEFAULT_FALSE_POSITIVE_RATE, 0, DEFAULT_RUN_LONGS);
+    }
+
+    //    An expected number of entries of 0 means that the lines of the list are counted
+    public BreachIndexBuilder(BreachListFormat format, double falsePositiveRate, long expectedEntries, int runLongs) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1, but it is " + falsePositiveRate);
+        }
+        if (expectedEntries < 0 || runLongs < 1) {
+            throw new IllegalArgumentException("The expected entries (" + expectedEntries + ") must not be negative, and a run ("
+                    + runLongs + " keys) must have at least 1 key");
+        }
+        this.format = format;
+        this.falsePositiveRate = falsePositiveRate;
+        this.expectedEntries = expectedEntries;
+        this.runLongs = runLongs;
+    }
+
+    //    Builds the filter, and the sorted index if 'sortedFile' is not null (its runs go next to it). Returns the entries.
+    public long build(Path list, Path bloomFile, Path sortedFile) throws IOException {
+        long entries = expectedEntries > 0 ? expectedEntries : countLines(list);
+        BloomFilterIndex.Builder bloom = new BloomFilterIndex.Builder(entries, falsePositiveRate);
+        SortedHashIndex.Builder sorted = sortedFile == null ? null
+                : new SortedHashIndex.Builder(sortedFile.toAbsolutePath().getParent(), runLongs);
+        LongAdder added = new LongAdder();
+        try (FileChannel channel = FileChannel.open(list, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long rangeBytes = Math.max(MIN_RANGE_BYTES,
+                    Math.min(MAX_RANGE_BYTES, size / (4L * Runtime.getRuntime().availableProcessors()) + 1));
+            LongStream.range(0, (size + rangeBytes - 1) / rangeBytes).parallel().forEach(range -> {
+                SortedHashIndex.RunBuffer buffer = sorted == null ? null : sorted.acquire();
+                BreachHash hash = BreachHash.acquire();
+                try {
+                    added.add(indexRange(channel, range * rangeBytes, Math.min(size, (range + 1) * rangeBytes),
+                            bloom, sorted, buffer, hash));
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                } finally {
+                    BreachHash.release(hash);
+                    if (buffer != null) {
+                        sorted.release(buffer);
+                    }
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        bloom.writeTo(bloomFile, added.sum());
+        if (sorted != null) {
+            sorted.finish(sortedFile);
+        }
+        return added.sum();
+    }
+
+    //    Helper function which indexes the lines that start in [start, end) and returns their number (without the empty ones)
+    private long indexRange(FileChannel channel, long start, long end, BloomFilterIndex.Builder bloom,
+                            SortedHashIndex.Builder sorted, SortedHashIndex.RunBuffer buffer, BreachHash hash)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        bytes.flip();
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        // A range after the first one starts after the end of the line that is in progress at start - 1
+        long position = start == 0 ? 0 : start - 1;
+        boolean skipping = start > 0;
+        long lineStart = start;
+        long added = 0;
+        while (true) {
+            if (!bytes.hasRemaining()) {
+                bytes.clear();
+                int read = channel.read(bytes, position);
+                bytes.flip();
+                if (read <= 0) {
+                    break;
+                }
+            }
+            byte value = bytes.get();
+            position++;
+            if (skipping) {
+                skipping = value != '\n';
+                lineStart = position;
+                if (!skipping && lineStart >= end) {
+                    return added;
+                }
+                continue;
+            }
+            if (value != '\n') {
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, 2 * line.length);
+                }
+                line[lineLength++] = value;
+                continue;
+            }
+            added += indexLine(line, lineLength, bloom, sorted, buffer, hash);
+            lineLength = 0;
+            lineStart = position;
+            if (lineStart >= end) {
+                return added;
+            }
+        }
+        // The last line of the file may have no newline
+        if (!skipping) {
+            added += indexLine(line, lineLength, bloom, sorted, buffer, hash);
+        }
+        return added;
+    }
+
+    private int indexLine(byte[] line, int length, BloomFilterIndex.Builder bloom, SortedHashIndex.Builder sorted,
+                          SortedHashIndex.RunBuffer buffer, BreachHash hash) throws IOException {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return 0;
+        }
+        hash.set(line, length, format);
+        bloom.add(hash.first, hash.second);
+        if (sorted != null) {
+            sorted.add(buffer, hash.first);
+        }
+        return 1;
+    }
+
+    private static long countLines(Path list) throws IOException {
+        try (FileChannel channel = FileChannel.open(list, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            long lines = 0;
+            byte last = '\n';
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    last = buffer.get();
+                    if (last == '\n') {
+                        lines++;
+                    }
+                }
+                buffer.clear();
+            }
+            // The last line may have no newline
+            return last == '\n' ? lines : lines + 1;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BreachIndexBuilder <list> <bloom file> [sorted file] [--format passwords|sha1_hex]"
+                    + " [--fpp 0.01] [--entries n]");
+            System.exit(2);
+        }
+        Path sortedFile = null;
+        int index = 2;
+        if (args.length > 2 && !args[2].startsWith("--")) {
+            sortedFile = Paths.get(args[2]);
+            index = 3;
+        }
+        BreachListFormat format = BreachListFormat.PASSWORDS;
+        double falsePositiveRate = DEFAULT_FALSE_POSITIVE_RATE;
+        long expectedEntries = 0;
+        for (; index + 1 < args.length; index += 2) {
+            switch (args[index]) {
+                case "--format": format = BreachListFormat.valueOf(args[index + 1].toUpperCase()); break;
+                case "--fpp": falsePositiveRate = Double.parseDouble(args[index + 1]); break;
+                case "--entries": expectedEntries = Long.parseLong(args[index + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[index]);
+            }
+        }
+        long start = System.nanoTime();
+        long entries = new BreachIndexBuilder(format, falsePositiveRate, expectedEntries, DEFAULT_RUN_LONGS)
+                .build(Paths.get(args[0]), Paths.get(args[1]), sortedFile);
+        System.err.printf("Indexed %d entries in %.1f s%n", entries, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,12 @@
+package com.stancu.breach;
+
+/*
+    How a breach list is written, one entry per line (a last "\r" is not part of the entry, and empty lines are skipped).
+    PASSWORDS: the passwords themselves, in UTF-8.
+    SHA1_HEX: the SHA-1 of the UTF-8 password in hexadecimal (any case), optionally followed by ":count" like in the
+              Pwned Passwords downloads.
+*/
+public enum BreachListFormat {
+    PASSWORDS,
+    SHA1_HEX
+}
@@ -0,0 +1,56 @@
+package com.stancu.breach;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/*
+    Tells whether a password is in the breach list, from the indexes built by BreachIndexBuilder, without any network.
+    The Bloom filter answers most lookups alone: a password that is not in the list is rejected by its first zero bit.
+    The sorted hash index, if there is one, confirms the passwords that the filter lets through, so the false positives of
+    the filter do not reject good passwords. Without it, a password is reported as breached with the false positive rate
+    of the filter. The indexes are mapped and read-only, so a screen can be shared by any number of threads.
+*/
+public class BreachScreen {
+
+    private final BloomFilterIndex bloom;
+    private final SortedHashIndex sorted;
+
+    public BreachScreen(BloomFilterIndex bloom, SortedHashIndex sorted) {
+        this.bloom = bloom;
+        this.sorted = sorted;
+    }
+
+    public static BreachScreen open(Path bloomFile) throws IOException {
+        return new BreachScreen(BloomFilterIndex.open(bloomFile), null);
+    }
+
+    public static BreachScreen open(Path bloomFile, Path sortedFile) throws IOException {
+        return new BreachScreen(BloomFilterIndex.open(bloomFile), SortedHashIndex.open(sortedFile));
+    }
+
+    public boolean isBreached(String password) {
+        BreachHash hash = BreachHash.acquire();
+        long first;
+        long second;
+        try {
+            hash.setPassword(password);
+            first = hash.first;
+            second = hash.second;
+        } finally {
+            BreachHash.release(hash);
+        }
+        if (!bloom.mightContain(first, second)) {
+            return false;
+        }
+        return sorted == null || sorted.contains(first);
+    }
+
+    public BloomFilterIndex getBloomFilter() {
+        return bloom;
+    }
+
+    //    The sorted hash index, or null if the screen only has the filter
+    public SortedHashIndex getSortedIndex() {
+        return sorted;
+    }
+}
@@ -0,0 +1,57 @@
+package com.stancu.breach;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    The longs of a file after its header, mapped read-only. A buffer cannot map more than 2 GB, so the file is mapped in
+    segments of 1 GB; the header has a multiple of 8 bytes, so a long is never split between two segments.
+    Nothing is read when it is opened, and the reads are absolute, so any number of threads can share it.
+*/
+final class MappedLongArray {
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final MappedByteBuffer[] segments;
+    private final long headerBytes;
+    private final long length;
+
+    MappedLongArray(Path file, long headerBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < headerBytes || (size - headerBytes) % Long.BYTES != 0) {
+                throw new IOException(file + " is not an index: it has " + size + " bytes");
+            }
+            int segmentCount = (int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_MASK + 1, size - start));
+            }
+            this.headerBytes = headerBytes;
+            this.length = (size - headerBytes) / Long.BYTES;
+        }
+    }
+
+    //    A long of the header, by its byte offset
+    long headerLong(int offset) {
+        return segments[0].getLong(offset);
+    }
+
+    int headerInt(int offset) {
+        return segments[0].getInt(offset);
+    }
+
+    long get(long index) {
+        long position = headerBytes + index * Long.BYTES;
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    long length() {
+        return length;
+    }
+}
@@ -0,0 +1,48 @@
+package com.stancu.breach;
+
+import com.stancu.engine.StepCounter;
+import com.stancu.v2_refactored.PasswordValidator2;
+
+/*
+    A validator with the breach screen after it, so a password is only acceptable if it is strong and it is not in the
+    breach list. The steps are the ones of the validator, except that a breached password which is otherwise strong
+    counts BREACHED_STEPS (one change at least makes it another password): wherever a StepCounter is used (the command
+    line, the server, the batch checker, the cache), 0 steps still means acceptable. The validator runs first, because it
+    rejects the weak passwords without hashing them, and a strong password returns early from the refactored validator
+    (see StrengthClassifier). It can be shared between threads when the wrapped counter can.
+*/
+public class ScreenedStepCounter implements StepCounter {
+
+    public static final int BREACHED_STEPS = 1;
+
+    private final StepCounter counter;
+    private final BreachScreen screen;
+
+    public ScreenedStepCounter(StepCounter counter, BreachScreen screen) {
+        this.counter = counter;
+        this.screen = screen;
+    }
+
+    //    Screen after the refactored validator
+    public static ScreenedStepCounter refactored(BreachScreen screen) {
+        return new ScreenedStepCounter(new PasswordValidator2(), screen);
+    }
+
+    @Override
+    public int countSteps(String password) {
+        int steps = counter.countSteps(password);
+        return steps == 0 && screen.isBreached(password) ? BREACHED_STEPS : steps;
+    }
+
+    public boolean isBreached(String password) {
+        return screen.isBreached(password);
+    }
+
+    public boolean isAcceptable(String password) {
+        return countSteps(password) == 0;
+    }
+
+    public BreachScreen getScreen() {
+        return screen;
+    }
+}
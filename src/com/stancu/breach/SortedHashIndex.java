@@ -0,0 +1,215 @@
+package com.stancu.breach;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+    The exact answer behind the Bloom filter: the first 64 bits of the breach keys (see BreachHash), sorted as unsigned
+    numbers and without duplicates, in a memory-mapped file, so a lookup is a binary search over the mapped longs.
+    Two different passwords share their 64 bits with a probability of about n / 2^64 per lookup, which is negligible
+    even for billions of entries.
+    The file is a header of 16 bytes (magic and number of entries) and the sorted longs.
+    The index is built by an external sort (see Builder), so the keys never have to fit in memory.
+*/
+public class SortedHashIndex {
+
+    static final int HEADER_BYTES = 16;
+    private static final int MAGIC = 0x42525348;
+
+    private final MappedLongArray keys;
+
+    private SortedHashIndex(MappedLongArray keys) {
+        this.keys = keys;
+    }
+
+    public static SortedHashIndex open(Path file) throws IOException {
+        MappedLongArray keys = new MappedLongArray(file, HEADER_BYTES);
+        if (keys.headerInt(0) != MAGIC || keys.headerLong(8) != keys.length()) {
+            throw new IOException(file + " is not a sorted hash index");
+        }
+        return new SortedHashIndex(keys);
+    }
+
+    boolean contains(long key) {
+        long low = 0;
+        long high = keys.length() - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int comparison = Long.compareUnsigned(keys.get(middle), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getEntries() {
+        return keys.length();
+    }
+
+    /*
+        Every task takes a buffer with acquire(), adds its keys into it, and gives it back with release(), so the next
+        task can go on filling it. A full buffer is sorted and written as a run into the temporary directory, and finish()
+        merges all the runs into the index, dropping the duplicates, so the memory of the build is one buffer per running
+        task whatever the size of the list. The builder is the only owner of the buffers (no ThreadLocal keeps them in
+        the threads of the pool), and finish() drops them.
+    */
+    static final class Builder {
+
+        private final Path temporaryDirectory;
+        private final int runLongs;
+        private final ConcurrentLinkedQueue<RunBuffer> idleBuffers = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<RunBuffer> allBuffers = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Path> runs = new ConcurrentLinkedQueue<>();
+
+        Builder(Path temporaryDirectory, int runLongs) {
+            this.temporaryDirectory = temporaryDirectory;
+            this.runLongs = runLongs;
+        }
+
+        //    A buffer that only the calling task uses until it is released
+        RunBuffer acquire() {
+            RunBuffer buffer = idleBuffers.poll();
+            if (buffer == null) {
+                buffer = new RunBuffer(runLongs);
+                allBuffers.add(buffer);
+            }
+            return buffer;
+        }
+
+        void release(RunBuffer buffer) {
+            idleBuffers.add(buffer);
+        }
+
+        void add(RunBuffer buffer, long key) throws IOException {
+            buffer.keys[buffer.size++] = key;
+            if (buffer.size == runLongs) {
+                writeRun(buffer);
+            }
+        }
+
+        private void writeRun(RunBuffer buffer) throws IOException {
+            // The sign bit is flipped for the sort, so the signed order of the longs is the unsigned order of the keys
+            long[] keys = buffer.keys;
+            for (int i = 0; i < buffer.size; i++) {
+                keys[i] ^= Long.MIN_VALUE;
+            }
+            Arrays.sort(keys, 0, buffer.size);
+            Path run = Files.createTempFile(temporaryDirectory, "breach-run", ".bin");
+            try (FileChannel channel = FileChannel.open(run, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = ByteBuffer.allocateDirect(1 << 20);
+                for (int i = 0; i < buffer.size; i++) {
+                    if (!bytes.hasRemaining()) {
+                        BloomFilterIndex.write(channel, bytes);
+                    }
+                    bytes.putLong(keys[i] ^ Long.MIN_VALUE);
+                }
+                BloomFilterIndex.write(channel, bytes);
+            }
+            runs.add(run);
+            buffer.size = 0;
+        }
+
+        //    Called when all the keys were added and the buffers released: merges the runs into the index and deletes them
+        long finish(Path file) throws IOException {
+            for (RunBuffer buffer : allBuffers) {
+                if (buffer.size > 0) {
+                    writeRun(buffer);
+                }
+            }
+            allBuffers.clear();
+            idleBuffers.clear();
+            List<RunReader> readers = new ArrayList<>();
+            PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> Long.compareUnsigned(a.current, b.current));
+            long entries = 0;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Path run : runs) {
+                    RunReader reader = new RunReader(Files.newInputStream(run));
+                    readers.add(reader);
+                    if (reader.next()) {
+                        queue.add(reader);
+                    }
+                }
+                ByteBuffer bytes = ByteBuffer.allocateDirect(1 << 20);
+                // The number of entries is only known at the end, so the header is written again then
+                bytes.putInt(MAGIC).putInt(0).putLong(0);
+                boolean hasPrevious = false;
+                long previous = 0;
+                while (!queue.isEmpty()) {
+                    RunReader reader = queue.poll();
+                    long key = reader.current;
+                    if (!hasPrevious || key != previous) {
+                        if (!bytes.hasRemaining()) {
+                            BloomFilterIndex.write(channel, bytes);
+                        }
+                        bytes.putLong(key);
+                        entries++;
+                        previous = key;
+                        hasPrevious = true;
+                    }
+                    if (reader.next()) {
+                        queue.add(reader);
+                    }
+                }
+                BloomFilterIndex.write(channel, bytes);
+                channel.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(0).putLong(entries).flip(), 0);
+            } finally {
+                for (RunReader reader : readers) {
+                    reader.input.close();
+                }
+                for (Path run : runs) {
+                    Files.deleteIfExists(run);
+                }
+                runs.clear();
+            }
+            return entries;
+        }
+    }
+
+    static final class RunBuffer {
+
+        private final long[] keys;
+        private int size;
+
+        private RunBuffer(int capacity) {
+            this.keys = new long[capacity];
+        }
+    }
+
+    private static final class RunReader {
+
+        private final DataInputStream input;
+        private long current;
+
+        private RunReader(InputStream input) {
+            this.input = new DataInputStream(new BufferedInputStream(input, 1 << 16));
+        }
+
+        private boolean next() throws IOException {
+            try {
+                current = input.readLong();
+                return true;
+            } catch (EOFException exception) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.stancu.cache;
+
+import com.stancu.engine.StepCounter;
+import com.stancu.policy.PasswordPolicy;
+import com.stancu.policy.PolicyValidator;
+import com.stancu.state.ScratchPool;
+import com.stancu.v2_refactored.PasswordValidator2;
+
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/*
+    StepCounter that looks a password up in a StepCountCache before it checks it, so the repeated checks of the same
+    candidate (retries, a live strength meter) don't run the repair loop again. A miss takes a counter made by the factory
+    from a pool and gives it back after the check, so even the engines that keep a reusable buffer (like VectorSolution) can
+    be used, and one CachingStepCounter can be used by any number of threads, virtual ones included (a ThreadLocal would
+    make a new counter for every virtual thread). The policy is part of the key, so it must be the policy that the counter
+    checks.
+*/
+public class CachingStepCounter implements StepCounter {
+
+    private final StepCountCache cache;
+    private final PasswordPolicy policy;
+    private final ScratchPool<StepCounter> counters;
+    // Made once, so a lookup does not allocate a method reference
+    private final ToIntFunction<String> uncached = this::countUncached;
+
+    public CachingStepCounter(StepCountCache cache, PasswordPolicy policy, Supplier<? extends StepCounter> counterFactory) {
+        this.cache = cache;
+        this.policy = policy;
+        this.counters = new ScratchPool<>(counterFactory);
+    }
+
+    //    The validators of a policy are immutable, so all the threads share the same one
+    public CachingStepCounter(StepCountCache cache, PolicyValidator validator) {
+        this(cache, validator.getPolicy(), () -> validator);
+    }
+
+    //    Caching counter over the refactored validator, which checks the default policy
+    public static CachingStepCounter refactored(StepCountCache cache) {
+        return new CachingStepCounter(cache, PasswordPolicy.DEFAULT, PasswordValidator2::new);
+    }
+
+    @Override
+    public int countSteps(String password) {
+        return cache.get(policy, password, uncached);
+    }
+
+    private int countUncached(String password) {
+        StepCounter counter = counters.acquire();
+        try {
+            return counter.countSteps(password);
+        } finally {
+            counters.release(counter);
+        }
+    }
+
+    public StepCountCache getCache() {
+        return cache;
+    }
+
+    public PasswordPolicy getPolicy() {
+        return policy;
+    }
+}
@@ -0,0 +1,241 @@
+package com.stancu.cache;
+
+import com.stancu.policy.PasswordPolicy;
+import com.stancu.state.ScratchPool;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/*
+    Bounded cache of step counts, keyed by the policy and the password. The entries are split by the hash of the key
+    between segments, and every segment is a LinkedHashMap in access order with its own lock, so the threads that read
+    different segments never wait for each other and every segment evicts its least recently used entry when it is full.
+    With 'hashPasswords' the key only keeps the first 128 bits of the HMAC-SHA256 of the password, so no plaintext password
+    stays on the heap after the check (two passwords with the same 128 bits would share a result, which is negligible).
+    The HMAC key is a random secret of the cache, which is never stored anywhere else: a plain hash of a password could be
+    found again by hashing a dictionary, and the keys of a heap dump with them. The Mac objects are reused from a pool.
+    One cache can be shared by the validators of several policies (see CachingStepCounter).
+*/
+public class StepCountCache {
+
+    public static final int DEFAULT_SEGMENTS = 16;
+
+    private static final String HMAC = "HmacSHA256";
+    private static final int SECRET_BYTES = 32;
+
+    private final Segment[] segments;
+    private final int maximumSize;
+    private final boolean hashPasswords;
+    // Only when the passwords are hashed
+    private final SecretKeySpec secret;
+    private final ScratchPool<Mac> macs;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StepCountCache(int maximumSize, boolean hashPasswords) {
+        this(maximumSize, hashPasswords, DEFAULT_SEGMENTS);
+    }
+
+    public StepCountCache(int maximumSize, boolean hashPasswords, int segmentCount) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("The cache must keep at least 1 entry, but it keeps " + maximumSize);
+        }
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("The number of segments must be a power of 2, but it is " + segmentCount);
+        }
+        // A segment never keeps less than one entry, so a small cache has less segments
+        int count = Math.min(segmentCount, Integer.highestOneBit(maximumSize));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+        this.maximumSize = maximumSize;
+        this.hashPasswords = hashPasswords;
+        if (hashPasswords) {
+            byte[] secretBytes = new byte[SECRET_BYTES];
+            new SecureRandom().nextBytes(secretBytes);
+            this.secret = new SecretKeySpec(secretBytes, HMAC);
+            Arrays.fill(secretBytes, (byte) 0);
+            this.macs = new ScratchPool<>(this::newMac);
+        } else {
+            this.secret = null;
+            this.macs = null;
+        }
+    }
+
+    /*
+        Returns the cached step count of the password under the policy, or counts it with 'counter' and keeps it.
+        The counting is done outside of the lock, so two threads that miss the same password at the same time both count
+        it (the result is the same), but a slow check never blocks the readers of its segment.
+    */
+    public int get(PasswordPolicy policy, String password, ToIntFunction<String> counter) {
+        Key key = hashPasswords ? hashed(policy, password) : new Key(policy, password, 0, 0);
+        Segment segment = segments[spread(key.hashCode()) & (segments.length - 1)];
+        Integer steps;
+        synchronized (segment) {
+            steps = segment.get(key);
+        }
+        if (steps != null) {
+            hits.increment();
+            return steps;
+        }
+        misses.increment();
+        int counted = counter.applyAsInt(password);
+        synchronized (segment) {
+            segment.put(key, counted);
+        }
+        return counted;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public boolean isHashingPasswords() {
+        return hashPasswords;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StepCountCache{size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.3f}",
+                size(), maximumSize, getHits(), getMisses(), getEvictions(), getHitRate());
+    }
+
+    private Key hashed(PasswordPolicy policy, String password) {
+        Mac mac = macs.acquire();
+        try {
+            byte[] digest = mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+            return new Key(policy, null, toLong(digest, 0), toLong(digest, 8));
+        } finally {
+            macs.release(mac);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(secret);
+            return mac;
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException(HMAC + " is not available", exception);
+        }
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = value << 8 | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    //    The low bits choose the segment, so the high bits of the hash are mixed into them
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private final class Segment extends LinkedHashMap<Key, Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    //    The password, or (if 'password' is null) the first 128 bits of its HMAC-SHA256, under a policy
+    private static final class Key {
+
+        private final PasswordPolicy policy;
+        private final String password;
+        private final long high;
+        private final long low;
+        private final int hash;
+
+        private Key(PasswordPolicy policy, String password, long high, long low) {
+            this.policy = policy;
+            this.password = password;
+            this.high = high;
+            this.low = low;
+            int passwordHash = password != null ? password.hashCode() : Long.hashCode(high ^ low);
+            this.hash = 31 * policy.hashCode() + passwordHash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && high == key.high && low == key.low && policy.equals(key.policy)
+                    && (password == null ? key.password == null : password.equals(key.password));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.stancu.cli;
+
+import com.stancu.constants.PasswordRules;
+import com.stancu.engine.AdaptiveStepCounter;
+import com.stancu.engine.StepCounter;
+import com.stancu.v1.PasswordValidator;
+import com.stancu.v2_refactored.PasswordValidator2;
+import com.stancu.v3_faster_ideas.Solution;
+import com.stancu.v3_faster_ideas.StepCount;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/*
+    Command line checker for shell pipelines and cron jobs: it reads one password per line from the files, or from the
+    standard input when there is no file (or the file is "-"), and writes one result per line (see ResultFormat).
+    The lines are checked while they are read, so the memory does not depend on the input, and the output is flushed
+    every time the input has nothing more ready, so a result of an interactive pipe is not kept back. The line numbers
+    go on from one file to the next one. A "\r" before the newline is not part of the password.
+    The steps come from the chosen engine (v1, v2, v3, or auto for the adaptive counter, see AdaptiveStepCounter), and the failed rules always from the counting solution,
+    because they only depend on the password.
+
+    The checker is started thousands of times a day, so the start of the JVM costs more than the checks. That is why this
+    class and the engines that it loads only use plain classes: no reflection, no lambdas or method references (every
+    one of them is bootstrapped on the first call, so even the scratch factories of v1 and v2 are plain classes), no
+    static state besides constants, and the streams of the JDK are opened directly on the file descriptors. So the
+    classes can be dumped into a CDS archive (-XX:ArchiveClassesAtExit), and GraalVM native-image compiles the jar
+    without any configuration (see the "native" profile of the core module and startup-benchmark.sh).
+
+    Exit codes: 0, or 1 with --strict when some password is not strong, 2 for wrong arguments, 3 for an I/O error.
+
+    Usage: Main [--engine v1|v2|v3|auto] [--format steps|csv|json] [--strict] [file ...]
+*/
+public class PasswordCheckCli {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_WEAK_PASSWORD = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_IO_ERROR = 3;
+
+    private static final String USAGE = "Usage: Main [--engine v1|v2|v3|auto] [--format steps|csv|json] [--strict] [file ...]";
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final StepCounter engine;
+    private final ResultFormat format;
+    private final Solution solution = new Solution();
+    private final StepCount count = new StepCount();
+
+    private long lines;
+    private long weakPasswords;
+
+    public PasswordCheckCli(StepCounter engine, ResultFormat format) {
+        this.engine = engine;
+        this.format = format;
+    }
+
+    //    The engine of a name from the command line, or null for an unknown name
+    public static StepCounter engineOf(String name) {
+        switch (name) {
+            case "v1": return new FirstVersion();
+            case "v2": return new PasswordValidator2();
+            case "v3": return new Solution();
+            // The default limits and no vector engine, because the calibration and its lookup cost more than a short run
+            case "auto": return new AdaptiveStepCounter(new Solution());
+            default: return null;
+        }
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getWeakPasswords() {
+        return weakPasswords;
+    }
+
+    //    Checks every line of the reader and writes the results; the writer is flushed, but neither of them is closed
+    public void check(BufferedReader reader, Writer writer) throws IOException {
+        StringBuilder record = new StringBuilder(128);
+        String password;
+        while ((password = reader.readLine()) != null) {
+            lines++;
+            // Solution keeps no state, so v3 can give its steps from the same count
+            solution.passwordChecker(password, count);
+            int steps = engine instanceof Solution ? count.getSteps() : engine.countSteps(password);
+            if (steps > 0) {
+                weakPasswords++;
+            }
+            record.setLength(0);
+            appendResult(record, steps);
+            writer.append(record);
+            if (!reader.ready()) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private void appendResult(StringBuilder record, int steps) {
+        switch (format) {
+            case STEPS:
+                record.append(steps);
+                break;
+            case CSV:
+                record.append(lines).append(',').append(count.getLength()).append(',').append(steps).append(',')
+                        .append(count.getFailedRules());
+                break;
+            case JSON:
+                record.append("{\"line\":").append(lines).append(",\"length\":").append(count.getLength())
+                        .append(",\"steps\":").append(steps).append(",\"failedRules\":\"")
+                        .append(PasswordRules.describe(count.getFailedRules())).append("\"}");
+                break;
+        }
+        record.append('\n');
+    }
+
+    public static int run(String[] args) {
+        String engineName = "v3";
+        ResultFormat format = ResultFormat.STEPS;
+        boolean strict = false;
+        int index = 0;
+        for (; index < args.length && args[index].startsWith("--"); index++) {
+            String option = args[index];
+            if (option.equals("--strict")) {
+                strict = true;
+                continue;
+            }
+            if (option.equals("--help")) {
+                System.out.println(USAGE);
+                return EXIT_OK;
+            }
+            if (index + 1 == args.length) {
+                return usage("The option " + option + " needs a value");
+            }
+            String value = args[++index];
+            switch (option) {
+                case "--engine":
+                    engineName = value;
+                    break;
+                case "--format":
+                    format = formatOf(value);
+                    if (format == null) {
+                        return usage("Unknown format " + value);
+                    }
+                    break;
+                default:
+                    return usage("Unknown option " + option);
+            }
+        }
+        StepCounter engine = engineOf(engineName);
+        if (engine == null) {
+            return usage("Unknown engine " + engineName);
+        }
+
+        PrintStream standardOutput = System.out;
+        if (engine instanceof FirstVersion) {
+            // v1 prints the password that it builds, which is not a result
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        PasswordCheckCli cli = new PasswordCheckCli(engine, format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                StandardCharsets.UTF_8), BUFFER_CHARS);
+        String input = "-";
+        try {
+            if (index == args.length) {
+                cli.check(open(input), writer);
+            }
+            for (; index < args.length; index++) {
+                input = args[index];
+                BufferedReader reader = open(input);
+                try {
+                    cli.check(reader, writer);
+                } finally {
+                    if (!input.equals("-")) {
+                        reader.close();
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            System.err.println("Cannot check " + (input.equals("-") ? "the standard input" : input) + ": " + exception.getMessage());
+            return EXIT_IO_ERROR;
+        } finally {
+            System.setOut(standardOutput);
+        }
+        return strict && cli.weakPasswords > 0 ? EXIT_WEAK_PASSWORD : EXIT_OK;
+    }
+
+    //    The enum is looked up with a switch, because valueOf reads the constants by reflection
+    private static ResultFormat formatOf(String name) {
+        switch (name.toLowerCase()) {
+            case "steps": return ResultFormat.STEPS;
+            case "csv": return ResultFormat.CSV;
+            case "json": return ResultFormat.JSON;
+            default: return null;
+        }
+    }
+
+    //    The standard input is not closed after it is read, so the reader of "-" is never closed either
+    private static BufferedReader open(String input) throws IOException {
+        Reader reader = new InputStreamReader(input.equals("-") ? new FileInputStream(FileDescriptor.in)
+                : new FileInputStream(input), StandardCharsets.UTF_8);
+        return new BufferedReader(reader, BUFFER_CHARS);
+    }
+
+    private static int usage(String error) {
+        System.err.println(error);
+        System.err.println(USAGE);
+        return EXIT_USAGE;
+    }
+
+    //    The first version does not implement StepCounter, and a method reference would be bootstrapped at the start
+    private static final class FirstVersion implements StepCounter {
+
+        private final PasswordValidator validator = new PasswordValidator();
+
+        @Override
+        public int countSteps(String password) {
+            return validator.strongPasswordChecker(password);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.stancu.cli;
+
+/*
+    How the command line checker writes the result of one password, one line per password, in the order of the input.
+    STEPS: only the minimum steps.
+    CSV: "line,length,steps,failedRules", with the failed rules as the bits of PasswordRules (like the audit pipeline).
+    JSON: one object per line (JSON Lines), with the names of the failed rules, like
+          {"line":1,"length":3,"steps":3,"failedRules":"TOO_SHORT|REPEATING_CHARACTERS|MISSING_UPPER_CASE|MISSING_DIGIT"}
+    The passwords themselves are never written, so the output can be kept in the logs of a cron job.
+*/
+public enum ResultFormat {
+    STEPS,
+    CSV,
+    JSON
+}
@@ -2,6 +2,8 @@ package com.stancu.constants;
 
 public class PasswordConstants {
 
-    public static Integer PASSWORD_MIN_LENGTH = 6;
-    public static Integer PASSWORD_MAX_LENGTH = 20;
+    public static final int PASSWORD_MIN_LENGTH = 6;
+    public static final int PASSWORD_MAX_LENGTH = 20;
+    // The longest allowed sequence of the same character ("aa" is fine, "aaa" is not)
+    public static final int PASSWORD_MAX_RUN_LENGTH = 2;
 }
@@ -0,0 +1,38 @@
+package com.stancu.constants;
+
+/*
+    The rules that a password can fail, as bits, so a result can keep all of them in one int.
+*/
+public class PasswordRules {
+
+    public static final int TOO_SHORT = 1;
+    public static final int TOO_LONG = 1 << 1;
+    public static final int REPEATING_CHARACTERS = 1 << 2;
+    public static final int MISSING_LOWER_CASE = 1 << 3;
+    public static final int MISSING_UPPER_CASE = 1 << 4;
+    public static final int MISSING_DIGIT = 1 << 5;
+    // Only for the policies that ask for them (see PasswordPolicy)
+    public static final int MISSING_SYMBOL = 1 << 6;
+    public static final int FORBIDDEN_CHARACTER = 1 << 7;
+    // The number of rules, so the bit of the rule i is 1 << i
+    public static final int RULE_COUNT = 8;
+
+    private static final int[] RULES = {TOO_SHORT, TOO_LONG, REPEATING_CHARACTERS, MISSING_LOWER_CASE, MISSING_UPPER_CASE,
+            MISSING_DIGIT, MISSING_SYMBOL, FORBIDDEN_CHARACTER};
+    private static final String[] RULE_NAMES = {"TOO_SHORT", "TOO_LONG", "REPEATING_CHARACTERS", "MISSING_LOWER_CASE",
+            "MISSING_UPPER_CASE", "MISSING_DIGIT", "MISSING_SYMBOL", "FORBIDDEN_CHARACTER"};
+
+    //    Helper function which returns the names of the failed rules, like "TOO_SHORT|MISSING_DIGIT" (or "NONE")
+    public static String describe(int failedRules) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < RULES.length; i++) {
+            if ((failedRules & RULES[i]) != 0) {
+                if (builder.length() > 0) {
+                    builder.append('|');
+                }
+                builder.append(RULE_NAMES[i]);
+            }
+        }
+        return builder.length() == 0 ? "NONE" : builder.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.stancu.engine;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/*
+    Front-end that sends every password to the engine of its length (see LengthTier): the length is the only profile
+    that costs nothing, and it is what decides which engine is the fastest, because all of them are linear in the
+    characters (the repair loops of v1 and v2 are never chosen). By default:
+    - SHORT, up to the maximum length, is answered from the precomputed table (see LookupTableStepCounter), which is
+      faster than the unrolled loop at every length that it covers;
+    - MEDIUM, up to 255 characters, goes to the unrolled scalar loop (see UnrolledStepCounter);
+    - LONG goes to the vector engine if the JVM can run it, otherwise to Solution (see VectorSupport). The vector engine
+      only gets faster than the unrolled loop between 128 and 256 characters (measured with EngineCalibrator).
+    The limits don't have to be the ones of the policy: EngineCalibrator measures the engines on the host and returns
+    a counter with the limits where the next engine gets faster.
+    With timing, every check is also measured and added to the statistics of its tier (see EngineStatistics), so the
+    calibration can be checked against the real passwords. The two calls of System.nanoTime cost more than a short check,
+    so the timing is off by default.
+    The other engines and the statistics can be shared between threads, and only the vector engine can't, because it
+    keeps a reusable buffer: an instance with it must be used by one thread, and one with Solution for LONG can be shared.
+    The length of UTF-8 bytes is their number of bytes, which is the number of characters for an ASCII password.
+*/
+public class AdaptiveStepCounter implements StepCounter {
+
+    public static final int DEFAULT_SHORT_LIMIT = LookupTableStepCounter.MAX_LENGTH + 1;
+    public static final int DEFAULT_LONG_LIMIT = 256;
+
+    private final StepCounter shortEngine;
+    private final StepCounter mediumEngine;
+    private final StepCounter longEngine;
+    private final int shortLimit;
+    private final int longLimit;
+    // One per tier, or null without timing
+    private final EngineStatistics[] statistics;
+
+    public AdaptiveStepCounter() {
+        this(VectorSupport.stepCounter());
+    }
+
+    public AdaptiveStepCounter(StepCounter longEngine) {
+        this(new LookupTableStepCounter(), new UnrolledStepCounter(), longEngine, DEFAULT_SHORT_LIMIT, DEFAULT_LONG_LIMIT,
+                false);
+    }
+
+    //    The passwords shorter than shortLimit are SHORT, the ones of longLimit characters or more are LONG
+    public AdaptiveStepCounter(StepCounter shortEngine, StepCounter mediumEngine, StepCounter longEngine, int shortLimit,
+                               int longLimit, boolean timed) {
+        if (shortLimit < 0 || longLimit < shortLimit) {
+            throw new IllegalArgumentException("The limits must be 0 <= short <= long, but they are " + shortLimit
+                    + " and " + longLimit);
+        }
+        this.shortEngine = shortEngine;
+        this.mediumEngine = mediumEngine;
+        this.longEngine = longEngine;
+        this.shortLimit = shortLimit;
+        this.longLimit = longLimit;
+        if (timed) {
+            statistics = new EngineStatistics[LengthTier.values().length];
+            for (int i = 0; i < statistics.length; i++) {
+                statistics[i] = new EngineStatistics();
+            }
+        } else {
+            statistics = null;
+        }
+    }
+
+    //    Same engines and limits, with the timing turned on or off (the statistics start from zero)
+    public AdaptiveStepCounter withTiming(boolean timed) {
+        return new AdaptiveStepCounter(shortEngine, mediumEngine, longEngine, shortLimit, longLimit, timed);
+    }
+
+    public LengthTier tierOf(int length) {
+        if (length < shortLimit) {
+            return LengthTier.SHORT;
+        }
+        return length < longLimit ? LengthTier.MEDIUM : LengthTier.LONG;
+    }
+
+    public StepCounter engineOf(LengthTier tier) {
+        switch (tier) {
+            case SHORT: return shortEngine;
+            case MEDIUM: return mediumEngine;
+            default: return longEngine;
+        }
+    }
+
+    public int getShortLimit() {
+        return shortLimit;
+    }
+
+    public int getLongLimit() {
+        return longLimit;
+    }
+
+    public boolean isTimed() {
+        return statistics != null;
+    }
+
+    //    The statistics of every tier (empty without timing)
+    public Map<LengthTier, EngineStatistics> getStatistics() {
+        Map<LengthTier, EngineStatistics> result = new EnumMap<>(LengthTier.class);
+        if (statistics != null) {
+            for (LengthTier tier : LengthTier.values()) {
+                result.put(tier, statistics[tier.ordinal()]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int countSteps(String password) {
+        int length = password.length();
+        LengthTier tier = tierOf(length);
+        StepCounter engine = engineOf(tier);
+        if (statistics == null) {
+            return engine.countSteps(password);
+        }
+        long start = System.nanoTime();
+        int steps = engine.countSteps(password);
+        statistics[tier.ordinal()].record(length, System.nanoTime() - start);
+        return steps;
+    }
+
+    @Override
+    public int countSteps(byte[] utf8, int offset, int length) {
+        LengthTier tier = tierOf(length);
+        StepCounter engine = engineOf(tier);
+        if (statistics == null) {
+            return engine.countSteps(utf8, offset, length);
+        }
+        long start = System.nanoTime();
+        int steps = engine.countSteps(utf8, offset, length);
+        statistics[tier.ordinal()].record(length, System.nanoTime() - start);
+        return steps;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveStepCounter{short=[0, " + shortLimit + ") " + shortEngine.getClass().getSimpleName()
+                + ", medium=[" + shortLimit + ", " + longLimit + ") " + mediumEngine.getClass().getSimpleName()
+                + ", long=[" + longLimit + ", ...) " + longEngine.getClass().getSimpleName() + "}";
+    }
+}
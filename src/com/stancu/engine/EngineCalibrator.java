@@ -0,0 +1,177 @@
+package com.stancu.engine;
+
+import com.stancu.v3_faster_ideas.Solution;
+
+import java.io.PrintStream;
+import java.util.Random;
+
+/*
+    Startup micro-benchmark that chooses the limits of the adaptive counter (see AdaptiveStepCounter) on the host, instead
+    of hard-coding them. Every engine checks the same random passwords (with long repeating sequences, like the ones of
+    the differential harness) at every probe length, and its time is the best of a few rounds. Before that, the engine
+    runs once over all the probe lengths, so its hot loops are compiled for all of them, and a compilation or a GC in the
+    middle of a round does not decide the limits.
+    - The short limit is the first probe length from which the medium engine is faster than the short one at every
+      longer probe length.
+    - The long limit is the same for the long engine against the medium one, from the short limit on.
+    A single faster probe is not enough, because two engines that are close are ordered by the noise. If the next engine
+    is not faster at the longest probe length, its tier starts at Integer.MAX_VALUE (it is never used), and if two tiers
+    have the same engine, their limit stays the default one. With the default sizes the calibration takes a few hundred milliseconds.
+
+    Usage: EngineCalibrator   (prints the time of every engine at every probe length and the chosen limits)
+*/
+public class EngineCalibrator {
+
+    public static final int[] DEFAULT_PROBE_LENGTHS = {1, 2, 3, 4, 5, 6, 8, 10, 12, 16, 20, 24, 32, 48, 64, 96, 128,
+            256, 512, 1024, 2048, 4096};
+    public static final int DEFAULT_PASSWORDS_PER_PROBE = 128;
+    public static final int DEFAULT_ROUNDS = 5;
+
+    private static final String ALPHABET = "abcABC123!.";
+
+    private final int[] probeLengths;
+    private final int passwordsPerProbe;
+    private final int rounds;
+    private final long seed;
+
+    // The steps are summed here, so the JIT can't drop a check whose result is not used
+    private long checksum;
+
+    public EngineCalibrator() {
+        this(DEFAULT_PROBE_LENGTHS, DEFAULT_PASSWORDS_PER_PROBE, DEFAULT_ROUNDS, 1);
+    }
+
+    //    The probe lengths must be increasing
+    public EngineCalibrator(int[] probeLengths, int passwordsPerProbe, int rounds, long seed) {
+        if (probeLengths.length == 0 || passwordsPerProbe < 1 || rounds < 1) {
+            throw new IllegalArgumentException("The calibration needs at least one probe length, password and round");
+        }
+        for (int i = 1; i < probeLengths.length; i++) {
+            if (probeLengths[i] <= probeLengths[i - 1]) {
+                throw new IllegalArgumentException("The probe lengths must be increasing, but " + probeLengths[i]
+                        + " follows " + probeLengths[i - 1]);
+            }
+        }
+        this.probeLengths = probeLengths.clone();
+        this.passwordsPerProbe = passwordsPerProbe;
+        this.rounds = rounds;
+        this.seed = seed;
+    }
+
+    //    Adaptive counter over the default engines (see AdaptiveStepCounter), with the limits measured on this host
+    public AdaptiveStepCounter calibrate() {
+        return calibrate(new LookupTableStepCounter(), new UnrolledStepCounter(), VectorSupport.stepCounter(), false);
+    }
+
+    public AdaptiveStepCounter calibrate(StepCounter shortEngine, StepCounter mediumEngine, StepCounter longEngine,
+                                         boolean timed) {
+        double[] shortNanos = shortEngine == mediumEngine ? null : measure(shortEngine);
+        double[] mediumNanos = measure(mediumEngine);
+        double[] longNanos = longEngine == mediumEngine ? null : measure(longEngine);
+
+        int shortLimit = shortNanos == null ? AdaptiveStepCounter.DEFAULT_SHORT_LIMIT
+                : firstFaster(mediumNanos, shortNanos, 0);
+        if (shortEngine instanceof LookupTableStepCounter) {
+            // A longer password is not in the table, so the probes over it only measure the fallback of the table
+            shortLimit = Math.min(shortLimit, LookupTableStepCounter.MAX_LENGTH + 1);
+        }
+        int longLimit;
+        if (longNanos == null) {
+            longLimit = Math.max(shortLimit, AdaptiveStepCounter.DEFAULT_LONG_LIMIT);
+        } else {
+            longLimit = firstFaster(longNanos, mediumNanos, shortLimit);
+        }
+        return new AdaptiveStepCounter(shortEngine, mediumEngine, longEngine, shortLimit, longLimit, timed);
+    }
+
+    //    The first probe length from 'from' on where the candidate stays faster, or Integer.MAX_VALUE if there is none
+    private int firstFaster(double[] candidateNanos, double[] currentNanos, int from) {
+        int limit = Integer.MAX_VALUE;
+        for (int i = probeLengths.length - 1; i >= 0 && probeLengths[i] >= from; i--) {
+            if (candidateNanos[i] >= currentNanos[i]) {
+                break;
+            }
+            limit = probeLengths[i];
+        }
+        return limit;
+    }
+
+    //    The best time of a check, in nanoseconds, at every probe length
+    public double[] measure(StepCounter engine) {
+        String[][] passwords = new String[probeLengths.length][];
+        for (int i = 0; i < probeLengths.length; i++) {
+            passwords[i] = passwords(probeLengths[i], seed + i);
+        }
+        // The warm-up rounds
+        for (int round = 0; round < rounds; round++) {
+            for (String[] probe : passwords) {
+                run(engine, probe);
+            }
+        }
+        double[] nanos = new double[probeLengths.length];
+        for (int i = 0; i < probeLengths.length; i++) {
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                best = Math.min(best, run(engine, passwords[i]));
+            }
+            nanos[i] = (double) best / passwords[i].length;
+        }
+        return nanos;
+    }
+
+    private long run(StepCounter engine, String[] passwords) {
+        long start = System.nanoTime();
+        long steps = 0;
+        for (String password : passwords) {
+            steps += engine.countSteps(password);
+        }
+        long elapsed = System.nanoTime() - start;
+        checksum += steps;
+        return elapsed;
+    }
+
+    //    Random passwords where a character often repeats the previous one, so there are long repeating sequences
+    private String[] passwords(int length, long probeSeed) {
+        Random random = new Random(probeSeed);
+        String[] passwords = new String[passwordsPerProbe];
+        char[] characters = new char[length];
+        for (int p = 0; p < passwords.length; p++) {
+            for (int i = 0; i < length; i++) {
+                characters[i] = i > 0 && random.nextInt(3) == 0 ? characters[i - 1]
+                        : ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            passwords[p] = new String(characters);
+        }
+        return passwords;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public int[] getProbeLengths() {
+        return probeLengths.clone();
+    }
+
+    public static void main(String[] args) {
+        EngineCalibrator calibrator = new EngineCalibrator();
+        PrintStream out = System.out;
+        StepCounter tableEngine = new LookupTableStepCounter();
+        StepCounter scalarEngine = new UnrolledStepCounter();
+        StepCounter longEngine = VectorSupport.stepCounter();
+        long start = System.nanoTime();
+        AdaptiveStepCounter counter = calibrator.calibrate(tableEngine, scalarEngine, longEngine, false);
+        out.printf("Calibrated in %.1f ms: %s%n", (System.nanoTime() - start) / 1e6, counter);
+
+        double[] tableNanos = calibrator.measure(tableEngine);
+        double[] scalarNanos = calibrator.measure(scalarEngine);
+        double[] longNanos = calibrator.measure(longEngine);
+        double[] solutionNanos = calibrator.measure(new Solution());
+        out.printf("%8s %12s %12s %14s %12s%n", "length", "table", "unrolled", longEngine.getClass().getSimpleName(),
+                "Solution");
+        for (int i = 0; i < calibrator.probeLengths.length; i++) {
+            out.printf("%8d %9.1f ns %9.1f ns %11.1f ns %9.1f ns%n", calibrator.probeLengths[i], tableNanos[i],
+                    scalarNanos[i], longNanos[i], solutionNanos[i]);
+        }
+    }
+}
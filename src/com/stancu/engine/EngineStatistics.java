@@ -0,0 +1,57 @@
+package com.stancu.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Timing of the checks of one engine: the number of checks, of characters and of nanoseconds. The adders can be
+    updated by any number of threads, and they are only read when the statistics are shown, so the time per check and
+    per character can be compared between the engines (see AdaptiveStepCounter).
+*/
+public class EngineStatistics {
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder characters = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    public void record(int length, long elapsedNanos) {
+        checks.increment();
+        characters.add(length);
+        nanos.add(elapsedNanos);
+    }
+
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    public long getCharacters() {
+        return characters.sum();
+    }
+
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    //    The average time of a check, or 0 if there was no check
+    public double getNanosPerCheck() {
+        long count = checks.sum();
+        return count == 0 ? 0 : (double) nanos.sum() / count;
+    }
+
+    //    The average time of a character, or 0 if no character was checked
+    public double getNanosPerCharacter() {
+        long count = characters.sum();
+        return count == 0 ? 0 : (double) nanos.sum() / count;
+    }
+
+    public void reset() {
+        checks.reset();
+        characters.reset();
+        nanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d checks, %d characters, %.1f ns/check, %.2f ns/character", getChecks(), getCharacters(),
+                getNanosPerCheck(), getNanosPerCharacter());
+    }
+}
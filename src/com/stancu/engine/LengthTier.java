@@ -0,0 +1,13 @@
+package com.stancu.engine;
+
+/*
+    The length ranges of the adaptive counter (see AdaptiveStepCounter), every one of them with its own engine.
+    SHORT: shorter than the short limit (by default the passwords that the precomputed table answers).
+    MEDIUM: from the short limit to the long limit.
+    LONG: from the long limit on.
+*/
+public enum LengthTier {
+    SHORT,
+    MEDIUM,
+    LONG
+}
@@ -0,0 +1,76 @@
+package com.stancu.engine;
+
+import com.stancu.scanner.PasswordScanner;
+import com.stancu.scanner.Utf8;
+import com.stancu.v3_faster_ideas.Solution;
+
+/*
+    Answers the passwords of at most PASSWORD_MAX_LENGTH characters from a precomputed table (see ShortPasswordTable).
+    Such a password never needs a deletion, only insertions and replacements, so its steps don't depend on the characters
+    but only on its signature:
+    - its length;
+    - the 3-bit mask of the character cases that it has (see PasswordScanner);
+    - its runs, through the replacements that they need: a run of L characters needs L / 3 of them, and without the
+      deletions it does not matter how the rest of the runs is split (that only decides where the deletions go).
+    So the check is one pass that only gathers the signature (the ASCII cases come from the table of Utf8), and one read
+    of the table, without the branches of Solution.minimumSteps.
+    The table is generated by ShortPasswordTableGenerator (in the verification module) from the steps that
+    PasswordValidator.strongPasswordChecker returns for one password of every signature, and the generator also checks
+    that every password has the steps of its signature. The longer passwords go to the fallback engine.
+*/
+public class LookupTableStepCounter implements StepCounter {
+
+    public static final int MAX_LENGTH = ShortPasswordTable.MAX_LENGTH;
+    public static final int REPLACEMENT_SLOTS = ShortPasswordTable.MAX_LENGTH / 3 + 1;
+    // The value of a signature that no password has (like 3 cases in 2 characters)
+    public static final int NO_PASSWORD = -1;
+
+    private static final int CASE_MASKS = PasswordScanner.ALL_CASES + 1;
+
+    private final StepCounter fallback;
+
+    public LookupTableStepCounter() {
+        this(new Solution());
+    }
+
+    public LookupTableStepCounter(StepCounter fallback) {
+        this.fallback = fallback;
+    }
+
+    //    The index of a signature in the table: the replacement slots of every case mask of every length
+    public static int indexOf(int length, int caseMask, int replacements) {
+        return (length * CASE_MASKS + caseMask) * REPLACEMENT_SLOTS + replacements;
+    }
+
+    //    The steps of a signature, or NO_PASSWORD
+    public static int stepsOf(int length, int caseMask, int replacements) {
+        char steps = ShortPasswordTable.STEPS.charAt(indexOf(length, caseMask, replacements));
+        return steps == ShortPasswordTable.NO_PASSWORD ? NO_PASSWORD : steps - '0';
+    }
+
+    @Override
+    public int countSteps(String password) {
+        int length = password.length();
+        if (length > MAX_LENGTH) {
+            return fallback.countSteps(password);
+        }
+        int caseMask = PasswordScanner.NO_CASE;
+        int replacements = 0;
+        int sequenceStart = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            caseMask |= character < 0x80 ? Utf8.asciiCaseOf((byte) character) : PasswordScanner.caseOf(character);
+            if (i + 1 == length || password.charAt(i + 1) != character) {
+                replacements += (i + 1 - sequenceStart) / 3;
+                sequenceStart = i + 1;
+            }
+        }
+        return ShortPasswordTable.STEPS.charAt(indexOf(length, caseMask, replacements)) - '0';
+    }
+
+    //    The bytes go to the fallback, which can count them without decoding (see Solution)
+    @Override
+    public int countSteps(byte[] utf8, int offset, int length) {
+        return fallback.countSteps(utf8, offset, length);
+    }
+}
@@ -0,0 +1,29 @@
+package com.stancu.engine;
+
+import com.stancu.scanner.StrengthClassifier;
+
+/*
+    StepCounter that asks the StrengthClassifier first, so a strong password (0 steps) never reaches the counter, and
+    only the weak ones are counted. This pays off in front of the repair loops (v1, v2) and of the policy validators,
+    when most of the checked passwords are already strong. The counter must check the default policy.
+    The UTF-8 bytes go straight to the counter: decoding them for the classifier would cost more than counting them
+    with the counters that read the bytes (see Solution).
+*/
+public class PrefilteredStepCounter implements StepCounter {
+
+    private final StepCounter counter;
+
+    public PrefilteredStepCounter(StepCounter counter) {
+        this.counter = counter;
+    }
+
+    @Override
+    public int countSteps(String password) {
+        return StrengthClassifier.isStrong(password) ? 0 : counter.countSteps(password);
+    }
+
+    @Override
+    public int countSteps(byte[] utf8, int offset, int length) {
+        return counter.countSteps(utf8, offset, length);
+    }
+}
@@ -0,0 +1,38 @@
+package com.stancu.engine;
+
+/*
+    Generated by com.stancu.verification.ShortPasswordTableGenerator, do not edit it (see LookupTableStepCounter).
+    The steps of every signature, as a digit, at LookupTableStepCounter.indexOf(length, caseMask, replacements):
+    one line for every length, with 7 replacement counts for every case mask. '-' is a signature that no password has.
+*/
+final class ShortPasswordTable {
+
+    static final int MAX_LENGTH = 20;
+    static final char NO_PASSWORD = '-';
+
+    static final String STEPS = ""
+            + "6-------------------------------------------------------"
+            + "5------5------5-------------5---------------------------"
+            + "4------4------4------4------4------4------4-------------"
+            + "33-----33-----33-----3------33-----3------3------3------"
+            + "33-----22-----22-----22-----22-----22-----22-----2------"
+            + "33-----22-----22-----11-----22-----11-----11-----11-----"
+            + "333----222----222----112----222----112----112----01-----"
+            + "333----222----222----112----222----112----112----012----"
+            + "333----222----222----112----222----112----112----012----"
+            + "3333---2223---2223---1123---2223---1123---1123---0123---"
+            + "3333---2223---2223---1123---2223---1123---1123---0123---"
+            + "3333---2223---2223---1123---2223---1123---1123---0123---"
+            + "33334--22234--22234--11234--22234--11234--11234--01234--"
+            + "33334--22234--22234--11234--22234--11234--11234--01234--"
+            + "33334--22234--22234--11234--22234--11234--11234--01234--"
+            + "333345-222345-222345-112345-222345-112345-112345-012345-"
+            + "333345-222345-222345-112345-222345-112345-112345-012345-"
+            + "333345-222345-222345-112345-222345-112345-112345-012345-"
+            + "33334562223456222345611234562223456112345611234560123456"
+            + "33334562223456222345611234562223456112345611234560123456"
+            + "33334562223456222345611234562223456112345611234560123456";
+
+    private ShortPasswordTable() {
+    }
+}
@@ -0,0 +1,18 @@
+package com.stancu.engine;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+    Common entry point of the validators that only need to return the minimum steps for a password, so the callers
+    (like the batch checker) don't have to know which version of the algorithm they run.
+*/
+@FunctionalInterface
+public interface StepCounter {
+
+    int countSteps(String password);
+
+    //    Same check for a password in UTF-8 bytes. The validators that can read the bytes directly override it (see Solution).
+    default int countSteps(byte[] utf8, int offset, int length) {
+        return countSteps(new String(utf8, offset, length, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,114 @@
+package com.stancu.engine;
+
+import com.stancu.scanner.PasswordScanner;
+import com.stancu.scanner.Utf8;
+import com.stancu.v3_faster_ideas.Solution;
+
+/*
+    The counting solution for the passwords of a usual length (6 to 20 characters), where the loop of Solution spends
+    most of its time on the Unicode lookups of Character and on the branch of every character.
+    I read 4 characters per iteration: the ASCII ones get their case from the table of Utf8 (only the others go through
+    Character), the 4 cases are joined with one "or", and a sequence is only closed where two neighbours differ.
+    The three counters of the closed sequences are packed in one long (see addSequence), so nothing is kept in fields and
+    one instance can be shared by any number of threads. The steps come from Solution.minimumSteps, so the result is
+    always the one of Solution. A password longer than MAX_LENGTH could overflow the packed counters, so it goes to Solution.
+*/
+public class UnrolledStepCounter implements StepCounter {
+
+    public static final int MAX_LENGTH = 1 << 20;
+
+    // Every counter has 21 bits: the replacements, the 3k sequences and the 3k+1 sequences
+    private static final int COUNTER_BITS = 21;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long ONE_THREE_K = 1L << COUNTER_BITS;
+    private static final long ONE_THREE_K_PLUS_ONE = 1L << (2 * COUNTER_BITS);
+
+    private final Solution solution;
+
+    public UnrolledStepCounter() {
+        this(new Solution());
+    }
+
+    public UnrolledStepCounter(Solution solution) {
+        this.solution = solution;
+    }
+
+    @Override
+    public int countSteps(String password) {
+        int length = password.length();
+        if (length > MAX_LENGTH) {
+            return solution.passwordChecker(password);
+        }
+        int caseMask = PasswordScanner.NO_CASE;
+        long sequences = 0;
+        int sequenceStart = 0;
+        // No character is -1, so the first character always starts a sequence
+        int previous = -1;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            char c0 = password.charAt(i);
+            char c1 = password.charAt(i + 1);
+            char c2 = password.charAt(i + 2);
+            char c3 = password.charAt(i + 3);
+            caseMask |= caseOf(c0) | caseOf(c1) | caseOf(c2) | caseOf(c3);
+            if (c0 == previous && c1 == c0 && c2 == c1 && c3 == c2) {
+                // The whole block continues the open sequence
+                continue;
+            }
+            if (c0 != previous) {
+                sequences = addSequence(sequences, i - sequenceStart);
+                sequenceStart = i;
+            }
+            if (c1 != c0) {
+                sequences = addSequence(sequences, i + 1 - sequenceStart);
+                sequenceStart = i + 1;
+            }
+            if (c2 != c1) {
+                sequences = addSequence(sequences, i + 2 - sequenceStart);
+                sequenceStart = i + 2;
+            }
+            if (c3 != c2) {
+                sequences = addSequence(sequences, i + 3 - sequenceStart);
+                sequenceStart = i + 3;
+            }
+            previous = c3;
+        }
+        for (; i < length; i++) {
+            char character = password.charAt(i);
+            caseMask |= caseOf(character);
+            if (character != previous) {
+                sequences = addSequence(sequences, i - sequenceStart);
+                sequenceStart = i;
+            }
+            previous = character;
+        }
+        sequences = addSequence(sequences, length - sequenceStart);
+
+        int missingCases = 3 - Integer.bitCount(caseMask);
+        return solution.minimumSteps(length, missingCases, (int) (sequences & COUNTER_MASK),
+                (int) (sequences >>> COUNTER_BITS & COUNTER_MASK), (int) (sequences >>> 2 * COUNTER_BITS & COUNTER_MASK));
+    }
+
+    //    The bytes are counted by Solution, which already reads them with the ASCII table
+    @Override
+    public int countSteps(byte[] utf8, int offset, int length) {
+        return solution.passwordChecker(utf8, offset, length);
+    }
+
+    private static int caseOf(char character) {
+        return character < 0x80 ? Utf8.asciiCaseOf((byte) character) : PasswordScanner.caseOf(character);
+    }
+
+    //    Adds a closed sequence to the packed counters (a sequence shorter than 3 characters, or empty, adds nothing)
+    private static long addSequence(long sequences, int sequenceLength) {
+        if (sequenceLength < 3) {
+            return sequences;
+        }
+        sequences += sequenceLength / 3;
+        int rest = sequenceLength % 3;
+        if (rest == 0) {
+            return sequences + ONE_THREE_K;
+        }
+        return rest == 1 ? sequences + ONE_THREE_K_PLUS_ONE : sequences;
+    }
+}
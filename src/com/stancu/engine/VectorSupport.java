@@ -0,0 +1,34 @@
+package com.stancu.engine;
+
+import com.stancu.v3_faster_ideas.Solution;
+
+/*
+    Loads the vector engine (com.stancu.vector.VectorSolution, in the "vector" module) by reflection, so the core does not
+    depend on the incubator Vector API. The engine is only used when the JVM runs with "--add-modules jdk.incubator.vector"
+    and the vector module is on the class path; otherwise the scalar Solution is used, which gives the same results.
+*/
+public final class VectorSupport {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_SOLUTION = "com.stancu.vector.VectorSolution";
+
+    private VectorSupport() {
+    }
+
+    public static boolean isAvailable() {
+        return !(stepCounter() instanceof Solution);
+    }
+
+    //    A new vector engine, or a new Solution if the vector engine can't be loaded. The vector engine keeps a reusable
+    //    buffer, so it needs one instance per thread, even though a Solution could be shared
+    public static StepCounter stepCounter() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (StepCounter) Class.forName(VECTOR_SOLUTION).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError exception) {
+                // The vector module is not on the class path, or the JVM can't run it: the scalar path is the fallback
+            }
+        }
+        return new Solution();
+    }
+}
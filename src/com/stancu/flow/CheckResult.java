@@ -0,0 +1,61 @@
+package com.stancu.flow;
+
+import com.stancu.constants.PasswordRules;
+
+/*
+    Result of one password of the stream (see PasswordCheckProcessor): its position in the input, the password itself,
+    so a consumer of a message queue can match it, the steps of the engine and the rules that it fails (see PasswordRules).
+*/
+public final class CheckResult {
+
+    private final long sequence;
+    private final String password;
+    private final int steps;
+    private final int failedRules;
+    private final int length;
+
+    public CheckResult(long sequence, String password, int steps, int failedRules, int length) {
+        this.sequence = sequence;
+        this.password = password;
+        this.steps = steps;
+        this.failedRules = failedRules;
+        this.length = length;
+    }
+
+    //    The position of the password in the input, from 0
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public int getFailedRules() {
+        return failedRules;
+    }
+
+    //    Helper function which returns the names of the failed rules, like "TOO_SHORT|MISSING_DIGIT" (or "NONE")
+    public String describeFailedRules() {
+        return PasswordRules.describe(failedRules);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean isStrong() {
+        return failedRules == 0;
+    }
+
+    //    The password is not shown, so a result can be logged
+    @Override
+    public String toString() {
+        return "CheckResult{sequence=" + sequence + ", steps=" + steps + ", failedRules=" + describeFailedRules()
+                + ", length=" + length + "}";
+    }
+}
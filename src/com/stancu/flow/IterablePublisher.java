@@ -0,0 +1,112 @@
+package com.stancu.flow;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    In-process publisher of the items of an Iterable, for the tests and the benchmarks of a processor without a real
+    message queue. Every subscriber gets its own iterator, and an item is only sent when the subscriber asked for it.
+    The items are sent by the executor (by default on the thread that calls request), and a request that comes from
+    inside onNext only adds the demand, so the calls never go deeper than one onNext. An exception of the iterator is
+    sent as onError, and the end of the items as onComplete.
+*/
+public class IterablePublisher<T> implements Flow.Publisher<T> {
+
+    private final Iterable<? extends T> items;
+    private final Executor executor;
+
+    public IterablePublisher(Iterable<? extends T> items) {
+        this(items, Runnable::run);
+    }
+
+    public IterablePublisher(Iterable<? extends T> items, Executor executor) {
+        this.items = items;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Iterator<? extends T> iterator;
+        try {
+            iterator = items.iterator();
+        } catch (RuntimeException exception) {
+            subscriber.onSubscribe(new IterableSubscription<>(subscriber, null, executor));
+            subscriber.onError(exception);
+            return;
+        }
+        subscriber.onSubscribe(new IterableSubscription<>(subscriber, iterator, executor));
+    }
+
+    private static final class IterableSubscription<T> implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Iterator<? extends T> iterator;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        // The number of runs that were asked for while one was sending, so only one run sends at a time
+        private final AtomicInteger pendingRuns = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        private IterableSubscription(Flow.Subscriber<? super T> subscriber, Iterator<? extends T> iterator, Executor executor) {
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+            this.executor = executor;
+            this.cancelled = iterator == null;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) {
+                return;
+            }
+            if (n <= 0) {
+                cancelled = true;
+                subscriber.onError(new IllegalArgumentException("The demand must be positive, but it is " + n));
+                return;
+            }
+            // The demand is capped at Long.MAX_VALUE, which means "everything"
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            if (pendingRuns.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            int runs = 1;
+            do {
+                long requested = demand.get();
+                long sent = 0;
+                while (sent < requested && !cancelled) {
+                    T item;
+                    try {
+                        if (!iterator.hasNext()) {
+                            cancelled = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+                        item = iterator.next();
+                    } catch (RuntimeException exception) {
+                        cancelled = true;
+                        subscriber.onError(exception);
+                        return;
+                    }
+                    subscriber.onNext(item);
+                    sent++;
+                }
+                if (sent > 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-sent);
+                }
+                runs = pendingRuns.addAndGet(-runs);
+            } while (runs != 0 && !cancelled);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.stancu.flow;
+
+import com.stancu.engine.StepCounter;
+import com.stancu.state.ScratchPool;
+import com.stancu.v2_refactored.PasswordValidator2;
+import com.stancu.v3_faster_ideas.Solution;
+import com.stancu.v3_faster_ideas.StepCount;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/*
+    Flow processor that checks a stream of passwords (for example the messages of a queue) without a thread per message.
+    - The passwords wait in a ring of 'capacity' slots. At most 'parallelism' workers run on the executor at a time, and
+      a worker takes up to 'batchSize' waiting passwords at once, so under load a task checks a whole batch, and a single
+      password does not wait for a batch to fill.
+    - A worker takes a StepCounter made by the factory out of a pool, with its Solution, StepCount and batch array, and
+      gives them back when it stops. When the passwords trickle in, almost every password starts its own worker, and the
+      pool keeps that from making a new engine (and new scratch state) per password. It is a pool and not one shared
+      counter because an engine like VectorSolution keeps a reusable buffer. The failed rules always come from the
+      counting solution, because they only depend on the password.
+    - The results go downstream only as far as it asked for them. The upstream is asked for 'capacity' passwords at the
+      start, and for more only when the results are sent, so the passwords and results in the processor never fill more
+      than the ring: a slow subscriber slows the upstream down, and nothing is buffered without limit.
+    - The results are sent in the order of the input, or, when 'ordered' is false, as soon as they are ready, so a slow
+      password does not keep back the others.
+    Only one thread sends the signals downstream at a time (the one that finds work in drain), so they are never
+    concurrent. An error of the upstream or of an engine cancels the upstream and is sent at once, without the results
+    that were not sent yet. The processor has one subscriber; another one gets an IllegalStateException.
+*/
+public class PasswordCheckProcessor implements Flow.Processor<String, CheckResult> {
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final ScratchPool<WorkerScratch> scratches;
+    private final Executor executor;
+    private final int parallelism;
+    private final int batchSize;
+    private final int capacity;
+    private final boolean ordered;
+    // The upstream is asked for more when this many results were sent
+    private final int replenishThreshold;
+
+    // The password of the sequence s is at s % capacity, until a worker takes it
+    private final AtomicReferenceArray<String> passwords;
+    // The ordered results, at the slot of their password
+    private final AtomicReferenceArray<CheckResult> results;
+    // The unordered results, as they are ready
+    private final ConcurrentLinkedQueue<CheckResult> readyResults = new ConcurrentLinkedQueue<>();
+
+    private final Object claimLock = new Object();
+    // Only written under claimLock: the sequence of the next password that a worker takes
+    private volatile long claimed;
+    // Only written by onNext (the signals of the upstream are never concurrent)
+    private volatile long received;
+    // Only written by drain
+    private volatile long emitted;
+    private long emittedSinceRequest;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicReference<Flow.Subscriber<? super CheckResult>> downstream = new AtomicReference<>();
+    private volatile Flow.Subscription upstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+    private boolean terminated;
+
+    public PasswordCheckProcessor(Supplier<? extends StepCounter> counterFactory) {
+        this(counterFactory, true);
+    }
+
+    public PasswordCheckProcessor(Supplier<? extends StepCounter> counterFactory, boolean ordered) {
+        this(counterFactory, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE,
+                DEFAULT_CAPACITY, ordered);
+    }
+
+    public PasswordCheckProcessor(Supplier<? extends StepCounter> counterFactory, Executor executor, int parallelism,
+                                  int batchSize, int capacity, boolean ordered) {
+        if (parallelism < 1 || batchSize < 1 || capacity < 1) {
+            throw new IllegalArgumentException("The parallelism, the batch size and the capacity must be at least 1, but they are "
+                    + parallelism + ", " + batchSize + " and " + capacity);
+        }
+        // A worker only takes one at a time, so the pool needs no more slots than workers
+        this.scratches = new ScratchPool<>(() -> new WorkerScratch(counterFactory.get(), batchSize), parallelism);
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.ordered = ordered;
+        this.replenishThreshold = Math.max(1, capacity / 2);
+        this.passwords = new AtomicReferenceArray<>(capacity);
+        this.results = ordered ? new AtomicReferenceArray<>(capacity) : null;
+    }
+
+    //    Processor over the refactored validator
+    public static PasswordCheckProcessor refactored(boolean ordered) {
+        return new PasswordCheckProcessor(PasswordValidator2::new, ordered);
+    }
+
+    //    Processor over the counting solution
+    public static PasswordCheckProcessor fast(boolean ordered) {
+        return new PasswordCheckProcessor(Solution::new, ordered);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    // ---- upstream ----
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(capacity);
+    }
+
+    @Override
+    public void onNext(String password) {
+        Objects.requireNonNull(password, "The password is null");
+        if (upstreamDone || error != null || cancelled) {
+            return;
+        }
+        long sequence = received;
+        if (sequence - emitted >= capacity) {
+            fail(new IllegalStateException("The upstream sent more passwords than it was asked for"));
+            return;
+        }
+        passwords.set(slotOf(sequence), password);
+        received = sequence + 1;
+        startWorker();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable, "The error is null");
+        if (error == null) {
+            error = throwable;
+        }
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    // ---- downstream ----
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super CheckResult> subscriber) {
+        Objects.requireNonNull(subscriber, "The subscriber is null");
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The processor already has a subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new ResultSubscription());
+        drain();
+    }
+
+    private final class ResultSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("The demand must be positive, but it is " + n));
+                return;
+            }
+            // The demand is capped at Long.MAX_VALUE, which means "everything"
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelUpstream();
+            drain();
+        }
+    }
+
+    // ---- workers ----
+
+    private int slotOf(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    //    Starts a worker if there are passwords that no worker took and less than 'parallelism' workers run
+    private void startWorker() {
+        int active = activeWorkers.get();
+        while (active < parallelism && claimed < received) {
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(this::work);
+                } catch (RejectedExecutionException exception) {
+                    activeWorkers.decrementAndGet();
+                    fail(exception);
+                }
+                return;
+            }
+            active = activeWorkers.get();
+        }
+    }
+
+    /*
+        Takes the next batch of passwords out of the ring, and returns the sequence of the first one (the batch ends at
+        the first null, or after batchSize passwords). The ring slots are emptied before 'claimed' moves, so a slot is
+        only given to a new password after its old one was taken: the upstream only gets more demand after a result is
+        sent, and the sent results are always of passwords that were taken, because they are taken in order.
+    */
+    private long claim(String[] batch) {
+        synchronized (claimLock) {
+            long start = claimed;
+            int count = (int) Math.min(batchSize, received - start);
+            for (int i = 0; i < count; i++) {
+                int slot = slotOf(start + i);
+                batch[i] = passwords.get(slot);
+                passwords.set(slot, null);
+            }
+            if (count < batchSize) {
+                batch[count] = null;
+            }
+            claimed = start + count;
+            return start;
+        }
+    }
+
+    private void work() {
+        WorkerScratch scratch;
+        try {
+            scratch = scratches.acquire();
+        } catch (RuntimeException exception) {
+            activeWorkers.decrementAndGet();
+            fail(exception);
+            return;
+        }
+        StepCounter counter = scratch.counter;
+        Solution solution = scratch.solution;
+        StepCount count = scratch.count;
+        String[] batch = scratch.batch;
+        while (true) {
+            if (error != null || cancelled) {
+                scratches.release(scratch);
+                activeWorkers.decrementAndGet();
+                return;
+            }
+            long start = claim(batch);
+            if (batch[0] == null) {
+                activeWorkers.decrementAndGet();
+                // A password may have come after the claim and before the decrement, when no worker could be started
+                if (claimed < received && reactivate()) {
+                    continue;
+                }
+                scratches.release(scratch);
+                return;
+            }
+            try {
+                for (int i = 0; i < batchSize && batch[i] != null; i++) {
+                    String password = batch[i];
+                    solution.passwordChecker(password, count);
+                    // Solution keeps no state, so its steps come from the same count
+                    int steps = counter == solution ? count.getSteps() : counter.countSteps(password);
+                    CheckResult result = new CheckResult(start + i, password, steps, count.getFailedRules(), count.getLength());
+                    if (ordered) {
+                        results.set(slotOf(start + i), result);
+                    } else {
+                        readyResults.add(result);
+                    }
+                    batch[i] = null;
+                }
+            } catch (RuntimeException exception) {
+                // The counter may be left in any state by its exception, so it does not go back to the pool
+                activeWorkers.decrementAndGet();
+                fail(exception);
+                return;
+            }
+            drain();
+        }
+    }
+
+    private boolean reactivate() {
+        int active = activeWorkers.get();
+        while (active < parallelism) {
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                return true;
+            }
+            active = activeWorkers.get();
+        }
+        return false;
+    }
+
+    //    The counter of a worker and what it needs to check a batch, reused by the next workers through the pool
+    private static final class WorkerScratch {
+
+        private final StepCounter counter;
+        private final Solution solution;
+        private final StepCount count = new StepCount();
+        private final String[] batch;
+
+        private WorkerScratch(StepCounter counter, int batchSize) {
+            this.counter = counter;
+            this.solution = counter instanceof Solution ? (Solution) counter : new Solution();
+            this.batch = new String[batchSize];
+        }
+    }
+
+    // ---- signals ----
+
+    private void fail(Throwable throwable) {
+        if (error == null) {
+            error = throwable;
+        }
+        cancelUpstream();
+        drain();
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /*
+        Sends the ready results as far as the demand goes, then the end of the stream. Only the thread that raises
+        drainRequests from 0 runs the loop, and the others only ask it for one more round, so the signals downstream
+        are never concurrent and a call from inside onNext does not go deeper.
+    */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int rounds = 1;
+        do {
+            Flow.Subscriber<? super CheckResult> subscriber = downstream.get();
+            if (subscriber != null && !terminated) {
+                if (cancelled) {
+                    terminated = true;
+                    clear();
+                } else if (error != null) {
+                    terminated = true;
+                    clear();
+                    subscriber.onError(error);
+                } else {
+                    emit(subscriber);
+                    if (upstreamDone && emitted == received && error == null && !cancelled) {
+                        terminated = true;
+                        subscriber.onComplete();
+                    }
+                }
+            }
+            rounds = drainRequests.addAndGet(-rounds);
+        } while (rounds != 0);
+    }
+
+    private void emit(Flow.Subscriber<? super CheckResult> subscriber) {
+        long requested = demand.get();
+        long sent = 0;
+        while (sent < requested && !cancelled && error == null) {
+            CheckResult result;
+            if (ordered) {
+                int slot = slotOf(emitted);
+                result = results.get(slot);
+                if (result == null) {
+                    break;
+                }
+                results.set(slot, null);
+            } else {
+                result = readyResults.poll();
+                if (result == null) {
+                    break;
+                }
+            }
+            emitted = emitted + 1;
+            sent++;
+            subscriber.onNext(result);
+            if (++emittedSinceRequest >= replenishThreshold && !upstreamDone) {
+                upstream.request(emittedSinceRequest);
+                emittedSinceRequest = 0;
+            }
+        }
+        if (sent > 0 && requested != Long.MAX_VALUE) {
+            demand.addAndGet(-sent);
+        }
+    }
+
+    private void clear() {
+        readyResults.clear();
+        for (int i = 0; i < capacity; i++) {
+            passwords.set(i, null);
+            if (ordered) {
+                results.set(i, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.stancu.metrics;
+
+import com.stancu.constants.PasswordRules;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Opt-in metrics of the checks: how many passwords fail every rule (see PasswordRules), the distribution of the input
+    lengths, of the steps of a check, and of the time of a check. The metrics are disabled when they are created, and a
+    disabled instance costs the callers one read of a volatile boolean per check (see MeteredStepCounter), so they can stay
+    in the production code. The counters are LongAdders and the distributions are lock-free histograms (see ValueHistogram),
+    so any number of threads can record while a monitoring thread reads them, through the getters, a snapshot, JMX
+    (see register) or a periodic reporter (see PeriodicMetricsReporter).
+    The repair loops of v1 and v2 do one step per iteration, so for them the steps are the iterations of strongPasswordChecker.
+*/
+public class CheckerMetrics implements CheckerMetricsMXBean {
+
+    public static final String DOMAIN = "com.stancu";
+
+    private volatile boolean enabled;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder strongPasswords = new LongAdder();
+    private final LongAdder[] ruleViolations = new LongAdder[PasswordRules.RULE_COUNT];
+    private final ValueHistogram lengths = new ValueHistogram();
+    private final ValueHistogram steps = new ValueHistogram();
+    private final ValueHistogram checkNanos = new ValueHistogram();
+
+    public CheckerMetrics() {
+        for (int rule = 0; rule < ruleViolations.length; rule++) {
+            ruleViolations[rule] = new LongAdder();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /*
+        Records one check. The callers only measure and call this when the metrics are enabled, but a record is counted
+        anyway, so a check that started just before the metrics were disabled is not lost.
+    */
+    public void record(int length, int stepCount, int failedRules, long nanos) {
+        checks.increment();
+        if (failedRules == 0) {
+            strongPasswords.increment();
+        }
+        // Only the bits of the failed rules are visited
+        for (int rules = failedRules; rules != 0; rules &= rules - 1) {
+            ruleViolations[Integer.numberOfTrailingZeros(rules)].increment();
+        }
+        lengths.record(length);
+        steps.record(stepCount);
+        checkNanos.record(nanos);
+    }
+
+    @Override
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    @Override
+    public long getStrongPasswords() {
+        return strongPasswords.sum();
+    }
+
+    //    The number of checked passwords that failed the rule, which is one bit of PasswordRules
+    public long getViolations(int rule) {
+        if (Integer.bitCount(rule) != 1 || Integer.numberOfTrailingZeros(rule) >= PasswordRules.RULE_COUNT) {
+            throw new IllegalArgumentException("The rule must be one bit of PasswordRules, but it is " + rule);
+        }
+        return ruleViolations[Integer.numberOfTrailingZeros(rule)].sum();
+    }
+
+    @Override
+    public Map<String, Long> getRuleViolations() {
+        Map<String, Long> violations = new LinkedHashMap<>();
+        for (int rule = 0; rule < ruleViolations.length; rule++) {
+            violations.put(PasswordRules.describe(1 << rule), ruleViolations[rule].sum());
+        }
+        return violations;
+    }
+
+    public ValueHistogram getLengths() {
+        return lengths;
+    }
+
+    public ValueHistogram getSteps() {
+        return steps;
+    }
+
+    public ValueHistogram getCheckNanos() {
+        return checkNanos;
+    }
+
+    @Override
+    public long getLengthP50() {
+        return lengths.percentile(0.5);
+    }
+
+    @Override
+    public long getLengthP99() {
+        return lengths.percentile(0.99);
+    }
+
+    @Override
+    public long getLengthMax() {
+        return lengths.getMax();
+    }
+
+    @Override
+    public long getStepsP50() {
+        return steps.percentile(0.5);
+    }
+
+    @Override
+    public long getStepsP99() {
+        return steps.percentile(0.99);
+    }
+
+    @Override
+    public long getStepsMax() {
+        return steps.getMax();
+    }
+
+    @Override
+    public long getCheckNanosP50() {
+        return checkNanos.percentile(0.5);
+    }
+
+    @Override
+    public long getCheckNanosP99() {
+        return checkNanos.percentile(0.99);
+    }
+
+    @Override
+    public long getCheckNanosP999() {
+        return checkNanos.percentile(0.999);
+    }
+
+    /*
+        The values of all the metrics, read one after another. The checks that are recorded while it is taken can be
+        counted in some metrics and not in others, so the numbers of two metrics can differ by these checks.
+    */
+    public MetricsSnapshot snapshot() {
+        long[] violations = new long[ruleViolations.length];
+        for (int rule = 0; rule < ruleViolations.length; rule++) {
+            violations[rule] = ruleViolations[rule].sum();
+        }
+        return new MetricsSnapshot(checks.sum(), strongPasswords.sum(), violations,
+                lengths.percentile(0.5), lengths.percentile(0.99), lengths.getMax(),
+                steps.percentile(0.5), steps.percentile(0.99), steps.getMax(),
+                checkNanos.percentile(0.5), checkNanos.percentile(0.99), checkNanos.percentile(0.999));
+    }
+
+    @Override
+    public void reset() {
+        checks.reset();
+        strongPasswords.reset();
+        for (LongAdder violations : ruleViolations) {
+            violations.reset();
+        }
+        lengths.reset();
+        steps.reset();
+        checkNanos.reset();
+    }
+
+    //    Registers the metrics in the platform MBean server as "com.stancu:type=CheckerMetrics,name=<name>"
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=CheckerMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
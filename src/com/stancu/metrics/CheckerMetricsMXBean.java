@@ -0,0 +1,41 @@
+package com.stancu.metrics;
+
+import java.util.Map;
+
+/*
+    The JMX view of a CheckerMetrics (see CheckerMetrics.register). The percentiles are the upper bounds of their buckets
+    (see ValueHistogram), and the times are in nanoseconds.
+*/
+public interface CheckerMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getChecks();
+
+    long getStrongPasswords();
+
+    //    The number of checked passwords that failed every rule, by the name of the rule (see PasswordRules)
+    Map<String, Long> getRuleViolations();
+
+    long getLengthP50();
+
+    long getLengthP99();
+
+    long getLengthMax();
+
+    long getStepsP50();
+
+    long getStepsP99();
+
+    long getStepsMax();
+
+    long getCheckNanosP50();
+
+    long getCheckNanosP99();
+
+    long getCheckNanosP999();
+
+    void reset();
+}
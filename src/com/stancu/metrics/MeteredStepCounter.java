@@ -0,0 +1,61 @@
+package com.stancu.metrics;
+
+import com.stancu.engine.StepCounter;
+import com.stancu.policy.PasswordPolicy;
+import com.stancu.policy.PolicyValidator;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+    StepCounter that records every check of another counter in a CheckerMetrics. When the metrics are disabled, a check is
+    the check of the wrapped counter and one read of a volatile boolean. When they are enabled, the check is timed, and the
+    failed rules are found by the validator of the policy (one more pass over the password, and no allocation).
+    It can be shared between threads when the wrapped counter can (all of them except VectorSolution).
+*/
+public class MeteredStepCounter implements StepCounter {
+
+    private final StepCounter counter;
+    private final PolicyValidator rules;
+    private final CheckerMetrics metrics;
+
+    //    The counters of v1, v2 and v3 check the default policy
+    public MeteredStepCounter(StepCounter counter, CheckerMetrics metrics) {
+        this(counter, PasswordPolicy.DEFAULT.compile(), metrics);
+    }
+
+    public MeteredStepCounter(StepCounter counter, PolicyValidator rules, CheckerMetrics metrics) {
+        this.counter = counter;
+        this.rules = rules;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int countSteps(String password) {
+        if (!metrics.isEnabled()) {
+            return counter.countSteps(password);
+        }
+        long start = System.nanoTime();
+        int steps = counter.countSteps(password);
+        long nanos = System.nanoTime() - start;
+        metrics.record(password.length(), steps, rules.failedRules(password), nanos);
+        return steps;
+    }
+
+    //    Only the check of the bytes is timed, and the password is decoded for the rules after it
+    @Override
+    public int countSteps(byte[] utf8, int offset, int length) {
+        if (!metrics.isEnabled()) {
+            return counter.countSteps(utf8, offset, length);
+        }
+        long start = System.nanoTime();
+        int steps = counter.countSteps(utf8, offset, length);
+        long nanos = System.nanoTime() - start;
+        String password = new String(utf8, offset, length, StandardCharsets.UTF_8);
+        metrics.record(password.length(), steps, rules.failedRules(password), nanos);
+        return steps;
+    }
+
+    public CheckerMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,18 @@
+package com.stancu.metrics;
+
+import java.io.PrintStream;
+
+/*
+    Receives the snapshots of a CheckerMetrics, for example from a PeriodicMetricsReporter, and sends them wherever the
+    application keeps its metrics (a log, a time series database). It is called from the reporting thread, never from a check.
+*/
+@FunctionalInterface
+public interface MetricsReporter {
+
+    void report(String name, MetricsSnapshot snapshot);
+
+    //    Reporter which prints one line per snapshot, like "passwords: checks=..., violations={...}, ..."
+    static MetricsReporter printingTo(PrintStream out) {
+        return (name, snapshot) -> out.println(name + ": " + snapshot);
+    }
+}
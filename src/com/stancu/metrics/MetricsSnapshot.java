@@ -0,0 +1,110 @@
+package com.stancu.metrics;
+
+import com.stancu.constants.PasswordRules;
+
+import java.util.Arrays;
+
+/*
+    The values of a CheckerMetrics at one moment (see CheckerMetrics.snapshot), which is what the reporters get.
+    It is immutable, so it can be handed to another thread or kept to compare it with a later one.
+*/
+public final class MetricsSnapshot {
+
+    private final long checks;
+    private final long strongPasswords;
+    private final long[] ruleViolations;
+    private final long lengthP50;
+    private final long lengthP99;
+    private final long lengthMax;
+    private final long stepsP50;
+    private final long stepsP99;
+    private final long stepsMax;
+    private final long checkNanosP50;
+    private final long checkNanosP99;
+    private final long checkNanosP999;
+
+    MetricsSnapshot(long checks, long strongPasswords, long[] ruleViolations, long lengthP50, long lengthP99, long lengthMax,
+                    long stepsP50, long stepsP99, long stepsMax, long checkNanosP50, long checkNanosP99, long checkNanosP999) {
+        this.checks = checks;
+        this.strongPasswords = strongPasswords;
+        this.ruleViolations = ruleViolations;
+        this.lengthP50 = lengthP50;
+        this.lengthP99 = lengthP99;
+        this.lengthMax = lengthMax;
+        this.stepsP50 = stepsP50;
+        this.stepsP99 = stepsP99;
+        this.stepsMax = stepsMax;
+        this.checkNanosP50 = checkNanosP50;
+        this.checkNanosP99 = checkNanosP99;
+        this.checkNanosP999 = checkNanosP999;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public long getStrongPasswords() {
+        return strongPasswords;
+    }
+
+    //    The number of checked passwords that failed the rule, which is one bit of PasswordRules
+    public long getViolations(int rule) {
+        return ruleViolations[Integer.numberOfTrailingZeros(rule)];
+    }
+
+    public long[] getRuleViolations() {
+        return Arrays.copyOf(ruleViolations, ruleViolations.length);
+    }
+
+    public long getLengthP50() {
+        return lengthP50;
+    }
+
+    public long getLengthP99() {
+        return lengthP99;
+    }
+
+    public long getLengthMax() {
+        return lengthMax;
+    }
+
+    public long getStepsP50() {
+        return stepsP50;
+    }
+
+    public long getStepsP99() {
+        return stepsP99;
+    }
+
+    public long getStepsMax() {
+        return stepsMax;
+    }
+
+    public long getCheckNanosP50() {
+        return checkNanosP50;
+    }
+
+    public long getCheckNanosP99() {
+        return checkNanosP99;
+    }
+
+    public long getCheckNanosP999() {
+        return checkNanosP999;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("checks=").append(checks).append(", strong=").append(strongPasswords).append(", violations={");
+        for (int rule = 0; rule < ruleViolations.length; rule++) {
+            if (rule > 0) {
+                builder.append(", ");
+            }
+            builder.append(PasswordRules.describe(1 << rule)).append('=').append(ruleViolations[rule]);
+        }
+        return builder.append("}, length p50/p99/max=").append(lengthP50).append('/').append(lengthP99).append('/').append(lengthMax)
+                .append(", steps p50/p99/max=").append(stepsP50).append('/').append(stepsP99).append('/').append(stepsMax)
+                .append(", check p50/p99/p999=").append(checkNanosP50).append('/').append(checkNanosP99).append('/')
+                .append(checkNanosP999).append(" ns").toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.stancu.metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Sends a snapshot of the metrics to a reporter every period, from its own daemon thread, so it never stops the JVM
+    from exiting. Closing it stops the reporting and sends one last snapshot, so the checks of the last period are reported.
+    A scheduled task that throws is never run again, so an error of the reporter (like an I/O error of its sink) is
+    printed to the standard error, and the next period is reported as usual.
+*/
+public class PeriodicMetricsReporter implements AutoCloseable {
+
+    private final String name;
+    private final CheckerMetrics metrics;
+    private final MetricsReporter reporter;
+    private final ScheduledExecutorService scheduler;
+
+    public PeriodicMetricsReporter(String name, CheckerMetrics metrics, MetricsReporter reporter, long period, TimeUnit unit) {
+        if (period < 1) {
+            throw new IllegalArgumentException("The period must be at least 1, but it is " + period);
+        }
+        this.name = name;
+        this.metrics = metrics;
+        this.reporter = reporter;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-reporter-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::reportOrLog, period, period, unit);
+    }
+
+    public void report() {
+        reporter.report(name, metrics.snapshot());
+    }
+
+    private void reportOrLog() {
+        try {
+            report();
+        } catch (RuntimeException exception) {
+            System.err.println("Cannot report the metrics of " + name + ": " + exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        report();
+    }
+}
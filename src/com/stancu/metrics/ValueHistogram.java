@@ -0,0 +1,87 @@
+package com.stancu.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    Lock-free histogram of non-negative values (latencies, lengths, steps), with buckets like HdrHistogram: the values
+    under 32 have a bucket each, and over that every power of 2 is split into 16 buckets, so a percentile is at most 1/16
+    over the real value. Recording is one atomic increment, without allocating anything, and the counts can be read by
+    another thread while the values are recorded (a reader sees every increment that happened before it started).
+*/
+public class ValueHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, value)));
+    }
+
+    /*
+        The values under 32 have their own buckets. Over that, the value is shifted right until it has 5 bits left
+        (16 to 31), and the bucket is the number of shifts times 16 plus these bits.
+    */
+    private static int indexOf(long value) {
+        int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    //    The biggest value that goes into the bucket
+    private static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long top = index - shift * SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    //    The value under which 'quantile' (0 to 1) of the recorded values are, or 0 if there are none
+    public long percentile(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(BUCKETS - 1);
+    }
+
+    //    The bucket of the biggest recorded value, or 0 if there are none
+    public long getMax() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return highestValueOf(i);
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", p50=" + percentile(0.5) + ", p99=" + percentile(0.99) + ", max=" + getMax();
+    }
+}
@@ -0,0 +1,49 @@
+package com.stancu.pipeline;
+
+/*
+    What one run of the audit pipeline did, and how fast it was.
+*/
+public class AuditStatistics {
+
+    private final long lines;
+    private final long bytes;
+    private final long strongPasswords;
+    private final long elapsedNanos;
+
+    public AuditStatistics(long lines, long bytes, long strongPasswords, long elapsedNanos) {
+        this.lines = lines;
+        this.bytes = bytes;
+        this.strongPasswords = strongPasswords;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getStrongPasswords() {
+        return strongPasswords;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getLinesPerSecond() {
+        return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1024 * 1024);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d lines (%d strong), %d bytes in %.3f s: %.0f lines/sec, %.2f MB/sec",
+                lines, strongPasswords, bytes, elapsedNanos / 1e9, getLinesPerSecond(), getMegabytesPerSecond());
+    }
+}
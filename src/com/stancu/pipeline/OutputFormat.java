@@ -0,0 +1,11 @@
+package com.stancu.pipeline;
+
+/*
+    How the audit pipeline writes one result.
+    CSV: "offset,length,steps,failedRules" as text, one line per password.
+    BINARY: a fixed record of 20 big-endian bytes: offset (long), length (int), steps (int), failedRules (int).
+*/
+public enum OutputFormat {
+    CSV,
+    BINARY
+}
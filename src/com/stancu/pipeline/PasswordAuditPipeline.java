@@ -0,0 +1,181 @@
+package com.stancu.pipeline;
+
+import com.stancu.v3_faster_ideas.Solution;
+import com.stancu.v3_faster_ideas.StepCount;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*
+    Audits a newline-delimited password dump without loading it into Strings. The file is memory-mapped one window at a
+    time, and every line is counted directly from the mapped bytes with the counting solution (see Solution). A window ends
+    at its last newline, so a line is never split between two windows; only a line longer than the whole window makes that
+    window bigger. The results go through one fixed direct buffer into the output channel, so the heap used by the
+    pipeline does not depend on the size of the file.
+    The lines are read as UTF-8, and a "\r" before the newline is not part of the password. The offset and the length in
+    the results are in bytes, so a result always points at its line in the file.
+*/
+public class PasswordAuditPipeline {
+
+    public static final int DEFAULT_WINDOW_BYTES = 64 * 1024 * 1024;
+
+    private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+    // The longest CSV record: 19 digits of offset, 3 * 10 digits, 3 commas and the newline
+    private static final int MAX_RECORD_BYTES = 64;
+
+    private final Path input;
+    private final WritableByteChannel output;
+    private final OutputFormat format;
+    private final int windowBytes;
+
+    private final Solution solution = new Solution();
+    private final StepCount count = new StepCount();
+    private final ByteBuffer outputBuffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_BYTES);
+
+    private long lines;
+    private long strongPasswords;
+
+    public PasswordAuditPipeline(Path input, WritableByteChannel output, OutputFormat format) {
+        this(input, output, format, DEFAULT_WINDOW_BYTES);
+    }
+
+    public PasswordAuditPipeline(Path input, WritableByteChannel output, OutputFormat format, int windowBytes) {
+        if (windowBytes < 1) {
+            throw new IllegalArgumentException("The window must have at least 1 byte, but it has " + windowBytes);
+        }
+        this.input = input;
+        this.output = output;
+        this.format = format;
+        this.windowBytes = windowBytes;
+    }
+
+    public AuditStatistics run() throws IOException {
+        long start = System.nanoTime();
+        lines = 0;
+        strongPasswords = 0;
+        outputBuffer.clear();
+
+        long size;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            size = channel.size();
+            long windowStart = 0;
+            long currentWindowBytes = windowBytes;
+            while (windowStart < size) {
+                long mappedBytes = Math.min(currentWindowBytes, size - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, mappedBytes);
+                boolean lastWindow = windowStart + mappedBytes == size;
+                int end = lastWindow ? (int) mappedBytes : lastNewline(window, (int) mappedBytes) + 1;
+                if (end == 0) {
+                    // There is no newline in the whole window, so this line is longer than the window
+                    if (currentWindowBytes >= Integer.MAX_VALUE) {
+                        throw new IOException("The line at offset " + windowStart + " is longer than " + Integer.MAX_VALUE + " bytes");
+                    }
+                    currentWindowBytes = Math.min(currentWindowBytes * 2, Integer.MAX_VALUE);
+                    continue;
+                }
+                auditLines(window, windowStart, end);
+                windowStart += end;
+                currentWindowBytes = windowBytes;
+            }
+        }
+        flush();
+        return new AuditStatistics(lines, size, strongPasswords, System.nanoTime() - start);
+    }
+
+    private static int lastNewline(ByteBuffer window, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //    Audits all the lines of the window that start before 'end' (the last one may have no newline, at the end of the file)
+    private void auditLines(ByteBuffer window, long windowOffset, int end) throws IOException {
+        int lineStart = 0;
+        for (int i = 0; i < end; i++) {
+            if (window.get(i) == '\n') {
+                auditLine(window, windowOffset, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            auditLine(window, windowOffset, lineStart, end);
+        }
+    }
+
+    private void auditLine(ByteBuffer window, long windowOffset, int lineStart, int lineEnd) throws IOException {
+        if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+        int length = lineEnd - lineStart;
+        solution.passwordChecker(window, lineStart, length, count);
+        lines++;
+        if (count.isStrong()) {
+            strongPasswords++;
+        }
+        writeResult(windowOffset + lineStart, length, count.getSteps(), count.getFailedRules());
+    }
+
+    private void writeResult(long offset, int length, int steps, int failedRules) throws IOException {
+        if (outputBuffer.remaining() < MAX_RECORD_BYTES) {
+            flush();
+        }
+        if (format == OutputFormat.BINARY) {
+            outputBuffer.putLong(offset).putInt(length).putInt(steps).putInt(failedRules);
+            return;
+        }
+        putDecimal(offset);
+        outputBuffer.put((byte) ',');
+        putDecimal(length);
+        outputBuffer.put((byte) ',');
+        putDecimal(steps);
+        outputBuffer.put((byte) ',');
+        putDecimal(failedRules);
+        outputBuffer.put((byte) '\n');
+    }
+
+    //    Writes a non-negative number as ASCII digits, without building a String for it
+    private void putDecimal(long value) {
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            outputBuffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void flush() throws IOException {
+        outputBuffer.flip();
+        while (outputBuffer.hasRemaining()) {
+            output.write(outputBuffer);
+        }
+        outputBuffer.clear();
+    }
+
+    //    Usage: PasswordAuditPipeline <input file> <output file or -> [csv|binary]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: PasswordAuditPipeline <input file> <output file or -> [csv|binary]");
+            System.exit(2);
+        }
+        OutputFormat format = args.length > 2 ? OutputFormat.valueOf(args[2].toUpperCase()) : OutputFormat.CSV;
+        boolean toStandardOutput = args[1].equals("-");
+        try (WritableByteChannel output = toStandardOutput
+                ? Channels.newChannel(System.out)
+                : new FileOutputStream(args[1]).getChannel()) {
+            AuditStatistics statistics = new PasswordAuditPipeline(Paths.get(args[0]), output, format).run();
+            System.err.println(statistics);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.stancu.policy;
+
+/*
+    The cost of every kind of step: inserting, deleting and replacing one character. The original problem counts every
+    step as 1 (UNIT), but a policy can make some steps more expensive, for example deletions, which lose what the user typed.
+*/
+public final class EditCosts {
+
+    public static final EditCosts UNIT = new EditCosts(1, 1, 1);
+
+    private final int insertCost;
+    private final int deleteCost;
+    private final int replaceCost;
+
+    public EditCosts(int insertCost, int deleteCost, int replaceCost) {
+        if (insertCost < 0 || deleteCost < 0 || replaceCost < 0) {
+            throw new IllegalArgumentException("The costs must not be negative, but they are insert " + insertCost
+                    + ", delete " + deleteCost + " and replace " + replaceCost);
+        }
+        this.insertCost = insertCost;
+        this.deleteCost = deleteCost;
+        this.replaceCost = replaceCost;
+    }
+
+    public int getInsertCost() {
+        return insertCost;
+    }
+
+    public int getDeleteCost() {
+        return deleteCost;
+    }
+
+    public int getReplaceCost() {
+        return replaceCost;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof EditCosts)) {
+            return false;
+        }
+        EditCosts costs = (EditCosts) other;
+        return insertCost == costs.insertCost && deleteCost == costs.deleteCost && replaceCost == costs.replaceCost;
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * insertCost + deleteCost) * 31 + replaceCost;
+    }
+
+    @Override
+    public String toString() {
+        return "EditCosts{insert=" + insertCost + ", delete=" + deleteCost + ", replace=" + replaceCost + "}";
+    }
+}
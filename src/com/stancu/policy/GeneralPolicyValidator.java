@@ -0,0 +1,216 @@
+package com.stancu.policy;
+
+import com.stancu.constants.PasswordRules;
+
+/*
+    Validator of any PasswordPolicy. Every value of the policy is copied into a primitive final field when the policy is
+    compiled: a sequence is too long from 'runLimit' characters on, and the forbidden ASCII characters are two bit masks,
+    so most checks are a shift and an and. Only the forbidden characters over 127 are searched in a String.
+
+    The steps are counted like in Solution, but with 'runLimit' instead of 3: a sequence of L characters needs L / runLimit
+    replacements, a deletion saves a replacement in the sequences with L % runLimit == 0, two deletions in the ones with
+    L % runLimit == 1, and so on, while an insertion only breaks runLimit - 1 characters of a sequence.
+    A forbidden character is always replaced (with a character that can also add a missing class), so it also ends the
+    sequences around it. Without forbidden characters the result is exactly the minimum number of steps; with them it is
+    a number of steps that always makes the password strong, but deleting some forbidden characters may be cheaper.
+*/
+class GeneralPolicyValidator implements PolicyValidator {
+
+    private final PasswordPolicy policy;
+    private final int minLength;
+    private final int maxLength;
+    private final int runLimit;
+    private final int requiredClasses;
+    private final long forbiddenLow;
+    private final long forbiddenHigh;
+    private final String forbiddenOther;
+
+    GeneralPolicyValidator(PasswordPolicy policy) {
+        this.policy = policy;
+        this.minLength = policy.getMinLength();
+        this.maxLength = policy.getMaxLength();
+        this.runLimit = policy.getMaxRunLength() + 1;
+        this.requiredClasses = policy.getRequiredClasses();
+        long low = 0, high = 0;
+        StringBuilder other = new StringBuilder();
+        for (int i = 0; i < policy.getForbiddenCharacters().length(); i++) {
+            char character = policy.getForbiddenCharacters().charAt(i);
+            if (character < 64)
+                low |= 1L << character;
+            else if (character < 128)
+                high |= 1L << (character - 64);
+            else
+                other.append(character);
+        }
+        this.forbiddenLow = low;
+        this.forbiddenHigh = high;
+        this.forbiddenOther = other.toString();
+    }
+
+    @Override
+    public PasswordPolicy getPolicy() {
+        return policy;
+    }
+
+    boolean isForbidden(char character) {
+        if (character < 64)
+            return (forbiddenLow >>> character & 1) != 0;
+        if (character < 128)
+            return (forbiddenHigh >>> (character - 64) & 1) != 0;
+        return !forbiddenOther.isEmpty() && forbiddenOther.indexOf(character) >= 0;
+    }
+
+    @Override
+    public int failedRules(String password) {
+        int length = password.length();
+        int presentClasses = 0;
+        boolean repeating = false;
+        boolean forbidden = false;
+        int sequenceStart = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            if (isForbidden(character))
+                forbidden = true;
+            else
+                presentClasses |= PasswordPolicy.classOf(character);
+            if (i + 1 == length || password.charAt(i + 1) != character) {
+                repeating |= i + 1 - sequenceStart >= runLimit;
+                sequenceStart = i + 1;
+            }
+        }
+
+        int failedRules = 0;
+        if (length < minLength)
+            failedRules |= PasswordRules.TOO_SHORT;
+        else if (length > maxLength)
+            failedRules |= PasswordRules.TOO_LONG;
+        if (repeating)
+            failedRules |= PasswordRules.REPEATING_CHARACTERS;
+        int missingClasses = requiredClasses & ~presentClasses;
+        if ((missingClasses & PasswordPolicy.LOWER_CASE) != 0)
+            failedRules |= PasswordRules.MISSING_LOWER_CASE;
+        if ((missingClasses & PasswordPolicy.UPPER_CASE) != 0)
+            failedRules |= PasswordRules.MISSING_UPPER_CASE;
+        if ((missingClasses & PasswordPolicy.DIGIT) != 0)
+            failedRules |= PasswordRules.MISSING_DIGIT;
+        if ((missingClasses & PasswordPolicy.SYMBOL) != 0)
+            failedRules |= PasswordRules.MISSING_SYMBOL;
+        if (forbidden)
+            failedRules |= PasswordRules.FORBIDDEN_CHARACTER;
+        return failedRules;
+    }
+
+    /*
+        The first pass counts the length, the classes, the forbidden characters and the replacements of the sequences,
+        which is everything a password of a proper length needs. Only a too short or too long password reads the sequences
+        again, to spend its insertions or deletions where they save the most replacements.
+    */
+    @Override
+    public int countSteps(String password) {
+        int length = password.length();
+        int presentClasses = 0;
+        int forbiddenCount = 0;
+        int replaceCount = 0;
+        int sequenceStart = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            if (isForbidden(character)) {
+                forbiddenCount++;
+                sequenceStart = i + 1;
+                continue;
+            }
+            presentClasses |= PasswordPolicy.classOf(character);
+            if (i + 1 == length || password.charAt(i + 1) != character) {
+                replaceCount += (i + 1 - sequenceStart) / runLimit;
+                sequenceStart = i + 1;
+            }
+        }
+        // Every replaced forbidden character can be one of the missing classes
+        int missingClasses = Math.max(0, Integer.bitCount(requiredClasses & ~presentClasses) - forbiddenCount);
+
+        if (length < minLength)
+            return forbiddenCount + Math.max(missingClasses, tooShortSteps(password, minLength - length));
+        if (length <= maxLength)
+            return forbiddenCount + Math.max(missingClasses, replaceCount);
+        int deleteCount = length - maxLength;
+        return forbiddenCount + deleteCount + Math.max(missingClasses, remainingReplacements(password, deleteCount, replaceCount));
+    }
+
+    /*
+        The replacements that are still needed after 'deleteCount' deletions. A sequence with L % runLimit == r saves one
+        replacement with r + 1 deletions, and after that it needs runLimit deletions for every other one, so I spend the
+        deletions firstly on the cheapest savings, like Solution does for runLimit 3.
+    */
+    private int remainingReplacements(String password, int deleteCount, int replaceCount) {
+        int[] sequencesByRest = new int[runLimit];
+        int length = password.length();
+        int sequenceStart = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            if (isForbidden(character)) {
+                sequenceStart = i + 1;
+                continue;
+            }
+            if (i + 1 == length || password.charAt(i + 1) != character) {
+                int sequenceLength = i + 1 - sequenceStart;
+                if (sequenceLength >= runLimit) {
+                    sequencesByRest[sequenceLength % runLimit]++;
+                }
+                sequenceStart = i + 1;
+            }
+        }
+
+        int remainingDeletions = deleteCount;
+        for (int rest = 0; rest < runLimit - 1 && replaceCount > 0; rest++) {
+            int savedReplacements = Math.min(sequencesByRest[rest], remainingDeletions / (rest + 1));
+            replaceCount -= savedReplacements;
+            remainingDeletions -= savedReplacements * (rest + 1);
+        }
+        return replaceCount - Math.min(replaceCount, remainingDeletions / runLimit);
+    }
+
+    /*
+        The insertions plus the replacements that are still needed after them. With e insertions and r replacements, a
+        sequence of L characters is cut into e + r + 1 parts of at most runLimit - 1 characters, and the replacements also
+        take r characters, so it needs r = ceil((L - (e + 1) * (runLimit - 1)) / runLimit) replacements. A single insertion
+        does not always save a replacement, so the insertions are spread over the sequences with a small dynamic programming
+        (best[e] is the fewest replacements with e insertions in the sequences seen so far). The password is shorter than
+        the minimum length, so this is cheap.
+    */
+    private int tooShortSteps(String password, int insertCount) {
+        int[] best = new int[insertCount + 1];
+        int[] next = new int[insertCount + 1];
+        int length = password.length();
+        int sequenceStart = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            if (isForbidden(character)) {
+                sequenceStart = i + 1;
+                continue;
+            }
+            if (i + 1 == length || password.charAt(i + 1) != character) {
+                int sequenceLength = i + 1 - sequenceStart;
+                sequenceStart = i + 1;
+                if (sequenceLength < runLimit) {
+                    continue;
+                }
+                for (int e = 0; e <= insertCount; e++) {
+                    int fewest = Integer.MAX_VALUE;
+                    for (int used = 0; used <= e; used++) {
+                        int uncovered = sequenceLength - (used + 1) * (runLimit - 1);
+                        int replacements = uncovered > 0 ? (uncovered + runLimit - 1) / runLimit : 0;
+                        fewest = Math.min(fewest, best[e - used] + replacements);
+                        if (replacements == 0) {
+                            break;
+                        }
+                    }
+                    next[e] = fewest;
+                }
+                int[] swap = best;
+                best = next;
+                next = swap;
+            }
+        }
+        return insertCount + best[insertCount];
+    }
+}
@@ -0,0 +1,120 @@
+package com.stancu.policy;
+
+import com.stancu.constants.PasswordConstants;
+import com.stancu.scanner.PasswordScanner;
+
+/*
+    Immutable description of what a strong password is: the length limits, the longest allowed sequence of the same
+    character, the character classes that must appear (symbols included) and the characters that must not appear at all.
+    A policy is only a description: compile() turns it once into a PolicyValidator that keeps every value in primitive
+    final fields, so checking a password never reads a static or unboxes anything. Policies don't share any state,
+    so as many of them as needed can be used side by side.
+*/
+public final class PasswordPolicy {
+
+    public static final int LOWER_CASE = PasswordScanner.LOWER_CASE;
+    public static final int UPPER_CASE = PasswordScanner.UPPER_CASE;
+    public static final int DIGIT = PasswordScanner.DIGIT;
+    // Any character that is not a letter or a digit
+    public static final int SYMBOL = 8;
+    public static final int ALL_CLASSES = LOWER_CASE | UPPER_CASE | DIGIT | SYMBOL;
+
+    // The policy of the original problem (and of PasswordConstants)
+    public static final PasswordPolicy DEFAULT = new PasswordPolicy(PasswordConstants.PASSWORD_MIN_LENGTH,
+            PasswordConstants.PASSWORD_MAX_LENGTH, PasswordConstants.PASSWORD_MAX_RUN_LENGTH,
+            LOWER_CASE | UPPER_CASE | DIGIT, "");
+
+    private final int minLength;
+    private final int maxLength;
+    private final int maxRunLength;
+    private final int requiredClasses;
+    private final String forbiddenCharacters;
+
+    public PasswordPolicy(int minLength, int maxLength, int maxRunLength, int requiredClasses, String forbiddenCharacters) {
+        if (minLength < 0 || maxLength < minLength) {
+            throw new IllegalArgumentException("Invalid length limits [" + minLength + ", " + maxLength + "]");
+        }
+        if (maxRunLength < 1) {
+            throw new IllegalArgumentException("The longest allowed sequence must have at least 1 character, but it has " + maxRunLength);
+        }
+        if ((requiredClasses & ~ALL_CLASSES) != 0) {
+            throw new IllegalArgumentException("Unknown character classes " + requiredClasses);
+        }
+        if (maxLength < Integer.bitCount(requiredClasses)) {
+            throw new IllegalArgumentException("A password of at most " + maxLength + " characters can't have "
+                    + Integer.bitCount(requiredClasses) + " character classes");
+        }
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.maxRunLength = maxRunLength;
+        this.requiredClasses = requiredClasses;
+        this.forbiddenCharacters = forbiddenCharacters;
+    }
+
+    //    Helper function which returns the class bit of a character (every character has exactly one class)
+    public static int classOf(char character) {
+        int characterCase = PasswordScanner.caseOf(character);
+        return characterCase == PasswordScanner.NO_CASE ? SYMBOL : characterCase;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public int getMaxRunLength() {
+        return maxRunLength;
+    }
+
+    public int getRequiredClasses() {
+        return requiredClasses;
+    }
+
+    public String getForbiddenCharacters() {
+        return forbiddenCharacters;
+    }
+
+    /*
+        Builds the validator of this policy. A policy with the shape of the original problem (sequences of at most 2,
+        lower case, upper case and digit, nothing forbidden) gets the counting solution, the others the general validator.
+        Solution assumes that a too short password has at most one sequence to break, which only holds up to 6 characters.
+    */
+    public PolicyValidator compile() {
+        if (minLength <= PasswordConstants.PASSWORD_MIN_LENGTH && maxRunLength == PasswordConstants.PASSWORD_MAX_RUN_LENGTH && requiredClasses == (LOWER_CASE | UPPER_CASE | DIGIT)
+                && forbiddenCharacters.isEmpty()) {
+            return new StandardPolicyValidator(this);
+        }
+        return new GeneralPolicyValidator(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PasswordPolicy)) {
+            return false;
+        }
+        PasswordPolicy policy = (PasswordPolicy) other;
+        return minLength == policy.minLength && maxLength == policy.maxLength && maxRunLength == policy.maxRunLength
+                && requiredClasses == policy.requiredClasses && forbiddenCharacters.equals(policy.forbiddenCharacters);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = minLength;
+        hash = 31 * hash + maxLength;
+        hash = 31 * hash + maxRunLength;
+        hash = 31 * hash + requiredClasses;
+        return 31 * hash + forbiddenCharacters.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PasswordPolicy{length=[" + minLength + ", " + maxLength + "], maxRunLength=" + maxRunLength
+                + ", requiredClasses=" + requiredClasses + ", forbiddenCharacters=\"" + forbiddenCharacters + "\"}";
+    }
+}
@@ -0,0 +1,19 @@
+package com.stancu.policy;
+
+import com.stancu.engine.StepCounter;
+
+/*
+    Validator compiled from a PasswordPolicy (see PasswordPolicy.compile). The validators are immutable,
+    so one instance can be shared by any number of threads.
+*/
+public interface PolicyValidator extends StepCounter {
+
+    PasswordPolicy getPolicy();
+
+    //    The rules of the policy that the password fails, as PasswordRules bits (0 if the password is strong)
+    int failedRules(String password);
+
+    default boolean isStrong(String password) {
+        return failedRules(password) == 0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.stancu.policy;
+
+import com.stancu.v3_faster_ideas.Solution;
+
+/*
+    Validator of a policy with the shape of the original problem (sequences of at most 2 characters, lower case, upper case
+    and digit, nothing forbidden, at most 6 characters of minimum length), where only the length limits can be different.
+    The steps are counted by the counting solution with these limits, which does not need any second pass.
+*/
+final class StandardPolicyValidator extends GeneralPolicyValidator {
+
+    private final Solution solution;
+
+    StandardPolicyValidator(PasswordPolicy policy) {
+        super(policy);
+        this.solution = new Solution(policy.getMinLength(), policy.getMaxLength());
+    }
+
+    @Override
+    public int countSteps(String password) {
+        return solution.passwordChecker(password);
+    }
+}
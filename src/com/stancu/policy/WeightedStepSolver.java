@@ -0,0 +1,320 @@
+package com.stancu.policy;
+
+import com.stancu.engine.StepCounter;
+
+import java.util.Arrays;
+
+/*
+    Minimum cost of the steps for any run limit k (a sequence is too long from k characters on) and any EditCosts.
+    The mod 3 reasoning of Solution is the case k = 3 of this one, with all the costs equal to 1.
+
+    A sequence of L >= k characters needs U = L - k + 1 "units": a deletion in it gives 1 unit, an insertion k - 1 (it
+    cuts the sequence, and a part can keep k - 1 characters) and a replacement k (it cuts the sequence and also takes one
+    of its characters). The units of one sequence add up, whatever the mix, so i insertions, r replacements and d deletions
+    fix it when d + k * r + (k - 1) * i >= U. Inserted and replaced characters can also be any missing class. So a solution
+    is y insertions, z replacements and x deletions, where:
+    - y + z is at most the final length, so at most maxLength: the solver tries the pairs (y, z), and stops a row as soon
+      as a pair covers everything, because more items only cost more;
+    - the deletions fill whatever the insertions and replacements leave uncovered, and they also make the password short
+      enough: x = max(U total - covered(y, z), n + y - maxLength, 0);
+    - the final length n + y - x is at least minLength, and y + z covers the missing classes.
+    covered(y, z) is the most units that y insertions and z replacements cover. If a sequence gets m items, they cover
+    F = min(U, (k - 1) * m) as insertions and G = min(U, k * m) as replacements, and every replacement among them adds 1 to
+    F up to G. So over all the sequences, covered(y, z) is the best min(G, F + z) when the sequences get y + z items:
+    - the first U / k items of every sequence add (k - 1, k) to (F, G), the most an item can add, so they always go first;
+    - an item after them adds (min(k - 1, rest of F), U % k) if it is the first of its sequence after the full ones, and
+      only (rest of F, 0) otherwise. With the maximum of min(G, F + z), the best items are the top ones by G joined with
+      the top ones by F among the others, and as more of them are taken by G, G only grows and F only shrinks, so a
+      binary search finds where they cross.
+    The items after the full ones have at most k kinds of G and F, so they are kept as counted blocks. Gathering them is
+    O(n log n), and a pair costs O(b log n) for the b blocks (a few for the usual run limits). A row of pairs stops when
+    everything is covered, so only the pairs up to the needed items are tried, at most O(maxLength^2) of them.
+    A replaced or deleted character is never the last one of its class while there are other characters to take, so the
+    classes are only lost when the steps leave fewer untouched characters than present classes, and then every lost class
+    must be added again by an insertion or a replacement.
+    Forbidden characters are not supported, so a policy with them is rejected.
+*/
+public class WeightedStepSolver implements StepCounter {
+
+    private final PasswordPolicy policy;
+    private final EditCosts costs;
+    private final int minLength;
+    private final int maxLength;
+    private final int runLimit;
+    private final int requiredClasses;
+
+    public WeightedStepSolver(PasswordPolicy policy, EditCosts costs) {
+        if (!policy.getForbiddenCharacters().isEmpty()) {
+            throw new IllegalArgumentException("The weighted solver does not support forbidden characters: " + policy);
+        }
+        this.policy = policy;
+        this.costs = costs;
+        this.minLength = policy.getMinLength();
+        this.maxLength = policy.getMaxLength();
+        this.runLimit = policy.getMaxRunLength() + 1;
+        this.requiredClasses = policy.getRequiredClasses();
+    }
+
+    public PasswordPolicy getPolicy() {
+        return policy;
+    }
+
+    public EditCosts getCosts() {
+        return costs;
+    }
+
+    //    The minimum cost, or Integer.MAX_VALUE if it does not fit in an int
+    @Override
+    public int countSteps(String password) {
+        return (int) Math.min(Integer.MAX_VALUE, minimumCost(password));
+    }
+
+    public long minimumCost(String password) {
+        int length = password.length();
+        int presentClasses = 0;
+        long units = 0;
+        int[] needs = new int[Math.max(0, length / runLimit)];
+        int needCount = 0;
+        int sequenceStart = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            presentClasses |= PasswordPolicy.classOf(character);
+            if (i + 1 == length || password.charAt(i + 1) != character) {
+                int sequenceLength = i + 1 - sequenceStart;
+                sequenceStart = i + 1;
+                if (sequenceLength < runLimit) {
+                    continue;
+                }
+                int need = sequenceLength - runLimit + 1;
+                units += need;
+                needs[needCount++] = need;
+            }
+        }
+        Coverage coverage = new Coverage(needs, needCount, runLimit);
+
+        int missingClasses = Integer.bitCount(requiredClasses & ~presentClasses);
+        int keptClasses = Integer.bitCount(requiredClasses & presentClasses);
+        long best = Long.MAX_VALUE;
+        for (int inserts = 0; inserts <= maxLength; inserts++) {
+            // Even with nothing else to do, these insertions and the deletions they make necessary cost this much
+            long leastCost = (long) costs.getInsertCost() * inserts
+                    + (long) costs.getDeleteCost() * Math.max(0, length + inserts - maxLength);
+            if (leastCost >= best) {
+                break;
+            }
+            for (int replacements = 0; inserts + replacements <= maxLength && replacements <= length; replacements++) {
+                if (inserts + replacements < missingClasses) {
+                    continue;
+                }
+                long left = units - coverage.covered(inserts, replacements);
+                long deletions = Math.max(0, Math.max(left, (long) length + inserts - maxLength));
+                if (length + inserts - deletions < minLength || deletions + replacements > length) {
+                    continue;
+                }
+                long untouched = length - deletions - replacements;
+                if (inserts + replacements < missingClasses + Math.max(0, keptClasses - untouched)) {
+                    continue;
+                }
+                long cost = (long) costs.getInsertCost() * inserts + (long) costs.getReplaceCost() * replacements
+                        + costs.getDeleteCost() * deletions;
+                best = Math.min(best, cost);
+                if (left == 0) {
+                    // More replacements only add their cost
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /*
+        The units that the items can cover, for the sequences of one password (see the class comment). The full items of
+        every sequence are only counted, and the items after them are kept as blocks of equal items:
+        - the first item after the full ones of a sequence with U % k > 0, by G descending and then F descending;
+        - the items that only add to F: the ones that add k - 1, counted, and the others by F descending.
+        It is made for one check, so the selection can keep its sums in fields.
+    */
+    private static final class Coverage {
+
+        private final int runLimit;
+        private final long fullItems;
+        private final int[] firstReplaceUnits;
+        private final int[] firstInsertUnits;
+        private final int[] firstSizes;
+        private final int firstBlocks;
+        private final long firstItems;
+        // The first item blocks that add less than k - 1 to F, by F descending and then G descending
+        private final int[] shortFirstBlocks;
+        private final long insertOnlyItems;
+        private final int[] restUnits;
+        private final int[] restSizes;
+        private final int restBlocks;
+
+        // The F and G of the last selection
+        private long selectedInsertUnits;
+        private long selectedReplaceUnits;
+
+        private Coverage(int[] needs, int needCount, int runLimit) {
+            this.runLimit = runLimit;
+            int insertUnits = runLimit - 1;
+            long full = 0;
+            long insertOnly = 0;
+            long[] firstKeys = new long[needCount];
+            int firstCount = 0;
+            int[] rests = new int[needCount];
+            int restCount = 0;
+            for (int s = 0; s < needCount; s++) {
+                int need = needs[s];
+                full += need / runLimit;
+                int replaceRest = need % runLimit;
+                // What is left of F after the full items
+                int insertRest = need - insertUnits * (need / runLimit);
+                if (replaceRest > 0) {
+                    int first = Math.min(insertUnits, insertRest);
+                    firstKeys[firstCount++] = (long) replaceRest << 32 | first;
+                    insertRest -= first;
+                }
+                insertOnly += insertRest / insertUnits;
+                if (insertRest % insertUnits != 0) {
+                    rests[restCount++] = insertRest % insertUnits;
+                }
+            }
+            this.fullItems = full;
+            this.insertOnlyItems = insertOnly;
+            this.firstItems = firstCount;
+
+            Arrays.sort(firstKeys, 0, firstCount);
+            firstReplaceUnits = new int[firstCount];
+            firstInsertUnits = new int[firstCount];
+            firstSizes = new int[firstCount];
+            int blocks = 0;
+            int shortCount = 0;
+            for (int i = firstCount - 1; i >= 0; i--) {
+                if (i == firstCount - 1 || firstKeys[i] != firstKeys[i + 1]) {
+                    firstReplaceUnits[blocks] = (int) (firstKeys[i] >>> 32);
+                    firstInsertUnits[blocks] = (int) firstKeys[i];
+                    shortCount += firstInsertUnits[blocks] < insertUnits ? 1 : 0;
+                    blocks++;
+                }
+                firstSizes[blocks - 1]++;
+            }
+            this.firstBlocks = blocks;
+
+            // By F descending, and the block index ascending, which is G descending for the same F
+            long[] shortKeys = new long[shortCount];
+            shortCount = 0;
+            for (int b = 0; b < blocks; b++) {
+                if (firstInsertUnits[b] < insertUnits) {
+                    shortKeys[shortCount++] = (long) (insertUnits - firstInsertUnits[b]) << 32 | b;
+                }
+            }
+            Arrays.sort(shortKeys);
+            shortFirstBlocks = new int[shortCount];
+            for (int i = 0; i < shortCount; i++) {
+                shortFirstBlocks[i] = (int) shortKeys[i];
+            }
+
+            Arrays.sort(rests, 0, restCount);
+            restUnits = new int[restCount];
+            restSizes = new int[restCount];
+            blocks = 0;
+            for (int i = restCount - 1; i >= 0; i--) {
+                if (i == restCount - 1 || rests[i] != rests[i + 1]) {
+                    restUnits[blocks++] = rests[i];
+                }
+                restSizes[blocks - 1]++;
+            }
+            this.restBlocks = blocks;
+        }
+
+        //    The most units covered by y insertions and z replacements: the best min(G, F + z) (see the class comment)
+        private long covered(int inserts, int replacements) {
+            long items = (long) inserts + replacements;
+            int insertUnits = runLimit - 1;
+            if (items <= fullItems) {
+                return insertUnits * items + Math.min(items, replacements);
+            }
+            long afterFull = items - fullItems;
+            long mostByReplace = Math.min(afterFull, firstItems);
+            if (replacements >= fullItems) {
+                // Then F + z is never the smaller one, so the items are simply the top ones by G
+                select(mostByReplace, mostByReplace);
+                return runLimit * fullItems + selectedReplaceUnits;
+            }
+            // What the full items add to G and not to F + z
+            long slack = fullItems - replacements;
+            long low = 0;
+            long high = mostByReplace;
+            while (low < high) {
+                long middle = (low + high) >>> 1;
+                select(afterFull, middle);
+                if (selectedReplaceUnits + slack >= selectedInsertUnits) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            select(afterFull, low);
+            long best = Math.min(selectedInsertUnits, selectedReplaceUnits + slack);
+            if (low > 0) {
+                select(afterFull, low - 1);
+                best = Math.max(best, Math.min(selectedInsertUnits, selectedReplaceUnits + slack));
+            }
+            return insertUnits * fullItems + replacements + best;
+        }
+
+        //    Helper function which takes the top 'byReplace' items by G, then the top ones by F of the others, up to 'total'
+        //    items, and keeps their F and G
+        private void select(long total, long byReplace) {
+            int insertUnits = runLimit - 1;
+            long insertSum = 0;
+            long replaceSum = 0;
+            long rest = byReplace;
+            int boundary = firstBlocks;
+            long boundaryTaken = 0;
+            for (int b = 0; b < firstBlocks; b++) {
+                long taken = Math.min(rest, firstSizes[b]);
+                insertSum += taken * firstInsertUnits[b];
+                replaceSum += taken * firstReplaceUnits[b];
+                rest -= taken;
+                if (taken < firstSizes[b]) {
+                    boundary = b;
+                    boundaryTaken = taken;
+                    break;
+                }
+            }
+
+            rest = total - byReplace;
+            // By F, the first items that add k - 1 come first, and they are in the same order as by G
+            for (int b = boundary; b < firstBlocks && rest > 0; b++) {
+                if (firstInsertUnits[b] == insertUnits) {
+                    long taken = Math.min(rest, firstSizes[b] - (b == boundary ? boundaryTaken : 0));
+                    insertSum += taken * insertUnits;
+                    replaceSum += taken * firstReplaceUnits[b];
+                    rest -= taken;
+                }
+            }
+            long taken = Math.min(rest, insertOnlyItems);
+            insertSum += taken * insertUnits;
+            rest -= taken;
+            int shortIndex = 0;
+            int restIndex = 0;
+            while (rest > 0 && (shortIndex < shortFirstBlocks.length || restIndex < restBlocks)) {
+                if (restIndex == restBlocks || shortIndex < shortFirstBlocks.length
+                        && firstInsertUnits[shortFirstBlocks[shortIndex]] >= restUnits[restIndex]) {
+                    int b = shortFirstBlocks[shortIndex++];
+                    long free = b > boundary ? firstSizes[b] : b == boundary ? firstSizes[b] - boundaryTaken : 0;
+                    taken = Math.min(rest, free);
+                    insertSum += taken * firstInsertUnits[b];
+                    replaceSum += taken * firstReplaceUnits[b];
+                } else {
+                    taken = Math.min(rest, restSizes[restIndex]);
+                    insertSum += taken * restUnits[restIndex++];
+                }
+                rest -= taken;
+            }
+            selectedInsertUnits = insertSum;
+            selectedReplaceUnits = replaceSum;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.stancu.recommend;
+
+import com.stancu.policy.PasswordPolicy;
+
+/*
+    Chooses every character that PasswordRecommender writes into a password (an insertion or a replacement).
+    The character must be of 'characterClass' (a PasswordPolicy class, or 0 if any class is fine) and different from
+    'previous' and 'next' (0 when there is no such character), so it never makes a repeating sequence.
+*/
+@FunctionalInterface
+public interface CharacterChooser {
+
+    char choose(int characterClass, char previous, char next);
+
+    //    Always the same character for the same class and neighbours: 'z'/'y'/'x', 'Z'/'Y'/'X', '9'/'8'/'7' or '!'/'@'/'#'
+    static CharacterChooser deterministic() {
+        return (characterClass, previous, next) -> {
+            String candidates;
+            switch (characterClass) {
+                case PasswordPolicy.LOWER_CASE: candidates = "zyx"; break;
+                case PasswordPolicy.DIGIT: candidates = "987"; break;
+                case PasswordPolicy.SYMBOL: candidates = "!@#"; break;
+                default: candidates = "ZYX"; break;
+            }
+            // Three candidates, so at least one of them is different from both neighbours
+            for (int i = 0; ; i++) {
+                char candidate = candidates.charAt(i);
+                if (candidate != previous && candidate != next) {
+                    return candidate;
+                }
+            }
+        };
+    }
+
+    //    Random characters from 'seed', so the same seed recommends the same password (not thread safe)
+    static CharacterChooser seeded(long seed) {
+        return new SeededCharacterChooser(seed);
+    }
+}
@@ -0,0 +1,222 @@
+package com.stancu.recommend;
+
+import com.stancu.constants.PasswordConstants;
+import com.stancu.policy.PasswordPolicy;
+
+import java.util.Arrays;
+
+/*
+    Returns the minimum number of steps together with a strong password that is exactly that many steps away from the
+    checked one. Instead of repairing the password step by step (see PasswordValidator), the password is split once into
+    its sequences of the same character, the deletions, insertions and replacements are planned on the sequences with the
+    counting of Solution, and the new password is written in one pass over them:
+    - a too long password loses its deletions in the sequences where they save the most replacements, like in Solution,
+      and the rest of them in any sequence that keeps at least one character. Only a password with more sequences than
+      the maximum length loses whole sequences: it keeps the first ones, and the first one of every class it has;
+    - a sequence keeps at most 2 characters in a row: every third one is replaced, or (in a too short password, where
+      the insertions are needed anyway) an insertion is written after every second one;
+    - if there are more missing classes than new characters, the other characters of a class that has more of them
+      (or symbols) are replaced;
+    - the rest of the insertions are written at the end.
+    The new characters get the missing classes firstly, and they are chosen by a CharacterChooser, so they are always
+    different from their neighbours and they never make a new repeating sequence.
+    The password being written is kept in fields, so, unlike the validators, one instance must not be used by two threads
+    at the same time.
+*/
+public class PasswordRecommender {
+
+    private static final int REQUIRED_CLASSES = PasswordPolicy.LOWER_CASE | PasswordPolicy.UPPER_CASE | PasswordPolicy.DIGIT;
+
+    private final CharacterChooser chooser;
+
+    // The password that is written by the current recommendation, and the classes that it still misses
+    private char[] output;
+    private int size;
+    private int missingClasses;
+
+    public PasswordRecommender() {
+        this(CharacterChooser.deterministic());
+    }
+
+    public PasswordRecommender(CharacterChooser chooser) {
+        this.chooser = chooser;
+    }
+
+    public Recommendation recommend(String password) {
+        int length = password.length();
+        char[] blockCharacters = new char[length];
+        int[] blockLengths = new int[length];
+        int blocks = 0;
+        int presentClasses = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            presentClasses |= PasswordPolicy.classOf(character);
+            if (blocks > 0 && blockCharacters[blocks - 1] == character) {
+                blockLengths[blocks - 1]++;
+            } else {
+                blockCharacters[blocks] = character;
+                blockLengths[blocks++] = 1;
+            }
+        }
+        int[] keptLengths = Arrays.copyOf(blockLengths, blocks);
+        int missingCount = Integer.bitCount(REQUIRED_CLASSES & ~presentClasses);
+
+        int deletions = 0;
+        int insertions = 0;
+        int replacements;
+        if (length < PasswordConstants.PASSWORD_MIN_LENGTH) {
+            insertions = PasswordConstants.PASSWORD_MIN_LENGTH - length;
+            replacements = Math.max(0, missingCount - insertions);
+        } else {
+            if (length > PasswordConstants.PASSWORD_MAX_LENGTH) {
+                deletions = length - PasswordConstants.PASSWORD_MAX_LENGTH;
+                if (length - blocks < deletions) {
+                    keepFirstBlocks(blockCharacters, keptLengths, presentClasses);
+                } else {
+                    deleteInBlocks(keptLengths, deletions);
+                }
+            }
+            replacements = Math.max(missingCount, replacementsOf(keptLengths));
+        }
+
+        /*
+            A sequence has its every third character replaced while the replacements last, otherwise it gets insertions.
+            The characters that stay are counted by class, so the extra replacements never take the last one of a class.
+        */
+        boolean[] replacedSeparators = new boolean[blocks];
+        int[] classCounts = new int[PasswordPolicy.ALL_CLASSES + 1];
+        int separatorReplacements = 0;
+        for (int b = 0; b < blocks; b++) {
+            int separators = keptLengths[b] / 3;
+            replacedSeparators[b] = separatorReplacements + separators <= replacements;
+            if (replacedSeparators[b]) {
+                separatorReplacements += separators;
+            }
+            classCounts[PasswordPolicy.classOf(blockCharacters[b])] += keptLengths[b] - (replacedSeparators[b] ? separators : 0);
+        }
+        int extraReplacements = replacements - separatorReplacements;
+
+        char[] nextCharacters = new char[blocks];
+        char next = 0;
+        for (int b = blocks - 1; b >= 0; b--) {
+            nextCharacters[b] = next;
+            if (keptLengths[b] > 0) {
+                next = blockCharacters[b];
+            }
+        }
+
+        output = new char[length - deletions + insertions];
+        size = 0;
+        missingClasses = REQUIRED_CLASSES & ~presentClasses;
+        int remainingInsertions = insertions;
+        for (int b = 0; b < blocks; b++) {
+            char character = blockCharacters[b];
+            int characterClass = PasswordPolicy.classOf(character);
+            int kept = keptLengths[b];
+            for (int j = 0; j < kept; j++) {
+                char following = j + 1 < kept ? character : nextCharacters[b];
+                if (replacedSeparators[b]) {
+                    if ((j + 1) % 3 == 0) {
+                        write(newCharacter(following));
+                        continue;
+                    }
+                } else if (j > 0 && j % 2 == 0) {
+                    remainingInsertions--;
+                    write(newCharacter(character));
+                }
+                if (extraReplacements > 0 && ((characterClass & REQUIRED_CLASSES) == 0 || classCounts[characterClass] > 1)) {
+                    classCounts[characterClass]--;
+                    extraReplacements--;
+                    write(newCharacter(following));
+                } else {
+                    write(character);
+                }
+            }
+        }
+        for (; remainingInsertions > 0; remainingInsertions--) {
+            write(newCharacter((char) 0));
+        }
+
+        if (size != output.length || remainingInsertions != 0 || extraReplacements != 0 || missingClasses != 0) {
+            throw new IllegalStateException("Could not build a strong password for \"" + password + "\"");
+        }
+        return new Recommendation(deletions + insertions + replacements, new String(output));
+    }
+
+    //    The replacements of the sequences that are kept, if nothing else changes
+    private static int replacementsOf(int[] keptLengths) {
+        int replacements = 0;
+        for (int kept : keptLengths) {
+            replacements += kept / 3;
+        }
+        return replacements;
+    }
+
+    /*
+        The deletions of Solution, on the sequences: one in every 3k sequence, two in every 3k+1 sequence, three for every
+        other replacement, and the rest anywhere, but never the last character of a sequence (so two sequences never merge).
+    */
+    private static void deleteInBlocks(int[] keptLengths, int deletions) {
+        int remaining = deletions;
+        for (int rest = 0; rest < 2; rest++) {
+            for (int b = 0; b < keptLengths.length && remaining > rest; b++) {
+                if (keptLengths[b] >= 3 && keptLengths[b] % 3 == rest) {
+                    keptLengths[b] -= rest + 1;
+                    remaining -= rest + 1;
+                }
+            }
+        }
+        for (int b = 0; b < keptLengths.length && remaining >= 3; b++) {
+            int saved = Math.min(keptLengths[b] / 3, remaining / 3);
+            keptLengths[b] -= 3 * saved;
+            remaining -= 3 * saved;
+        }
+        for (int b = 0; b < keptLengths.length && remaining > 0; b++) {
+            int deleted = Math.min(keptLengths[b] - 1, remaining);
+            keptLengths[b] -= deleted;
+            remaining -= deleted;
+        }
+    }
+
+    /*
+        There are more sequences than the maximum length, so every kept sequence keeps one character. The first sequences are
+        kept while there is room for the first sequence of every class that is not kept yet. The kept sequences are one after
+        another, and the later ones have classes that are not kept yet, so no two neighbours are the same character.
+    */
+    private static void keepFirstBlocks(char[] blockCharacters, int[] keptLengths, int presentClasses) {
+        int uncoveredClasses = presentClasses & REQUIRED_CLASSES;
+        int slots = PasswordConstants.PASSWORD_MAX_LENGTH;
+        for (int b = 0; b < keptLengths.length; b++) {
+            int characterClass = PasswordPolicy.classOf(blockCharacters[b]);
+            boolean keep;
+            if ((uncoveredClasses & characterClass) != 0) {
+                uncoveredClasses &= ~characterClass;
+                keep = true;
+            } else {
+                keep = slots > Integer.bitCount(uncoveredClasses);
+            }
+            keptLengths[b] = keep ? 1 : 0;
+            if (keep) {
+                slots--;
+            }
+        }
+    }
+
+    //    A new character of the first missing class (or of any class), different from the last written one and from 'next'
+    private char newCharacter(char next) {
+        int characterClass = Integer.lowestOneBit(missingClasses);
+        missingClasses &= ~characterClass;
+        char previous = size > 0 ? output[size - 1] : 0;
+        char character = chooser.choose(characterClass, previous, next);
+        if (character == previous || character == next
+                || (characterClass != 0 && PasswordPolicy.classOf(character) != characterClass)) {
+            throw new IllegalStateException("The chooser returned '" + character + "' for the class " + characterClass
+                    + " between '" + previous + "' and '" + next + "'");
+        }
+        return character;
+    }
+
+    private void write(char character) {
+        output[size++] = character;
+    }
+}
@@ -0,0 +1,29 @@
+package com.stancu.recommend;
+
+/*
+    A strong password recommended by PasswordRecommender, and the number of steps that turn the checked password into it
+    (the minimum number of steps).
+*/
+public final class Recommendation {
+
+    private final int steps;
+    private final String password;
+
+    public Recommendation(int steps, String password) {
+        this.steps = steps;
+        this.password = password;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String toString() {
+        return "Recommendation{steps=" + steps + ", password=\"" + password + "\"}";
+    }
+}
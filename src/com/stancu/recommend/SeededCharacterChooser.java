@@ -0,0 +1,41 @@
+package com.stancu.recommend;
+
+import com.stancu.policy.PasswordPolicy;
+
+import java.util.SplittableRandom;
+
+/*
+    CharacterChooser that picks a random character of the class, and tries again while it is equal to a neighbour.
+    Every class has more than 2 characters, so it ends quickly. The same seed gives the same sequence of characters.
+*/
+final class SeededCharacterChooser implements CharacterChooser {
+
+    private static final String LOWER_CASE = "abcdefghijklmnopqrstuvwxyz";
+    private static final String UPPER_CASE = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String DIGITS = "0123456789";
+    private static final String SYMBOLS = "!@#$%^&*-_+=?";
+    private static final String ANY = LOWER_CASE + UPPER_CASE + DIGITS + SYMBOLS;
+
+    private final SplittableRandom random;
+
+    SeededCharacterChooser(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public char choose(int characterClass, char previous, char next) {
+        String candidates;
+        switch (characterClass) {
+            case PasswordPolicy.LOWER_CASE: candidates = LOWER_CASE; break;
+            case PasswordPolicy.UPPER_CASE: candidates = UPPER_CASE; break;
+            case PasswordPolicy.DIGIT: candidates = DIGITS; break;
+            case PasswordPolicy.SYMBOL: candidates = SYMBOLS; break;
+            default: candidates = ANY; break;
+        }
+        char candidate;
+        do {
+            candidate = candidates.charAt(random.nextInt(candidates.length()));
+        } while (candidate == previous || candidate == next);
+        return candidate;
+    }
+}
@@ -0,0 +1,187 @@
+package com.stancu.scanner;
+
+/*
+    The validators used to call containsLowerCase, containsUpperCase, containsDigit and repeatingIndex one after another,
+    and each of them walked through the whole password again (and boxed every character in a Character).
+    This scanner walks the password only once and keeps everything the validators need: the length, the character cases
+    as a bitmask (with how many characters each case has and where its first character is) and the lengths of the
+    partitions of repeating characters.
+    The scanner is reusable: the run-length table is only grown when a longer password comes, so after the first calls
+    a scan does not allocate anything. Because of that, one scanner must not be shared between threads.
+*/
+public class PasswordScanner {
+
+    public static final int NO_CASE = 0;
+    public static final int LOWER_CASE = 1;
+    public static final int UPPER_CASE = 2;
+    public static final int DIGIT = 4;
+    public static final int ALL_CASES = LOWER_CASE | UPPER_CASE | DIGIT;
+
+    private static final int LOWER_CASE_SLOT = 0;
+    private static final int UPPER_CASE_SLOT = 1;
+    private static final int DIGIT_SLOT = 2;
+
+    private int[] runLengths = new int[16];
+    private int runCount;
+    private int maxRunLength;
+    private int length;
+    private int caseMask;
+    private final int[] caseCounts = new int[3];
+    private final int[] firstCaseIndex = new int[3];
+    private int firstNoCaseIndex;
+
+    //    Helper function which returns the case bit of a character (the cases are disjoint, so there is at most one bit)
+    public static int caseOf(char character) {
+        if (Character.isLowerCase(character)) {
+            return LOWER_CASE;
+        }
+        if (Character.isUpperCase(character)) {
+            return UPPER_CASE;
+        }
+        if (Character.isDigit(character)) {
+            return DIGIT;
+        }
+        return NO_CASE;
+    }
+
+    public PasswordScanner scan(CharSequence password) {
+        length = password.length();
+        runCount = 0;
+        maxRunLength = 0;
+        caseMask = NO_CASE;
+        for (int slot = 0; slot < caseCounts.length; slot++) {
+            caseCounts[slot] = 0;
+            firstCaseIndex[slot] = -1;
+        }
+        firstNoCaseIndex = -1;
+
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            int characterCase = caseOf(character);
+            if (characterCase != NO_CASE) {
+                int slot = slotOf(characterCase);
+                if (caseCounts[slot]++ == 0) {
+                    firstCaseIndex[slot] = i;
+                }
+                caseMask |= characterCase;
+            } else if (firstNoCaseIndex == -1) {
+                firstNoCaseIndex = i;
+            }
+            // The partition ends at the last character, or when the next character is different
+            if (i + 1 == length || password.charAt(i + 1) != character) {
+                addRun(i + 1 - runStart);
+                runStart = i + 1;
+            }
+        }
+        return this;
+    }
+
+    private void addRun(int runLength) {
+        if (runCount == runLengths.length) {
+            int[] grown = new int[runLengths.length * 2];
+            System.arraycopy(runLengths, 0, grown, 0, runCount);
+            runLengths = grown;
+        }
+        runLengths[runCount++] = runLength;
+        if (runLength > maxRunLength) {
+            maxRunLength = runLength;
+        }
+    }
+
+    private static int slotOf(int characterCase) {
+        if (characterCase == LOWER_CASE) {
+            return LOWER_CASE_SLOT;
+        }
+        if (characterCase == UPPER_CASE) {
+            return UPPER_CASE_SLOT;
+        }
+        return DIGIT_SLOT;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getCaseMask() {
+        return caseMask;
+    }
+
+    public boolean hasCase(int characterCase) {
+        return (caseMask & characterCase) != 0;
+    }
+
+    public int getCaseCount(int characterCase) {
+        return caseCounts[slotOf(characterCase)];
+    }
+
+    public boolean containsProperCharCases() {
+        return caseMask == ALL_CASES;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    public int getRunLength(int run) {
+        return runLengths[run];
+    }
+
+    public int getMaxRunLength() {
+        return maxRunLength;
+    }
+
+    public boolean hasRepeatingSequence() {
+        return maxRunLength >= 3;
+    }
+
+    /*
+        Same result as the old repeatingIndex, but it reads the run-length table instead of building the partitions again:
+        the start of the first 3k partition, or of the first 3k+1 one, or of the first 3k+2 one, or -1 if there is
+        no partition with at least 3 characters.
+    */
+    public int repeatingIndex() {
+        if (!hasRepeatingSequence()) {
+            return -1;
+        }
+        int mod1Index = -1;
+        int mod2Index = -1;
+        int index = 0;
+        for (int run = 0; run < runCount; run++) {
+            int runLength = runLengths[run];
+            if (runLength >= 3) {
+                if (runLength % 3 == 0) {
+                    return index;
+                }
+                if (runLength % 3 == 1 && mod1Index == -1) {
+                    mod1Index = index;
+                }
+                if (runLength % 3 == 2 && mod2Index == -1) {
+                    mod2Index = index;
+                }
+            }
+            index += runLength;
+        }
+        return mod1Index > -1 ? mod1Index : mod2Index;
+    }
+
+    /*
+        Same result as the old findSafeIndex: the first character whose case still appears in the password after deleting it,
+        which is the first character of a case that has at least 2 characters.
+        If there is no such character, the old function returned 0, and for passwords like ".1..!.!!" the repair loop
+        kept replacing the only digit or letter and never stopped. A character without a case (like '.' or '!') is also
+        safe to change or delete, so I return the first one of them, and only after that 0.
+    */
+    public int safeIndex() {
+        int safeIndex = -1;
+        for (int slot = 0; slot < caseCounts.length; slot++) {
+            if (caseCounts[slot] >= 2 && (safeIndex == -1 || firstCaseIndex[slot] < safeIndex)) {
+                safeIndex = firstCaseIndex[slot];
+            }
+        }
+        if (safeIndex == -1) {
+            safeIndex = firstNoCaseIndex;
+        }
+        return safeIndex == -1 ? 0 : safeIndex;
+    }
+}
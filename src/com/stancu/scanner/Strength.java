@@ -0,0 +1,20 @@
+package com.stancu.scanner;
+
+/*
+    The first reason for which a password is not strong, as found by the StrengthClassifier (or STRONG).
+    A password can fail more rules, but the classifier stops at the first one it proves, so only that one is returned.
+*/
+public enum Strength {
+
+    STRONG,
+    TOO_SHORT,
+    TOO_LONG,
+    // At least 3 repeating characters
+    HAS_TRIPLE,
+    // No lower case, no upper case or no digit character
+    MISSING_CLASSES;
+
+    public boolean isStrong() {
+        return this == STRONG;
+    }
+}
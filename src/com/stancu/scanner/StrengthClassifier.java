@@ -0,0 +1,52 @@
+package com.stancu.scanner;
+
+import com.stancu.constants.PasswordConstants;
+
+/*
+    Fast rejection for the callers that only need to know whether a password is strong. The length is checked before any
+    character is read, and the characters are read only until the first one that proves a violation: the third character
+    of a repeating sequence stops the scan. The missing cases are only proven at the end, so a password with all the cases
+    and no repeating sequence is read once, and the case of a character is not looked up anymore after all 3 cases were seen.
+    Nothing is kept between calls, so the methods are static and can be called from any thread.
+*/
+public final class StrengthClassifier {
+
+    private StrengthClassifier() {
+    }
+
+    public static Strength classify(CharSequence password) {
+        return classify(password, PasswordConstants.PASSWORD_MIN_LENGTH, PasswordConstants.PASSWORD_MAX_LENGTH);
+    }
+
+    public static Strength classify(CharSequence password, int minLength, int maxLength) {
+        int length = password.length();
+        if (length < minLength) {
+            return Strength.TOO_SHORT;
+        }
+        if (length > maxLength) {
+            return Strength.TOO_LONG;
+        }
+        int caseMask = PasswordScanner.NO_CASE;
+        char previousCharacter = 0;
+        int sequenceLength = 0;
+        for (int i = 0; i < length; i++) {
+            char character = password.charAt(i);
+            if (i > 0 && character == previousCharacter) {
+                if (++sequenceLength == 3) {
+                    return Strength.HAS_TRIPLE;
+                }
+            } else {
+                previousCharacter = character;
+                sequenceLength = 1;
+            }
+            if (caseMask != PasswordScanner.ALL_CASES) {
+                caseMask |= PasswordScanner.caseOf(character);
+            }
+        }
+        return caseMask == PasswordScanner.ALL_CASES ? Strength.STRONG : Strength.MISSING_CLASSES;
+    }
+
+    public static boolean isStrong(CharSequence password) {
+        return classify(password) == Strength.STRONG;
+    }
+}
@@ -0,0 +1,98 @@
+package com.stancu.scanner;
+
+import java.nio.ByteBuffer;
+
+/*
+    Helpers for the validators that read a password directly from its UTF-8 bytes (see Solution), so it does not have to be
+    decoded into a String and copied into a char array first.
+    An ASCII byte is looked up in a table of 256 character cases (the bytes over 127 are marked NOT_ASCII), which is
+    the same answer as PasswordScanner.caseOf without the Unicode lookups of Character. Only the other bytes are decoded.
+    A malformed sequence becomes one U+FFFD for its longest valid prefix (or for the single byte that can't start a
+    character), like the decoder of String does, so the bytes count exactly like new String(bytes, UTF_8).
+*/
+public final class Utf8 {
+
+    public static final int NOT_ASCII = -1;
+    public static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    private static final byte[] ASCII_CASES = new byte[256];
+
+    static {
+        for (int b = 0; b < ASCII_CASES.length; b++) {
+            ASCII_CASES[b] = (byte) (b < 0x80 ? PasswordScanner.caseOf((char) b) : NOT_ASCII);
+        }
+    }
+
+    private Utf8() {
+    }
+
+    //    The case of an ASCII byte (see PasswordScanner), or NOT_ASCII if the byte starts or continues a longer character
+    public static int asciiCaseOf(byte b) {
+        return ASCII_CASES[b & 0xFF];
+    }
+
+    /*
+        Decodes the character that starts at 'index' (and ends before 'end'). The result keeps the code point in the low
+        32 bits and the number of bytes that were read in the high ones (see codePointOf and byteCountOf), so the
+        decoding does not allocate anything.
+    */
+    public static long decode(ByteBuffer buffer, int index, int end) {
+        int lead = buffer.get(index) & 0xFF;
+        if (lead < 0x80) {
+            return decoded(lead, 1);
+        }
+        int byteCount;
+        int codePoint;
+        // The second byte of some leads has a smaller range, so there are no overlong forms and no code points over U+10FFFF
+        int secondMin = 0x80;
+        int secondMax = 0xBF;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            byteCount = 2;
+            codePoint = lead & 0x1F;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            byteCount = 3;
+            codePoint = lead & 0x0F;
+            if (lead == 0xE0)
+                secondMin = 0xA0;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            byteCount = 4;
+            codePoint = lead & 0x07;
+            if (lead == 0xF0)
+                secondMin = 0x90;
+            else if (lead == 0xF4)
+                secondMax = 0x8F;
+        } else {
+            return decoded(REPLACEMENT_CHARACTER, 1);
+        }
+
+        for (int i = 1; i < byteCount; i++) {
+            if (index + i >= end) {
+                return decoded(REPLACEMENT_CHARACTER, i);
+            }
+            int next = buffer.get(index + i) & 0xFF;
+            int min = i == 1 ? secondMin : 0x80;
+            int max = i == 1 ? secondMax : 0xBF;
+            if (next < min || next > max) {
+                return decoded(REPLACEMENT_CHARACTER, i);
+            }
+            codePoint = codePoint << 6 | (next & 0x3F);
+        }
+        // An encoded surrogate (from 0xED 0xA0) has a valid shape, so like String it is one malformed character of 3 bytes
+        if (Character.isSurrogate((char) codePoint) && byteCount == 3) {
+            return decoded(REPLACEMENT_CHARACTER, byteCount);
+        }
+        return decoded(codePoint, byteCount);
+    }
+
+    public static int codePointOf(long decoded) {
+        return (int) decoded;
+    }
+
+    public static int byteCountOf(long decoded) {
+        return (int) (decoded >>> 32);
+    }
+
+    private static long decoded(int codePoint, int byteCount) {
+        return (long) byteCount << 32 | codePoint;
+    }
+}
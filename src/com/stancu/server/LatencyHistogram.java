@@ -0,0 +1,20 @@
+package com.stancu.server;
+
+import com.stancu.metrics.ValueHistogram;
+
+/*
+    Histogram of latencies in microseconds, for the p50/p99 of the server and of the load generator (see ValueHistogram
+    for the buckets).
+*/
+public class LatencyHistogram extends ValueHistogram {
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", p50=" + percentile(0.5) + " us, p99=" + percentile(0.99) + " us, p999="
+                + percentile(0.999) + " us";
+    }
+}
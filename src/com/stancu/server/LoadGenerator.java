@@ -0,0 +1,118 @@
+package com.stancu.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Load generator for PasswordCheckServer. Every client is a thread that sends its next request as soon as it has the
+    answer of the previous one (over one kept-alive connection), for --duration seconds. With --batch 1 the requests go to
+    /check, otherwise to /check/batch with that many passwords. The passwords are generated once from --seed, with
+    repeating sequences and all lengths up to 40, so the requests don't measure the generator.
+    At the end it prints the checks per second, the latency seen by the clients, and the /stats of the server.
+
+    Usage: LoadGenerator [--url http://localhost:8080] [--clients 16] [--duration 10] [--batch 1000] [--seed 1]
+*/
+public class LoadGenerator {
+
+    private static final String ALPHABET = "abcABC123!.";
+    private static final int BODIES_PER_CLIENT = 64;
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:" + PasswordCheckServer.DEFAULT_PORT;
+        int clients = 16;
+        int durationSeconds = 10;
+        int batch = 1000;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url": url = args[i + 1]; break;
+                case "--clients": clients = Integer.parseInt(args[i + 1]); break;
+                case "--duration": durationSeconds = Integer.parseInt(args[i + 1]); break;
+                case "--batch": batch = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI target = URI.create(url + (batch == 1 ? "/check" : "/check/batch"));
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder checks = new LongAdder();
+        LongAdder errors = new LongAdder();
+        byte[][][] clientBodies = new byte[clients][][];
+        for (int c = 0; c < clients; c++) {
+            clientBodies[c] = generateBodies(new Random(seed * 1_000_003L + c), batch);
+        }
+        long start = System.nanoTime();
+        long end = start + Duration.ofSeconds(durationSeconds).toNanos();
+
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            byte[][] bodies = clientBodies[c];
+            int passwordsPerBody = batch;
+            threads[c] = new Thread(() -> {
+                for (int request = 0; System.nanoTime() < end; request++) {
+                    HttpRequest httpRequest = HttpRequest.newBuilder(target)
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(bodies[request % bodies.length])).build();
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+                        latency.recordNanos(System.nanoTime() - requestStart);
+                        if (response.statusCode() == 200) {
+                            checks.add(passwordsPerBody);
+                        } else {
+                            errors.increment();
+                        }
+                    } catch (IOException exception) {
+                        errors.increment();
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "load-client-" + c);
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d checks in %.1f s: %.0f checks/sec, %d requests, %d errors%n", checks.sum(), seconds,
+                checks.sum() / seconds, latency.getCount(), errors.sum());
+        System.out.println("client latency: " + latency);
+        HttpResponse<String> stats = client.send(HttpRequest.newBuilder(URI.create(url + "/stats")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        System.out.print("server " + stats.body());
+    }
+
+    private static byte[][] generateBodies(Random random, int passwordsPerBody) {
+        byte[][] bodies = new byte[BODIES_PER_CLIENT][];
+        for (int b = 0; b < bodies.length; b++) {
+            StringBuilder body = new StringBuilder();
+            for (int p = 0; p < passwordsPerBody; p++) {
+                int length = random.nextInt(41);
+                int passwordStart = body.length();
+                for (int i = 0; i < length; i++) {
+                    if (i > 0 && random.nextInt(3) == 0) {
+                        body.append(body.charAt(passwordStart + i - 1));
+                    } else {
+                        body.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                    }
+                }
+                if (passwordsPerBody > 1) {
+                    body.append('\n');
+                }
+            }
+            bodies[b] = body.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return bodies;
+    }
+}
@@ -0,0 +1,305 @@
+package com.stancu.server;
+
+import com.stancu.metrics.CheckerMetrics;
+import com.stancu.state.ScratchPool;
+import com.stancu.v3_faster_ideas.Solution;
+import com.stancu.v3_faster_ideas.StepCount;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+    HTTP server around the counting solution, on the HttpServer of the JDK (no dependencies):
+    - POST /check        the body is one password (a last "\n" or "\r\n" is not part of it), the answer is "steps,failedRules";
+    - POST /check/batch  the body has one password per line, the answer has one "steps,failedRules" line per password, in order;
+    - GET  /stats        the number of requests and the p50/p99 latency of both endpoints (see LatencyHistogram), and the
+                         metrics of the checks when they are enabled.
+    The failed rules are the bits of PasswordRules, like in the audit pipeline. The passwords are counted directly from the
+    UTF-8 bytes of the body (see Solution), and every request takes a reusable answer buffer from a pool and gives it back
+    at the end. A body of more than the maximum size (1 MB by default) is answered with 413 and is not read.
+    Solution only has final fields, so all the requests share one instance. Every request runs on its own virtual thread
+    when the JVM has them (Java 21+, looked up by reflection, because the build targets Java 17), otherwise on a fixed
+    pool of two threads per processor. HTTP/1.1 keeps the connections open, so a client can send its batches one after
+    another without reconnecting.
+    The metrics of the checks (see CheckerMetrics) are disabled unless the server runs with -Dcom.stancu.metrics=true,
+    then they are also registered in JMX as "com.stancu:type=CheckerMetrics,name=PasswordCheckServer".
+    The headers and the body of an answer are two writes, so with Nagle every answer would wait for the delayed ACK
+    (~40 ms). main() turns on sun.net.httpserver.nodelay, unless it is set; a program that embeds the server should set it
+    too, before the first HttpServer is created, since the property is global to the JVM.
+
+    Usage: PasswordCheckServer [port] [max body bytes]
+*/
+public class PasswordCheckServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    public static final int DEFAULT_MAX_BODY_BYTES = 1 << 20;
+
+    private static final int INITIAL_BUFFER_BYTES = 4096;
+    // A buffer that grew bigger than this for a huge batch is left to the GC instead of going back to the pool
+    private static final int MAX_POOLED_BUFFER_BYTES = 1 << 20;
+
+    private final Solution solution = new Solution();
+    // A ThreadLocal would get a new buffer for every virtual thread, so every request; the pool keeps a few of them
+    private final ScratchPool<ResponseBuffer> buffers = new ScratchPool<>(ResponseBuffer::new);
+    private final int maxBodyBytes;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LatencyHistogram checkLatency = new LatencyHistogram();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+    private final CheckerMetrics metrics = new CheckerMetrics();
+
+    public PasswordCheckServer(InetSocketAddress address) throws IOException {
+        this(address, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    public PasswordCheckServer(InetSocketAddress address, int maxBodyBytes) throws IOException {
+        // The last byte of the array is kept to see that a body is too big
+        if (maxBodyBytes < 1 || maxBodyBytes > Integer.MAX_VALUE - 16) {
+            throw new IllegalArgumentException("The maximum body size must be between 1 and " + (Integer.MAX_VALUE - 16)
+                    + " bytes, but it is " + maxBodyBytes);
+        }
+        this.maxBodyBytes = maxBodyBytes;
+        this.server = HttpServer.create(address, 0);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/check", this::handleCheck);
+        server.createContext("/check/batch", this::handleBatch);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    //    A virtual thread per request if the JVM has them, otherwise a fixed pool
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            return Executors.newFixedThreadPool(2 * Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public LatencyHistogram getCheckLatency() {
+        return checkLatency;
+    }
+
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    public CheckerMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void handleCheck(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            // The context "/check" also gets the paths under it that have no context of their own
+            if (!exchange.getRequestURI().getPath().equals("/check")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                return;
+            }
+            int length = body.length;
+            if (length > 0 && body[length - 1] == '\n') {
+                length--;
+                if (length > 0 && body[length - 1] == '\r') {
+                    length--;
+                }
+            }
+            ResponseBuffer buffer = buffers.acquire().clear();
+            try {
+                buffer.putResult(check(body, 0, length, buffer.count));
+                send(exchange, buffer);
+            } finally {
+                release(buffer);
+            }
+        } finally {
+            checkLatency.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            // Like "/check", the context "/check/batch" also gets the paths under it
+            if (!exchange.getRequestURI().getPath().equals("/check/batch")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                return;
+            }
+            ResponseBuffer buffer = buffers.acquire().clear();
+            try {
+                int lineStart = 0;
+                for (int i = 0; i < body.length; i++) {
+                    if (body[i] == '\n') {
+                        checkLine(body, lineStart, i, buffer);
+                        lineStart = i + 1;
+                    }
+                }
+                // The last line may have no newline
+                if (lineStart < body.length) {
+                    checkLine(body, lineStart, body.length, buffer);
+                }
+                send(exchange, buffer);
+            } finally {
+                release(buffer);
+            }
+        } finally {
+            batchLatency.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    //    Reads the body, or answers 413 and returns null if it is bigger than the maximum (it is never read past it)
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declared != null) {
+            try {
+                if (Long.parseLong(declared.trim()) > maxBodyBytes) {
+                    exchange.sendResponseHeaders(413, -1);
+                    return null;
+                }
+            } catch (NumberFormatException exception) {
+                exchange.sendResponseHeaders(400, -1);
+                return null;
+            }
+        }
+        // A chunked body has no length, so one byte more than the maximum is asked for
+        byte[] body = exchange.getRequestBody().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            exchange.sendResponseHeaders(413, -1);
+            return null;
+        }
+        return body;
+    }
+
+    private void release(ResponseBuffer buffer) {
+        if (buffer.bytes.length <= MAX_POOLED_BUFFER_BYTES) {
+            buffers.release(buffer);
+        }
+    }
+
+    private void checkLine(byte[] body, int lineStart, int lineEnd, ResponseBuffer buffer) {
+        if (lineEnd > lineStart && body[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+        buffer.putResult(check(body, lineStart, lineEnd - lineStart, buffer.count));
+    }
+
+    //    The StepCount already has the failed rules and the length, so the metrics only add the timing of the check
+    private StepCount check(byte[] body, int offset, int length, StepCount count) {
+        if (!metrics.isEnabled()) {
+            return solution.passwordChecker(body, offset, length, count);
+        }
+        long start = System.nanoTime();
+        solution.passwordChecker(body, offset, length, count);
+        metrics.record(count.getLength(), count.getSteps(), count.getFailedRules(), System.nanoTime() - start);
+        return count;
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String text = "check: " + checkLatency + "\nbatch: " + batchLatency + "\n";
+            if (metrics.isEnabled()) {
+                text += "metrics: " + metrics.snapshot() + "\n";
+            }
+            byte[] stats = text.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, stats.length);
+            exchange.getResponseBody().write(stats);
+        }
+    }
+
+    private static void send(HttpExchange exchange, ResponseBuffer buffer) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, buffer.size);
+        OutputStream body = exchange.getResponseBody();
+        body.write(buffer.bytes, 0, buffer.size);
+    }
+
+    //    The answer of one request, and the StepCount that the counting fills for every password
+    private static final class ResponseBuffer {
+
+        private final StepCount count = new StepCount();
+        private byte[] bytes = new byte[INITIAL_BUFFER_BYTES];
+        private int size;
+
+        private ResponseBuffer clear() {
+            size = 0;
+            return this;
+        }
+
+        private void putResult(StepCount result) {
+            // Two numbers of at most 10 digits, the comma and the newline
+            if (bytes.length - size < 32) {
+                byte[] bigger = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, bigger, 0, size);
+                bytes = bigger;
+            }
+            putDecimal(result.getSteps());
+            bytes[size++] = ',';
+            putDecimal(result.getFailedRules());
+            bytes[size++] = '\n';
+        }
+
+        //    Writes a non-negative number as ASCII digits, without building a String for it
+        private void putDecimal(int value) {
+            int divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                bytes[size++] = (byte) ('0' + value / divisor % 10);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, JMException {
+        // Before the first HttpServer is created, because it reads the property once (see the class comment)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxBodyBytes = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_BODY_BYTES;
+        PasswordCheckServer server = new PasswordCheckServer(new InetSocketAddress(port), maxBodyBytes);
+        if (Boolean.getBoolean("com.stancu.metrics")) {
+            server.getMetrics().setEnabled(true);
+            server.getMetrics().register("PasswordCheckServer");
+        }
+        server.start();
+        System.err.println("Listening on port " + server.getPort());
+    }
+}
@@ -0,0 +1,378 @@
+package com.stancu.session;
+
+import com.stancu.constants.PasswordConstants;
+import com.stancu.scanner.PasswordScanner;
+import com.stancu.v3_faster_ideas.Solution;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/*
+    The password of a signup form while it is typed. Every edit (append, backspace, insert at, delete at) updates the
+    values that the counting solution computes in its pass (see Solution): the length, how many characters every case has,
+    the replacements of the repeating sequences and the number of 3k and 3k+1 sequences. So the steps are the ones of
+    Solution.minimumSteps, in O(1), and the password is never scanned again.
+    The password is kept as its repeating sequences (runs), in a treap ordered by position, where every node knows how many
+    characters its subtree has. An edit splits the treap at its index (cutting a run in two if it is inside one), and joins
+    the parts back, fusing the two runs that meet if they have the same character, so an edit is O(log n) (expected).
+    Only the runs that are cut, fused, created or removed change the sums of the sequences.
+    A session is Serializable, so it can move between nodes: it is written as its limits and its runs, and the treap is
+    built again when it is read. The serialized form has the password in it, so it must be protected like the password.
+    A stream is not trusted: the limits are checked like in the constructor, and the runs must be the runs of a text (at
+    least 1 character each, never two of the same character in a row, and at most Integer.MAX_VALUE characters in total),
+    otherwise readObject throws InvalidObjectException.
+    A session is not thread-safe, but the keystrokes of one form come one after another.
+*/
+public class KeystrokeSession implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    // Solution counts a too short password as if it had at most one repeating sequence, which needs minLength <= 6
+    private static final int MAX_MIN_LENGTH = 6;
+
+    private final int minLength;
+    private final int maxLength;
+
+    private transient Solution solution;
+    private transient Run root;
+    private transient int length;
+    private transient int[] caseCounts;
+    private transient int replaceCount;
+    private transient int threeKSeq;
+    private transient int threeKPlusOneSeq;
+    private transient long priorityState;
+    // The two parts of the last split
+    private transient Run splitLeft;
+    private transient Run splitRight;
+
+    public KeystrokeSession() {
+        this(PasswordConstants.PASSWORD_MIN_LENGTH, PasswordConstants.PASSWORD_MAX_LENGTH);
+    }
+
+    //    The limits are the ones of Solution, so minLength must be at most 6
+    public KeystrokeSession(int minLength, int maxLength) {
+        String invalid = invalidLimits(minLength, maxLength);
+        if (invalid != null) {
+            throw new IllegalArgumentException(invalid);
+        }
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        initialize();
+    }
+
+    public KeystrokeSession(CharSequence password) {
+        this();
+        for (int i = 0; i < password.length(); i++) {
+            append(password.charAt(i));
+        }
+    }
+
+    //    Helper function which returns why the limits are invalid, or null if they are valid
+    private static String invalidLimits(int minLength, int maxLength) {
+        if (minLength < 0 || minLength > MAX_MIN_LENGTH) {
+            return "The minimum length must be between 0 and " + MAX_MIN_LENGTH + ", but it is " + minLength;
+        }
+        if (maxLength < minLength) {
+            return "Invalid length limits [" + minLength + ", " + maxLength + "]";
+        }
+        return null;
+    }
+
+    private void initialize() {
+        solution = new Solution(minLength, maxLength);
+        caseCounts = new int[3];
+    }
+
+    public void append(char character) {
+        insertAt(length, character);
+    }
+
+    //    Deletes the last character and returns it
+    public char backspace() {
+        if (length == 0) {
+            throw new IllegalStateException("The password is empty");
+        }
+        return deleteAt(length - 1);
+    }
+
+    public void insertAt(int index, char character) {
+        if (index < 0 || index > length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of the password of length " + length);
+        }
+        split(root, index);
+        Run before = splitLeft;
+        Run after = splitRight;
+        root = join(join(before, new Run(character, 1, nextPriority())), after);
+        length++;
+        countCase(character, 1);
+    }
+
+    //    Deletes the character at index and returns it
+    public char deleteAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of the password of length " + length);
+        }
+        split(root, index);
+        Run before = splitLeft;
+        split(splitRight, 1);
+        Run deleted = splitLeft;
+        Run after = splitRight;
+        countSequence(deleted.length, -1);
+        root = join(before, after);
+        length--;
+        countCase(deleted.character, -1);
+        return deleted.character;
+    }
+
+    //    The minimum steps of the current password, the same as Solution.passwordChecker would return for it
+    public int getSteps() {
+        int missingCases = 0;
+        for (int count : caseCounts) {
+            if (count == 0) {
+                missingCases++;
+            }
+        }
+        return solution.minimumSteps(length, missingCases, replaceCount, threeKSeq, threeKPlusOneSeq);
+    }
+
+    public boolean isStrong() {
+        return getSteps() == 0;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    //    The current password, built from the runs (O(n))
+    public String getPassword() {
+        StringBuilder builder = new StringBuilder(length);
+        appendRuns(root, builder);
+        return builder.toString();
+    }
+
+    private static void appendRuns(Run node, StringBuilder builder) {
+        if (node == null) {
+            return;
+        }
+        appendRuns(node.left, builder);
+        for (int i = 0; i < node.length; i++) {
+            builder.append(node.character);
+        }
+        appendRuns(node.right, builder);
+    }
+
+    private void countCase(char character, int sign) {
+        int characterCase = PasswordScanner.caseOf(character);
+        if (characterCase != PasswordScanner.NO_CASE) {
+            caseCounts[Integer.numberOfTrailingZeros(characterCase)] += sign;
+        }
+    }
+
+    //    Adds (sign 1) or removes (sign -1) the replacements and the 3k / 3k+1 sequence of a run, like Solution counts them
+    private void countSequence(int runLength, int sign) {
+        if (runLength < 3) {
+            return;
+        }
+        replaceCount += sign * (runLength / 3);
+        if (runLength % 3 == 0) {
+            threeKSeq += sign;
+        } else if (runLength % 3 == 1) {
+            threeKPlusOneSeq += sign;
+        }
+    }
+
+    //    The priorities only have to look random, so they are the steps of a SplitMix64 sequence
+    private int nextPriority() {
+        long z = priorityState += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31));
+    }
+
+    private static int size(Run node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Run node) {
+        node.size = size(node.left) + node.length + size(node.right);
+    }
+
+    /*
+        Splits the subtree into its first k characters (splitLeft) and the rest (splitRight). If the k-th character is
+        inside a run, the run is cut in two runs of the same character. The second one takes the priority of the first,
+        so the heap order stays valid.
+    */
+    private void split(Run node, int k) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        int leftSize = size(node.left);
+        if (k <= leftSize) {
+            split(node.left, k);
+            node.left = splitRight;
+            update(node);
+            splitRight = node;
+        } else if (k >= leftSize + node.length) {
+            split(node.right, k - leftSize - node.length);
+            node.right = splitLeft;
+            update(node);
+            splitLeft = node;
+        } else {
+            int offset = k - leftSize;
+            Run tail = new Run(node.character, node.length - offset, node.priority);
+            countSequence(node.length, -1);
+            countSequence(offset, 1);
+            countSequence(tail.length, 1);
+            node.length = offset;
+            tail.right = node.right;
+            node.right = null;
+            update(tail);
+            update(node);
+            splitLeft = node;
+            splitRight = tail;
+        }
+    }
+
+    //    Joins two treaps where every character of 'first' comes before the ones of 'second'
+    private static Run merge(Run first, Run second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority >= second.priority) {
+            first.right = merge(first.right, second);
+            update(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        update(second);
+        return second;
+    }
+
+    //    Same as merge, but if the last run of 'first' and the first run of 'second' have the same character, they become one
+    private Run join(Run first, Run second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        Run last = first;
+        while (last.right != null) {
+            last = last.right;
+        }
+        Run head = second;
+        while (head.left != null) {
+            head = head.left;
+        }
+        if (last.character == head.character) {
+            countSequence(last.length, -1);
+            countSequence(head.length, -1);
+            last.length += head.length;
+            countSequence(last.length, 1);
+            updateRightSpine(first);
+            second = removeFirst(second);
+        }
+        return merge(first, second);
+    }
+
+    //    The sizes on the path to the last run, after its length changed
+    private static void updateRightSpine(Run node) {
+        if (node.right != null) {
+            updateRightSpine(node.right);
+        }
+        update(node);
+    }
+
+    private static Run removeFirst(Run node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeFirst(node.left);
+        update(node);
+        return node;
+    }
+
+    //    The serialized form is the limits, the number of runs and every run as its character and its length
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(runCount(root));
+        writeRuns(root, out);
+    }
+
+    private static int runCount(Run node) {
+        return node == null ? 0 : runCount(node.left) + 1 + runCount(node.right);
+    }
+
+    private static void writeRuns(Run node, ObjectOutputStream out) throws IOException {
+        if (node == null) {
+            return;
+        }
+        writeRuns(node.left, out);
+        out.writeChar(node.character);
+        out.writeInt(node.length);
+        writeRuns(node.right, out);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        String invalid = invalidLimits(minLength, maxLength);
+        if (invalid != null) {
+            throw new InvalidObjectException(invalid);
+        }
+        initialize();
+        int runCount = in.readInt();
+        if (runCount < 0) {
+            throw new InvalidObjectException("The session has " + runCount + " runs");
+        }
+        for (int i = 0; i < runCount; i++) {
+            char character = in.readChar();
+            int runLength = in.readInt();
+            if (runLength < 1 || runLength > Integer.MAX_VALUE - length) {
+                throw new InvalidObjectException("A run of the session has the length " + runLength);
+            }
+            // join would fuse them, but a session never writes two runs of the same character in a row
+            if (i > 0 && lastRun(root).character == character) {
+                throw new InvalidObjectException("The runs " + (i - 1) + " and " + i + " of the session both have the"
+                        + " character " + (int) character);
+            }
+            countSequence(runLength, 1);
+            root = join(root, new Run(character, runLength, nextPriority()));
+            length += runLength;
+            countCase(character, runLength);
+        }
+    }
+
+    private static Run lastRun(Run node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    @Override
+    public String toString() {
+        return "KeystrokeSession{length=" + length + ", steps=" + getSteps() + "}";
+    }
+
+    //    A run of the same character, and the root of the subtree of the runs around it
+    private static final class Run {
+
+        private final char character;
+        private final int priority;
+        private int length;
+        private int size;
+        private Run left;
+        private Run right;
+
+        private Run(char character, int length, int priority) {
+            this.character = character;
+            this.length = length;
+            this.priority = priority;
+            this.size = length;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.stancu.state;
+
+import com.stancu.scanner.PasswordScanner;
+
+import java.util.Arrays;
+
+/*
+    Mutable password used by the repair loop of the validators. The old loop built a new String on every step
+    (substring concatenation when adding, a StringBuilder when changing) and then scanned it again for the repeating index
+    and the safe index.
+    Here the password is kept as a linked list of runs (a character and how many times it repeats), stored in parallel
+    arrays, together with the count of every character case. Adding, deleting or changing a character only splits,
+    shrinks or merges the runs around it, so no character is moved.
+    The runs that the loop chooses are kept in small priority queues ordered by position: one queue for every length
+    modulo 3 (only the runs with at least 3 characters) and one for every character case. A queue is not cleaned when a run
+    changes, instead the stale entries are dropped when they reach the top, so every operation costs O(log n) and the whole
+    repair loop costs O(n log n) instead of rebuilding and rescanning the password on every step.
+    The state is reusable (the arrays only grow), so it must not be shared between threads.
+*/
+public class PasswordState {
+
+    public static final int NO_RUN = -1;
+
+    // The distance between the positions of two neighbour runs after a reset. A new run takes the middle position.
+    private static final long ORDER_GAP = 1L << 32;
+
+    private static final int LOWER_CASE_SLOT = 0;
+    private static final int UPPER_CASE_SLOT = 1;
+    private static final int DIGIT_SLOT = 2;
+    private static final int NO_CASE_SLOT = 3;
+
+    private char[] runCharacter = new char[16];
+    private int[] runLength = new int[16];
+    private int[] previousRun = new int[16];
+    private int[] nextRun = new int[16];
+    // A run that is on the left of another run has a smaller order
+    private long[] runOrder = new long[16];
+    private int createdRuns;
+    private int firstRun = NO_RUN;
+    private int lastRun = NO_RUN;
+
+    private int length;
+    private int repeatingRuns;
+    private final int[] caseCounts = new int[4];
+
+    private final RunQueue[] moduloQueues = {new RunQueue(0), new RunQueue(1), new RunQueue(2)};
+    private final RunQueue[] caseQueues = {new RunQueue(-1), new RunQueue(-1), new RunQueue(-1), new RunQueue(-1)};
+
+    public PasswordState reset(CharSequence password) {
+        createdRuns = 0;
+        firstRun = NO_RUN;
+        lastRun = NO_RUN;
+        length = 0;
+        repeatingRuns = 0;
+        for (int slot = 0; slot < caseCounts.length; slot++) {
+            caseCounts[slot] = 0;
+            caseQueues[slot].clear();
+        }
+        for (RunQueue queue : moduloQueues) {
+            queue.clear();
+        }
+
+        int passwordLength = password.length();
+        int runStart = 0;
+        for (int i = 0; i < passwordLength; i++) {
+            char character = password.charAt(i);
+            if (i + 1 == passwordLength || password.charAt(i + 1) != character) {
+                int run = newRun(character, (long) createdRuns * ORDER_GAP);
+                link(lastRun, run);
+                resize(run, i + 1 - runStart);
+                runStart = i + 1;
+            }
+        }
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean hasCase(int characterCase) {
+        return caseCounts[slotOf(characterCase)] > 0;
+    }
+
+    public boolean containsProperCharCases() {
+        return caseCounts[LOWER_CASE_SLOT] > 0 && caseCounts[UPPER_CASE_SLOT] > 0 && caseCounts[DIGIT_SLOT] > 0;
+    }
+
+    public boolean hasRepeatingSequence() {
+        return repeatingRuns > 0;
+    }
+
+    public int firstRun() {
+        return firstRun;
+    }
+
+    public char characterOf(int run) {
+        return runCharacter[run];
+    }
+
+    /*
+        Same choice as repeatingIndex, but it returns the run instead of its index: the first 3k run, or the first 3k+1 run,
+        or the first 3k+2 run, or NO_RUN if there is no run with at least 3 characters.
+    */
+    public int repeatingRun() {
+        for (RunQueue queue : moduloQueues) {
+            int run = queue.peek();
+            if (run != NO_RUN) {
+                return run;
+            }
+        }
+        return NO_RUN;
+    }
+
+    /*
+        Same choice as findSafeIndex: the first run of a case that has at least 2 characters, otherwise the first run
+        without a case, otherwise the first run.
+    */
+    public int safeRun() {
+        int safeRun = NO_RUN;
+        for (int slot = LOWER_CASE_SLOT; slot <= DIGIT_SLOT; slot++) {
+            if (caseCounts[slot] >= 2) {
+                int run = caseQueues[slot].peek();
+                if (safeRun == NO_RUN || runOrder[run] < runOrder[safeRun]) {
+                    safeRun = run;
+                }
+            }
+        }
+        if (safeRun == NO_RUN) {
+            safeRun = caseQueues[NO_CASE_SLOT].peek();
+        }
+        return safeRun == NO_RUN ? firstRun : safeRun;
+    }
+
+    //    Adds a character before the first character of the password
+    public void insertAtStart(char character) {
+        mergeAround(insertRunAfter(NO_RUN, character, 1));
+    }
+
+    //    Adds a character before the character 'offset' of the run
+    public void insert(int run, int offset, char character) {
+        int previous = offset == 0 ? previousRun[run] : split(run, offset);
+        mergeAround(insertRunAfter(previous, character, 1));
+    }
+
+    //    Changes the character 'offset' of the run with another character
+    public void replace(int run, int offset, char character) {
+        int previous = offset == 0 ? previousRun[run] : split(run, offset);
+        int changedRun = offset == 0 ? run : nextRun[previous];
+        // The changed character is the first one of its run, so I shrink the run and put the new character before it
+        resize(changedRun, runLength[changedRun] - 1);
+        if (runLength[changedRun] == 0) {
+            unlink(changedRun);
+        }
+        mergeAround(insertRunAfter(previous, character, 1));
+    }
+
+    //    Deletes one character of the run (all the characters of a run are the same, so it does not matter which one)
+    public void delete(int run) {
+        resize(run, runLength[run] - 1);
+        if (runLength[run] == 0) {
+            int previous = previousRun[run];
+            unlink(run);
+            // The neighbours of a deleted run can have the same character, and then they become one run
+            if (previous != NO_RUN) {
+                mergeAround(previous);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(length);
+        for (int run = firstRun; run != NO_RUN; run = nextRun[run]) {
+            for (int i = 0; i < runLength[run]; i++) {
+                builder.append(runCharacter[run]);
+            }
+        }
+        return builder.toString();
+    }
+
+    //    Splits the run so that it keeps its first 'offset' characters, and returns it
+    private int split(int run, int offset) {
+        int tailLength = runLength[run] - offset;
+        if (tailLength > 0) {
+            resize(run, offset);
+            insertRunAfter(run, runCharacter[run], tailLength);
+        }
+        return run;
+    }
+
+    //    Merges the run with its neighbours, if they have the same character
+    private void mergeAround(int run) {
+        int previous = previousRun[run];
+        if (previous != NO_RUN && runCharacter[previous] == runCharacter[run]) {
+            int mergedLength = runLength[previous] + runLength[run];
+            unlink(run);
+            resize(previous, mergedLength);
+            run = previous;
+        }
+        int next = nextRun[run];
+        if (next != NO_RUN && runCharacter[next] == runCharacter[run]) {
+            int mergedLength = runLength[run] + runLength[next];
+            unlink(next);
+            resize(run, mergedLength);
+        }
+    }
+
+    private int insertRunAfter(int previous, char character, int characterCount) {
+        int next = previous == NO_RUN ? firstRun : nextRun[previous];
+        if (!hasOrderBetween(previous, next)) {
+            renumber();
+        }
+        long lower = previous == NO_RUN ? (next == NO_RUN ? 0 : runOrder[next] - 2 * ORDER_GAP) : runOrder[previous];
+        long upper = next == NO_RUN ? lower + 2 * ORDER_GAP : runOrder[next];
+        int run = newRun(character, lower + (upper - lower) / 2);
+        link(previous, run);
+        resize(run, characterCount);
+        return run;
+    }
+
+    private boolean hasOrderBetween(int previous, int next) {
+        return previous == NO_RUN || next == NO_RUN || runOrder[next] - runOrder[previous] >= 2;
+    }
+
+    /*
+        Gives the runs their starting distance again. It is needed only after many characters were added at the same place,
+        and because the stale entries of the queues keep their old orders, I build the queues again.
+    */
+    private void renumber() {
+        for (RunQueue queue : moduloQueues) {
+            queue.clear();
+        }
+        for (RunQueue queue : caseQueues) {
+            queue.clear();
+        }
+        long order = 0;
+        for (int run = firstRun; run != NO_RUN; run = nextRun[run]) {
+            runOrder[run] = order;
+            order += ORDER_GAP;
+            caseQueues[slotOf(runCharacter[run])].add(run);
+            if (runLength[run] >= 3) {
+                moduloQueues[runLength[run] % 3].add(run);
+            }
+        }
+    }
+
+    private int newRun(char character, long order) {
+        if (createdRuns == runLength.length) {
+            int capacity = createdRuns * 2;
+            runCharacter = Arrays.copyOf(runCharacter, capacity);
+            runLength = Arrays.copyOf(runLength, capacity);
+            previousRun = Arrays.copyOf(previousRun, capacity);
+            nextRun = Arrays.copyOf(nextRun, capacity);
+            runOrder = Arrays.copyOf(runOrder, capacity);
+        }
+        int run = createdRuns++;
+        runCharacter[run] = character;
+        runLength[run] = 0;
+        runOrder[run] = order;
+        caseQueues[slotOf(character)].add(run);
+        return run;
+    }
+
+    //    Puts the run after 'previous' in the list (or at the start, if previous is NO_RUN)
+    private void link(int previous, int run) {
+        int next = previous == NO_RUN ? firstRun : nextRun[previous];
+        previousRun[run] = previous;
+        nextRun[run] = next;
+        if (previous == NO_RUN) {
+            firstRun = run;
+        } else {
+            nextRun[previous] = run;
+        }
+        if (next == NO_RUN) {
+            lastRun = run;
+        } else {
+            previousRun[next] = run;
+        }
+    }
+
+    private void unlink(int run) {
+        resize(run, 0);
+        int previous = previousRun[run];
+        int next = nextRun[run];
+        if (previous == NO_RUN) {
+            firstRun = next;
+        } else {
+            nextRun[previous] = next;
+        }
+        if (next == NO_RUN) {
+            lastRun = previous;
+        } else {
+            previousRun[next] = previous;
+        }
+    }
+
+    //    Every change of a run length goes through here, so the length, the case counters and the queues stay correct
+    private void resize(int run, int newLength) {
+        int oldLength = runLength[run];
+        if (oldLength >= 3) {
+            repeatingRuns--;
+        }
+        if (newLength >= 3) {
+            repeatingRuns++;
+            if (oldLength < 3 || oldLength % 3 != newLength % 3) {
+                moduloQueues[newLength % 3].add(run);
+            }
+        }
+        caseCounts[slotOf(runCharacter[run])] += newLength - oldLength;
+        length += newLength - oldLength;
+        runLength[run] = newLength;
+    }
+
+    private static int slotOf(char character) {
+        return slotOf(PasswordScanner.caseOf(character));
+    }
+
+    private static int slotOf(int characterCase) {
+        if (characterCase == PasswordScanner.LOWER_CASE) {
+            return LOWER_CASE_SLOT;
+        }
+        if (characterCase == PasswordScanner.UPPER_CASE) {
+            return UPPER_CASE_SLOT;
+        }
+        if (characterCase == PasswordScanner.DIGIT) {
+            return DIGIT_SLOT;
+        }
+        return NO_CASE_SLOT;
+    }
+
+    /*
+        Binary heap of runs ordered by their position. A modulo queue keeps only the runs with at least 3 characters and
+        that length modulo 3 (modulo -1 keeps every run that is still in the password).
+    */
+    private final class RunQueue {
+
+        private final int modulo;
+        private int[] heap = new int[16];
+        private int size;
+
+        private RunQueue(int modulo) {
+            this.modulo = modulo;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private void add(int run) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (runOrder[heap[parent]] <= runOrder[run]) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = run;
+        }
+
+        //    Returns the first run that still belongs to this queue, dropping the stale ones on the way
+        private int peek() {
+            while (size > 0 && !belongs(heap[0])) {
+                removeTop();
+            }
+            return size > 0 ? heap[0] : NO_RUN;
+        }
+
+        private boolean belongs(int run) {
+            int length = runLength[run];
+            if (modulo == -1) {
+                return length > 0;
+            }
+            return length >= 3 && length % 3 == modulo;
+        }
+
+        private void removeTop() {
+            int last = heap[--size];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && runOrder[heap[child + 1]] < runOrder[heap[child]]) {
+                    child++;
+                }
+                if (runOrder[last] <= runOrder[heap[child]]) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = last;
+        }
+    }
+}
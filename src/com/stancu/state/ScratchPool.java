@@ -0,0 +1,65 @@
+package com.stancu.state;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/*
+    Small lock-free pool of reusable scratch objects (a scanner, a PasswordState...), so one validator instance can be
+    shared by any number of threads: every call takes a scratch object for itself and gives it back at the end.
+    A ThreadLocal would keep one object per thread forever, and with a virtual thread per request that is one new object
+    per request; the pool keeps at most a few objects per processor, whatever the number of threads.
+    The slots are tried from the one of the current thread, so the threads rarely meet on the same slot. If all the
+    tried slots are empty a new object is created, and if they are all full a returned object is left to the GC, so the
+    pool never blocks. After the first calls, taking and giving back an object does not allocate anything.
+*/
+public final class ScratchPool<T> {
+
+    private static final int PROBES = 4;
+
+    private final Supplier<? extends T> factory;
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    public ScratchPool(Supplier<? extends T> factory) {
+        this(factory, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public ScratchPool(Supplier<? extends T> factory, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The pool must have at least 1 slot, but it has " + capacity);
+        }
+        int slotCount = Integer.highestOneBit(capacity - 1) << 1;
+        this.factory = factory;
+        this.slots = new AtomicReferenceArray<>(Math.max(1, slotCount));
+        this.mask = slots.length() - 1;
+    }
+
+    public T acquire() {
+        int start = firstSlot();
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            T scratch = slots.get(slot);
+            if (scratch != null && slots.compareAndSet(slot, scratch, null)) {
+                return scratch;
+            }
+        }
+        return factory.get();
+    }
+
+    public void release(T scratch) {
+        int start = firstSlot();
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, scratch)) {
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private int firstSlot() {
+        // Thread.getId is deprecated for threadId() from Java 19, but the build targets Java 17
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) * 0x9E3779B9 >>> 16;
+    }
+}
@@ -1,21 +1,32 @@
 package com.stancu.v1;
 
 import com.stancu.constants.PasswordConstants;
+import com.stancu.scanner.PasswordScanner;
+import com.stancu.scanner.StrengthClassifier;
+import com.stancu.state.PasswordState;
+import com.stancu.state.ScratchPool;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 
 /*
     The base idea of my algorithm is that I construct a strong password as I calculate the minimum steps. Even if it is a much slower
     algorithm, it is a lot easier to debug, and in case I want to add the functionality of recommended password, I can return
-    that password.
+    that password. That functionality is now PasswordRecommender, which plans the steps on the repeating sequences and
+    writes the recommended password in one pass, so this version only prints the password it builds.
     The second version(refactored) of the algorithm keeps some values that are used multiple times in the upper part of the function , so I don't recalculate them.
     Not the best version, I could add dynamic programming for calculating the subsets and only calculating on them
 **/
 public class PasswordValidator {
 
+    /*
+        The reusable scanner and PasswordState are taken from a pool for every call (see ScratchPool), so one instance
+        can be shared by any number of threads, and a check does not allocate anything once the pool is warm.
+        The factory is a plain class and not Scratch::new, so the command line checker does not bootstrap a method
+        reference at its start (see PasswordCheckCli).
+    */
+    private final ScratchPool<Scratch> scratchPool = new ScratchPool<>(new ScratchFactory());
+
     //    Helper function which checks if password has min length
     public boolean checkMinLength(String password) {
         return password.length() < PasswordConstants.PASSWORD_MIN_LENGTH;
@@ -28,40 +39,42 @@ public class PasswordValidator {
 
     //    Helper function which checks if password contains lower case character
     public boolean containsLowerCase(String password) {
-        Predicate<Character> isLower = Character::isLowerCase;
-        for (Character character : password.toCharArray()) {
-            if (isLower.test(character)) {
-                return true;
-            }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).hasCase(PasswordScanner.LOWER_CASE);
+        } finally {
+            scratchPool.release(scratch);
         }
-        return false;
     }
 
     // Helper function which checks if password contains upper case character
     public boolean containsUpperCase(String password) {
-        Predicate<Character> isUpper = Character::isUpperCase;
-        for (Character character : password.toCharArray()) {
-            if (isUpper.test(character)) {
-                return true;
-            }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).hasCase(PasswordScanner.UPPER_CASE);
+        } finally {
+            scratchPool.release(scratch);
         }
-        return false;
     }
 
     //    Helper function which checks if password contains digit character
     public boolean containsDigit(String password) {
-        Predicate<Character> isDigit = Character::isDigit;
-        for (Character character : password.toCharArray()) {
-            if (isDigit.test(character)) {
-                return true;
-            }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).hasCase(PasswordScanner.DIGIT);
+        } finally {
+            scratchPool.release(scratch);
         }
-        return false;
     }
 
     //    Helper functions which combines the 3 functions above
     public boolean containsProperCharCases(String password) {
-        return containsDigit(password) && containsLowerCase(password) && containsUpperCase(password);
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).containsProperCharCases();
+        } finally {
+            scratchPool.release(scratch);
+        }
     }
 
     /*  This function is used for adding a character. I have a dummy 'Z'. I check if my string has any lowercase
@@ -70,14 +83,39 @@ public class PasswordValidator {
         so that I don't raise the probability of having 3 or more repeating characters.
     */
     public Character chooseBestCharacter(String password, int index) {
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return chooseBestCharacter(scratch.scanner.scan(password), password, index);
+        } finally {
+            scratchPool.release(scratch);
+        }
+    }
+
+    //    Same function as above, but it uses the cases from a scan that I already have for this password
+    private char chooseBestCharacter(PasswordScanner scan, String password, int index) {
 
         char dummy = 'Z';
-        if (!containsLowerCase(password)) {
+        if (!scan.hasCase(PasswordScanner.LOWER_CASE)) {
             dummy = 'z';
-        } else if (!containsDigit(password)) {
+        } else if (!scan.hasCase(PasswordScanner.DIGIT)) {
             dummy = '9';
         }
-        if (password.toCharArray()[index] == dummy) {
+        if (index < password.length() && password.charAt(index) == dummy) {
+            dummy = 'Y';
+        }
+        return dummy;
+    }
+
+    //    Same function as above, for the password that is repaired in place. The character at index is the one of the run.
+    private char chooseBestCharacter(PasswordState state, int run) {
+
+        char dummy = 'Z';
+        if (!state.hasCase(PasswordScanner.LOWER_CASE)) {
+            dummy = 'z';
+        } else if (!state.hasCase(PasswordScanner.DIGIT)) {
+            dummy = '9';
+        }
+        if (run != PasswordState.NO_RUN && state.characterOf(run) == dummy) {
             dummy = 'Y';
         }
         return dummy;
@@ -85,8 +123,17 @@ public class PasswordValidator {
 
     //    This function adds at index 'index' the dummy character.
     public String addCharacter(String password, int index) {
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return addCharacter(scratch.scanner.scan(password), password, index);
+        } finally {
+            scratchPool.release(scratch);
+        }
+    }
+
+    private String addCharacter(PasswordScanner scan, String password, int index) {
         // I choose the best character that fits my password
-        Character characterToBeAdded = chooseBestCharacter(password, index);
+        char characterToBeAdded = chooseBestCharacter(scan, password, index);
         return password.substring(0, index) + characterToBeAdded + password.substring(index);
     }
 
@@ -95,7 +142,16 @@ public class PasswordValidator {
        I use a StringBuilder for appending so that I don't create another string for each append(strings are immutable)
     */
     public String changeCharacter(String password, int index) {
-        char characterToBeReplacedWith = chooseBestCharacter(password, index);
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return changeCharacter(scratch.scanner.scan(password), password, index);
+        } finally {
+            scratchPool.release(scratch);
+        }
+    }
+
+    private String changeCharacter(PasswordScanner scan, String password, int index) {
+        char characterToBeReplacedWith = chooseBestCharacter(scan, password, index);
         StringBuilder builder = new StringBuilder();
         for (int characterIndex = 0; characterIndex < password.length(); characterIndex++) {
             if (characterIndex == index) {
@@ -109,75 +165,15 @@ public class PasswordValidator {
         Splits password into partitions. (Their reunion is the password and all the subsets are disjoint)
         Here I used a bit of math. 3 repeating characters mean number 3 , which means regarding modulo
         only 3 values 0 , 1 , 2
-        Here I waste a lot of time because it recalculates my partitions. I could only calculate them once and in the calculated value.
+        The partitions are the run-length table of the scanner, so I don't build a list of substrings anymore.
     */
     public int repeatingIndex(String password) {
-        List<String> partitions = new ArrayList<>();
-        int previousSplit = 0;
-        //    here is the logic for the partition of repeating characters
-        for (int i = 1; i < password.length(); i++) {
-            /*
-                Checks whether is the same character as previous, and if it fails the test, I add the substring
-                to the partitions list, and I set previousSplit to the current index, so that the next partition will
-                start at index "i".
-             */
-            if (password.toCharArray()[i - 1] != password.toCharArray()[i]) {
-                String substring = password.substring(previousSplit, i);
-                partitions.add(substring);
-                previousSplit = i;
-            }
-        }
-
-        /*
-            I need this line because the last pair or the last element will not be added to the partitions
-            because the "i" counter will not match the condition (i < password.length())
-        */
-        partitions.add(password.substring(previousSplit));
-
-        // Here I see which is the max length for a partition
-        int maxLength = Integer.MIN_VALUE;
-        for (String partition : partitions) {
-            if (partition.length() > maxLength) {
-                maxLength = partition.length();
-            }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).repeatingIndex();
+        } finally {
+            scratchPool.release(scratch);
         }
-        /*
-            If there is no partition with length >=3, then It means there are no repeating substrings,
-            therefore I return -1.
-         */
-        if (maxLength < 3) {
-            return -1;
-        }
-        int mod1Index = -1;
-        int mod2Index = -1;
-        int currentIndex = 0;
-        for (String partition : partitions) {
-            int length = partition.length();
-            // If the length of the partition is less than 3, then it is not a repeating sequence, and I just move the index.
-            if (length < 3) {
-                currentIndex += length;
-                continue;
-            }
-            //
-            if (length % 3 == 0) {
-                return currentIndex;
-            }
-            if (length % 3 == 1 && mod1Index == -1) {
-                mod1Index = currentIndex;
-            }
-            if (length % 3 == 2 && mod2Index == -1) {
-                mod2Index = currentIndex;
-            }
-            // Aici sar la urmatoarea partitie
-            currentIndex += length;
-        }
-        if (mod1Index > -1) {
-            return mod1Index;
-        }
-        if (mod2Index > -1) {
-            return mod2Index;
-        }
-        return 0;
     }
 
     /*
@@ -188,87 +184,79 @@ public class PasswordValidator {
          the password when I delete it.
      */
     public int findSafeIndex(String password) {
-        for (int i = 0; i < password.length(); i++) {
-            char currentPasswordCharacter = password.toCharArray()[i];
-            // Here I construct the truncated password without the index i
-            String truncatedPassword = password.substring(0, i) + password.substring(i + 1);
-            if (Character.isDigit(currentPasswordCharacter) && containsDigit(truncatedPassword)) {
-                return i;
-            }
-            if (Character.isLowerCase(currentPasswordCharacter) && containsLowerCase(truncatedPassword)) {
-                return i;
-            }
-            if (Character.isUpperCase(currentPasswordCharacter) && containsUpperCase(truncatedPassword)) {
-                return i;
-            }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).safeIndex();
+        } finally {
+            scratchPool.release(scratch);
         }
-        return 0;
     }
 
-    //    This function checks whether the password is a strong one
+    /*
+        This function checks whether the password is a strong one. The classifier checks the length before it reads
+        the password, and it stops at the third character of the first repeating sequence (see StrengthClassifier).
+    */
     public boolean isStrongPassword(String password) {
+        return StrengthClassifier.isStrong(password);
+    }
 
-        //   Firstly, I check for the min length
-        if (checkMinLength(password)) {
-            return false;
-        }
-        // Secondly, I check for the max length
-        if (checkMaxLength(password)) {
-            return false;
-        }
-        // After that, I check if the password has any substring of repeating characters
-        if (repeatingIndex(password) > -1) {
-            return false;
-        }
-        // And lastly, I check if the password has the characters with the proper casings
-        return containsProperCharCases(password);
+    private boolean isStrongPassword(PasswordState state) {
+        return state.length() >= PasswordConstants.PASSWORD_MIN_LENGTH && state.length() <= PasswordConstants.PASSWORD_MAX_LENGTH
+                && !state.hasRepeatingSequence() && state.containsProperCharCases();
     }
 
+    /*
+        The password is repaired in place (see PasswordState), so a step does not build a new string and does not scan it again.
+        The indexes of the old loop become runs: the repeating index + 2 is the third character of the repeating run,
+        and the safe index is the first character of the safe run.
+    */
     public int strongPasswordChecker(String password) {
-        int steps = 0;
-        while (true) {
-            // Here I find the first repeating index.
-            int repeatIndex = repeatingIndex(password);
-            // I firstly check if my password has lower lengths that minimum
-            if (checkMinLength(password)) {
-                int index = 0;
-                // I check whether I find repeating characters
-                if (repeatIndex > -1) {
-                    index = repeatIndex + 2;
-                }
-                // I add a character to the password to close the gap to the proper length, and the character that I add is a properly chosen one.(See in add_character function)
-                password = addCharacter(password, index);
-            } else if (checkMaxLength(password)) {
-                // Same logic as above, but I find a safe index to delete
-                int index = findSafeIndex(password);
-                if (repeatIndex > -1) {
-                    index = repeatIndex + 2;
+        Scratch scratch = scratchPool.acquire();
+        try {
+            PasswordState state = scratch.state.reset(password);
+            int steps = 0;
+            while (!isStrongPassword(state)) {
+                // Here I find the first repeating run.
+                int repeatRun = state.repeatingRun();
+                // I firstly check if my password has lower lengths that minimum
+                if (state.length() < PasswordConstants.PASSWORD_MIN_LENGTH) {
+                    // I add a character to the password to close the gap to the proper length, and the character that I add is a properly chosen one.
+                    if (repeatRun != PasswordState.NO_RUN) {
+                        state.insert(repeatRun, 2, chooseBestCharacter(state, repeatRun));
+                    } else {
+                        state.insertAtStart(chooseBestCharacter(state, state.firstRun()));
+                    }
+                } else if (state.length() > PasswordConstants.PASSWORD_MAX_LENGTH) {
+                    // Same logic as above, but I delete from the repeating run, or from the safe run
+                    state.delete(repeatRun != PasswordState.NO_RUN ? repeatRun : state.safeRun());
+                } else if (repeatRun != PasswordState.NO_RUN) {
+                    // If it exists a repeating sequence, I change the third character of it
+                    state.replace(repeatRun, 2, chooseBestCharacter(state, repeatRun));
+                } else {
+                    int safeRun = state.safeRun();
+                    state.replace(safeRun, 0, chooseBestCharacter(state, safeRun));
                 }
-                // I return the password without the find safe index.
-                password = password.substring(0, index) + password.substring(index + 1);
-            } else {
-                // If none of the above map to my password, it can be the case that my password is a string one, so I check that
-                if (isStrongPassword(password)) {
-                    System.out.println(password);
-                    break;
-                }
-                // Finds safe index for character changing
-                int index = findSafeIndex(password);
-
-                // If it exists a repeating sequence, I move the index at the end of the repeating 3
-                if (repeatIndex > -1) {
-                    index = repeatIndex + 2;
-                }
-                // I change the character at index "index"
-                password = changeCharacter(password, index);
-            }
-            // The minimum steps to be increased
-            steps += 1;
-            if (isStrongPassword(password)) {
-                System.out.println(password);
-                break;
+                steps += 1;
             }
+            System.out.println(state);
+            return steps;
+        } finally {
+            scratchPool.release(scratch);
+        }
+    }
+
+    private static final class Scratch {
+
+        private final PasswordScanner scanner = new PasswordScanner();
+        // The password that strongPasswordChecker repairs in place (see PasswordState)
+        private final PasswordState state = new PasswordState();
+    }
+
+    private static final class ScratchFactory implements Supplier<Scratch> {
+
+        @Override
+        public Scratch get() {
+            return new Scratch();
         }
-        return steps;
     }
 }
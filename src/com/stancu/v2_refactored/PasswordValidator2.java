@@ -1,10 +1,13 @@
 package com.stancu.v2_refactored;
 
 import com.stancu.constants.PasswordConstants;
+import com.stancu.engine.StepCounter;
+import com.stancu.scanner.PasswordScanner;
+import com.stancu.scanner.StrengthClassifier;
+import com.stancu.state.PasswordState;
+import com.stancu.state.ScratchPool;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 
 /*
@@ -12,7 +15,15 @@ import java.util.function.Predicate;
     algorithm, it is a lot easier to debug, and in case I want to add the functionality of recommended password, I can return
     that password.
 */
-public class PasswordValidator2 {
+public class PasswordValidator2 implements StepCounter {
+
+    /*
+        The reusable scanner and PasswordState are taken from a pool for every call (see ScratchPool), so one instance
+        can be shared by any number of threads, and a check does not allocate anything once the pool is warm.
+        The factory is a plain class and not Scratch::new, so the command line checker does not bootstrap a method
+        reference at its start (see PasswordCheckCli).
+    */
+    private final ScratchPool<Scratch> scratchPool = new ScratchPool<>(new ScratchFactory());
 
     //    Helper function which checks if password has min length
     public boolean checkMinLength(String password) {
@@ -26,52 +37,32 @@ public class PasswordValidator2 {
 
     //    Helper function which checks if password contains lower case character
     public boolean containsLowerCase(String password) {
-        Predicate<Character> isLower = Character::isLowerCase;
-        for (Character character : password.toCharArray()) {
-            if (isLower.test(character)) {
-                return true;
-            }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).hasCase(PasswordScanner.LOWER_CASE);
+        } finally {
+            scratchPool.release(scratch);
         }
-        return false;
     }
 
     // Helper function which checks if password contains upper case character
     public boolean containsUpperCase(String password) {
-        Predicate<Character> isUpper = Character::isUpperCase;
-        for (Character character : password.toCharArray()) {
-            if (isUpper.test(character)) {
-                return true;
-            }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).hasCase(PasswordScanner.UPPER_CASE);
+        } finally {
+            scratchPool.release(scratch);
         }
-        return false;
     }
 
     //    Helper function which checks if password contains digit character
     public boolean containsDigit(String password) {
-        Predicate<Character> isDigit = Character::isDigit;
-        for (Character character : password.toCharArray()) {
-            if (isDigit.test(character)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    //    Helper functions which combines the 3 functions above
-    private boolean containsProperCharCases(String s) {
-        boolean hasUpper = false, hasLower = false, hasDigit = false;
-        for (Character character : s.toCharArray()) {
-            if (!hasDigit && Character.isDigit(character))
-                hasDigit = true;
-            if (!hasUpper && Character.isUpperCase(character))
-                hasUpper = true;
-            if (!hasLower && Character.isLowerCase(character))
-                hasLower = true;
-
-            if (hasLower && hasUpper && hasDigit)
-                return true;
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).hasCase(PasswordScanner.DIGIT);
+        } finally {
+            scratchPool.release(scratch);
         }
-        return false;
     }
 
     private int convertToInt(Boolean b) {
@@ -85,14 +76,38 @@ public class PasswordValidator2 {
         so that I don't raise the probability of having 3 or more repeating characters.
     */
     public Character chooseBestCharacter(String password, int index) {
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return chooseBestCharacter(scratch.scanner.scan(password), password, index);
+        } finally {
+            scratchPool.release(scratch);
+        }
+    }
+
+    private char chooseBestCharacter(PasswordScanner scan, String password, int index) {
+
+        char dummy = 'Z';
+        if (!scan.hasCase(PasswordScanner.LOWER_CASE)) {
+            dummy = 'z';
+        } else if (!scan.hasCase(PasswordScanner.DIGIT)) {
+            dummy = '9';
+        }
+        if (index < password.length() && password.charAt(index) == dummy) {
+            dummy = 'Y';
+        }
+        return dummy;
+    }
+
+    //    Same function as above, for the password that is repaired in place. The character at index is the one of the run.
+    private char chooseBestCharacter(PasswordState state, int run) {
 
         char dummy = 'Z';
-        if (!containsLowerCase(password)) {
+        if (!state.hasCase(PasswordScanner.LOWER_CASE)) {
             dummy = 'z';
-        } else if (!containsDigit(password)) {
+        } else if (!state.hasCase(PasswordScanner.DIGIT)) {
             dummy = '9';
         }
-        if (password.toCharArray()[index] == dummy) {
+        if (run != PasswordState.NO_RUN && state.characterOf(run) == dummy) {
             dummy = 'Y';
         }
         return dummy;
@@ -100,8 +115,17 @@ public class PasswordValidator2 {
 
     //    This function adds at index 'index' the dummy character.
     public String addCharacter(String password, int index) {
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return addCharacter(scratch.scanner.scan(password), password, index);
+        } finally {
+            scratchPool.release(scratch);
+        }
+    }
+
+    private String addCharacter(PasswordScanner scan, String password, int index) {
         // I choose the best character that fits my password
-        Character toBeAdded = chooseBestCharacter(password, index);
+        char toBeAdded = chooseBestCharacter(scan, password, index);
         return password.substring(0, index) + toBeAdded + password.substring(index);
     }
 
@@ -109,7 +133,16 @@ public class PasswordValidator2 {
        I use a StringBuilder for appending so that I don't create another string for each append(strings are immutable)
     */
     public String changeCharacter(String password, int index) {
-        char toBeAdded = chooseBestCharacter(password, index);
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return changeCharacter(scratch.scanner.scan(password), password, index);
+        } finally {
+            scratchPool.release(scratch);
+        }
+    }
+
+    private String changeCharacter(PasswordScanner scan, String password, int index) {
+        char toBeAdded = chooseBestCharacter(scan, password, index);
         StringBuilder builder = new StringBuilder();
         for (int i = 0; i < password.length(); i++) {
             if (i == index) {
@@ -125,69 +158,12 @@ public class PasswordValidator2 {
         only 3 values 0 , 1 , 2
     */
     public int repeatingIndex(String password) {
-        List<String> partitions = new ArrayList<>();
-        int previousSplit = 0;
-        //    here is the logic for the partition of repeating characters
-        for (int i = 1; i < password.length(); i++) {
-            /*
-                Checks whether is the same character as previous, and if it fails the test, I add the substring
-                to the partitions list, and I set previousSplit to the current index, so that the next partition will
-                start at index "i".
-             */
-            if (password.toCharArray()[i - 1] != password.toCharArray()[i]) {
-                String substring = password.substring(previousSplit, i);
-                partitions.add(substring);
-                previousSplit = i;
-            }
-        }
-
-        /*
-            I need this line because the last pair or the last element will not be added to the partitions
-            because the "i" counter will not match the condition (i < password.length())
-        */
-        partitions.add(password.substring(previousSplit));
-
-        // Here I see which is the max length for a partition
-        int maxLength = Integer.MIN_VALUE;
-        for (String partition : partitions) {
-            if (partition.length() > maxLength) {
-                maxLength = partition.length();
-            }
-        }
-        /*
-            If there is no partition with length >=3, then It means there are no repeating substrings,
-            therefore I return -1.
-         */
-        if (maxLength < 3) {
-            return -1;
-        }
-        int mod1Index = -1;
-        int mod2Index = -1;
-        int index = 0;
-        for (String partition : partitions) {
-            int length = partition.length();
-            if (length < 3) {
-                index += length;
-                continue;
-            }
-            if (length % 3 == 0) {
-                return index;
-            }
-            if (length % 3 == 1 && mod1Index == -1) {
-                mod1Index = index;
-            }
-            if (length % 3 == 2 && mod2Index == -1) {
-                mod2Index = index;
-            }
-            index += length;
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).repeatingIndex();
+        } finally {
+            scratchPool.release(scratch);
         }
-        if (mod1Index > -1) {
-            return mod1Index;
-        }
-        if (mod2Index > -1) {
-            return mod2Index;
-        }
-        return 0;
     }
 
     /*
@@ -198,70 +174,84 @@ public class PasswordValidator2 {
          the password when I delete it.
      */
     public int findSafeIndex(String password) {
-        for (int i = 0; i < password.length(); i++) {
-            char currentPasswordCharacter = password.toCharArray()[i];
-            // Here I construct the truncated password without the index i
-            String truncatedPassword = password.substring(0, i) + password.substring(i + 1);
-            if (Character.isDigit(currentPasswordCharacter) && containsDigit(truncatedPassword)) {
-                return i;
-            }
-            if (Character.isLowerCase(currentPasswordCharacter) && containsLowerCase(truncatedPassword)) {
-                return i;
-            }
-            if (Character.isUpperCase(currentPasswordCharacter) && containsUpperCase(truncatedPassword)) {
-                return i;
-            }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            return scratch.scanner.scan(password).safeIndex();
+        } finally {
+            scratchPool.release(scratch);
         }
-        return 0;
     }
 
+    //    Only the repeating sequences and the cases are checked here, so the classifier gets no length limits
     public boolean isStrongPasswordEnough(String password) {
+        return StrengthClassifier.classify(password, 0, Integer.MAX_VALUE).isStrong();
+    }
 
-        if (repeatingIndex(password) > -1) {
-            return false;
-        }
-        return containsProperCharCases(password);
+    private boolean isStrongPasswordEnough(PasswordState state) {
+        return !state.hasRepeatingSequence() && state.containsProperCharCases();
     }
 
+    /*
+        The password is repaired in place (see PasswordState), so a step does not build a new string and does not scan it again.
+        The indexes of the old loop become runs: the repeating index + 2 is the third character of the repeating run,
+        and the safe index is the first character of the safe run.
+    */
     public int strongPasswordChecker(String password) {
-        int steps = 0;
-        while (true) {
-            // Here I find the first repeating index.
-            int repeatIndex = repeatingIndex(password);
-            int safeIndex = findSafeIndex(password);
-            // I firstly check if my password has lower lengths that minimum
-            if (checkMinLength(password)) {
-                int index = 0;
-                // I check whether I find repeating characters
-                if (repeatIndex > -1) {
-                    index = repeatIndex + 2;
-                }
-                // I add a character to the password to close the gap to the proper length, and the character that I add is a properly chosen one.(See in add_character function)
-                password = addCharacter(password, index);
-            } else if (checkMaxLength(password)) {
-                // Same logic as above, but I find a safe index to delete
-                if (repeatIndex > -1) {
-                    safeIndex = repeatIndex + 2;
-                }
-                // I return the password without the find safe index.
-                password = password.substring(0, safeIndex) + password.substring(safeIndex + 1);
-            } else {
-                // If none of the above map to my password, it can be the case that my password is a string one, so I check that
-                if (isStrongPasswordEnough(password)) {
-                    break;
-                }
-                // finds safe index
-                if (repeatIndex > -1) {
-                    safeIndex = repeatIndex + 2;
-                }
-                password = changeCharacter(password, safeIndex);
-                if (isStrongPasswordEnough(password)) {
-                    steps += 1;
-                    break;
+        // A strong password needs no steps, and the classifier finds it without taking a scratch from the pool
+        if (StrengthClassifier.isStrong(password)) {
+            return 0;
+        }
+        Scratch scratch = scratchPool.acquire();
+        try {
+            PasswordState state = scratch.state.reset(password);
+            int steps = 0;
+            while (state.length() < PasswordConstants.PASSWORD_MIN_LENGTH || state.length() > PasswordConstants.PASSWORD_MAX_LENGTH
+                    || !isStrongPasswordEnough(state)) {
+                // Here I find the first repeating run.
+                int repeatRun = state.repeatingRun();
+                // I firstly check if my password has lower lengths that minimum
+                if (state.length() < PasswordConstants.PASSWORD_MIN_LENGTH) {
+                    // I add a character to the password to close the gap to the proper length, and the character that I add is a properly chosen one.
+                    if (repeatRun != PasswordState.NO_RUN) {
+                        state.insert(repeatRun, 2, chooseBestCharacter(state, repeatRun));
+                    } else {
+                        state.insertAtStart(chooseBestCharacter(state, state.firstRun()));
+                    }
+                } else if (state.length() > PasswordConstants.PASSWORD_MAX_LENGTH) {
+                    // Same logic as above, but I delete from the repeating run, or from the safe run
+                    state.delete(repeatRun != PasswordState.NO_RUN ? repeatRun : state.safeRun());
+                } else if (repeatRun != PasswordState.NO_RUN) {
+                    // If it exists a repeating sequence, I change the third character of it
+                    state.replace(repeatRun, 2, chooseBestCharacter(state, repeatRun));
+                } else {
+                    int safeRun = state.safeRun();
+                    state.replace(safeRun, 0, chooseBestCharacter(state, safeRun));
                 }
+                steps += 1;
             }
-            steps += 1;
+            return steps;
+        } finally {
+            scratchPool.release(scratch);
+        }
+    }
+
+    @Override
+    public int countSteps(String password) {
+        return strongPasswordChecker(password);
+    }
+
+    private static final class Scratch {
+
+        private final PasswordScanner scanner = new PasswordScanner();
+        // The password that strongPasswordChecker repairs in place (see PasswordState)
+        private final PasswordState state = new PasswordState();
+    }
+
+    private static final class ScratchFactory implements Supplier<Scratch> {
+
+        @Override
+        public Scratch get() {
+            return new Scratch();
         }
-        return steps;
     }
 }
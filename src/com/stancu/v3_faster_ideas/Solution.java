@@ -1,6 +1,14 @@
 package com.stancu.v3_faster_ideas;
 
-public class Solution {
+import com.stancu.constants.PasswordConstants;
+import com.stancu.constants.PasswordRules;
+import com.stancu.engine.StepCounter;
+import com.stancu.scanner.PasswordScanner;
+import com.stancu.scanner.Utf8;
+
+import java.nio.ByteBuffer;
+
+public class Solution implements StepCounter {
 
     /*
         Another idea would to have an initial split method that I call the first time, before I enter the main loop.
@@ -18,42 +26,211 @@ public class Solution {
         what characters I can add there
         Below I have a some sort of implementation of it
     */
-    private static final int MIN_LENGTH = 6;
-    private static final int MAX_LENGTH = 20;
+    private final int minLength;
+    private final int maxLength;
+
+    public Solution() {
+        this(PasswordConstants.PASSWORD_MIN_LENGTH, PasswordConstants.PASSWORD_MAX_LENGTH);
+    }
+
+    //    The length limits are final fields, so a policy with other limits (see PasswordPolicy) gets its own instance.
+    //    A too short password is counted as if it had at most one repeating sequence, so minLength must be at most 6.
+    public Solution(int minLength, int maxLength) {
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+    }
 
+    /*
+        The counting is done in a single pass over the password and nothing is allocated, because I only read the characters
+        with charAt. I keep the 3 character cases as flags, and for every sequence of repeating characters I count how many
+        replacements it would need (length / 3). Besides that, I count the 3k sequences (one deletion saves a replacement)
+        and the 3k+1 sequences (two deletions save a replacement), the rest of the sequences need three deletions for one replacement.
+    */
     public int passwordChecker(String password) {
+        return count(password, null);
+    }
 
-        int insertCount = 0, deleteCount = 0;
-        int threeKSeq = 0;
-        int notThreeKSeq = 0;
+    //    Same counting, but it also fills the failed rules and the length of the password in 'result'
+    public StepCount passwordChecker(String password, StepCount result) {
+        count(password, result);
+        return result;
+    }
 
-        if (password.length() < MIN_LENGTH)
-            insertCount = MIN_LENGTH - password.length();
-        else if (password.length() > MAX_LENGTH)
-            deleteCount = password.length() - MAX_LENGTH;
+    /*
+        Same counting for a password that is still in UTF-8 bytes (for example a line of a mapped file or an HTTP body), so it
+        does not have to be decoded into a String and copied first. The buffer position is not changed.
+        The ASCII bytes get their case from a table (see Utf8), and only the other characters are decoded. The length and the
+        repeating sequences are counted in UTF-16 characters, so the result is the one of the String with the same bytes:
+        a character over U+FFFF is two characters, and it never repeats (its surrogates are always different neighbours).
+    */
+    public StepCount passwordChecker(ByteBuffer buffer, int offset, int length, StepCount result) {
+        count(buffer, offset, length, result);
+        return result;
+    }
+
+    public int passwordChecker(byte[] bytes, int offset, int length) {
+        return count(ByteBuffer.wrap(bytes), offset, length, null);
+    }
 
-        char currentIndex = password.toCharArray()[0];
-        int sequenceLength = 1;
+    public StepCount passwordChecker(byte[] bytes, int offset, int length, StepCount result) {
+        count(ByteBuffer.wrap(bytes), offset, length, result);
+        return result;
+    }
 
-        for (int currentIndexPassword = 1; currentIndexPassword < password.length(); currentIndexPassword++) {
+    private int count(ByteBuffer buffer, int offset, int length, StepCount result) {
+        int caseMask = PasswordScanner.NO_CASE;
+        int replaceCount = 0;
+        int threeKSeq = 0;
+        int threeKPlusOneSeq = 0;
 
-            while (currentIndexPassword < password.length() &&
-                    currentIndex == password.toCharArray()[currentIndexPassword]) {
+        int end = offset + length;
+        int characterCount = 0;
+        // -1 is never equal to a character, so the first character (and the one after a supplementary one) starts a sequence
+        int previousCharacter = -1;
+        int sequenceLength = 0;
+        int index = offset;
+        while (index < end) {
+            byte currentByte = buffer.get(index);
+            int currentCharacter;
+            int characterCase = Utf8.asciiCaseOf(currentByte);
+            if (characterCase != Utf8.NOT_ASCII) {
+                currentCharacter = currentByte;
+                index++;
+            } else {
+                long decoded = Utf8.decode(buffer, index, end);
+                currentCharacter = Utf8.codePointOf(decoded);
+                index += Utf8.byteCountOf(decoded);
+                characterCase = Character.isBmpCodePoint(currentCharacter)
+                        ? PasswordScanner.caseOf((char) currentCharacter) : PasswordScanner.NO_CASE;
+            }
+            caseMask |= characterCase;
+
+            if (currentCharacter == previousCharacter) {
                 sequenceLength++;
-                currentIndexPassword++;
+                characterCount++;
+                continue;
+            }
+            // The sequence of the previous character ends here
+            if (sequenceLength >= 3) {
+                replaceCount += sequenceLength / 3;
+                if (sequenceLength % 3 == 0)
+                    threeKSeq++;
+                else if (sequenceLength % 3 == 1)
+                    threeKPlusOneSeq++;
             }
+            if (Character.isBmpCodePoint(currentCharacter)) {
+                previousCharacter = currentCharacter;
+                sequenceLength = 1;
+                characterCount++;
+            } else {
+                previousCharacter = -1;
+                sequenceLength = 0;
+                characterCount += 2;
+            }
+        }
+        if (sequenceLength >= 3) {
+            replaceCount += sequenceLength / 3;
+            if (sequenceLength % 3 == 0)
+                threeKSeq++;
+            else if (sequenceLength % 3 == 1)
+                threeKPlusOneSeq++;
+        }
+        return finish(characterCount, (caseMask & PasswordScanner.LOWER_CASE) != 0, (caseMask & PasswordScanner.UPPER_CASE) != 0,
+                (caseMask & PasswordScanner.DIGIT) != 0, replaceCount, threeKSeq, threeKPlusOneSeq, result);
+    }
+
+    private int count(String password, StepCount result) {
+        int length = password.length();
+        boolean hasLower = false, hasUpper = false, hasDigit = false;
+        int replaceCount = 0;
+        int threeKSeq = 0;
+        int threeKPlusOneSeq = 0;
 
-            if (sequenceLength % 3 == 0) {
-                threeKSeq += sequenceLength / 3;
-            } else if (sequenceLength != 1 && sequenceLength != 2)
-                notThreeKSeq += sequenceLength / 3;
+        int sequenceStart = 0;
+        for (int currentIndexPassword = 0; currentIndexPassword < length; currentIndexPassword++) {
+            char currentCharacter = password.charAt(currentIndexPassword);
+            if (!hasLower && Character.isLowerCase(currentCharacter))
+                hasLower = true;
+            else if (!hasUpper && Character.isUpperCase(currentCharacter))
+                hasUpper = true;
+            else if (!hasDigit && Character.isDigit(currentCharacter))
+                hasDigit = true;
 
-            if (currentIndexPassword < password.length())
-                currentIndex = password.toCharArray()[currentIndexPassword];
-            sequenceLength = 1;
+            // The sequence ends at the last character, or when the next character is different
+            if (currentIndexPassword + 1 == length || password.charAt(currentIndexPassword + 1) != currentCharacter) {
+                int sequenceLength = currentIndexPassword + 1 - sequenceStart;
+                if (sequenceLength >= 3) {
+                    replaceCount += sequenceLength / 3;
+                    if (sequenceLength % 3 == 0)
+                        threeKSeq++;
+                    else if (sequenceLength % 3 == 1)
+                        threeKPlusOneSeq++;
+                }
+                sequenceStart = currentIndexPassword + 1;
+            }
         }
+        return finish(length, hasLower, hasUpper, hasDigit, replaceCount, threeKSeq, threeKPlusOneSeq, result);
+    }
+
+    private int finish(int length, boolean hasLower, boolean hasUpper, boolean hasDigit, int replaceCount, int threeKSeq,
+                       int threeKPlusOneSeq, StepCount result) {
+        int missingCases = (hasLower ? 0 : 1) + (hasUpper ? 0 : 1) + (hasDigit ? 0 : 1);
+        int steps = minimumSteps(length, missingCases, replaceCount, threeKSeq, threeKPlusOneSeq);
+        if (result != null) {
+            int failedRules = 0;
+            if (length < minLength)
+                failedRules |= PasswordRules.TOO_SHORT;
+            else if (length > maxLength)
+                failedRules |= PasswordRules.TOO_LONG;
+            if (replaceCount > 0)
+                failedRules |= PasswordRules.REPEATING_CHARACTERS;
+            if (!hasLower)
+                failedRules |= PasswordRules.MISSING_LOWER_CASE;
+            if (!hasUpper)
+                failedRules |= PasswordRules.MISSING_UPPER_CASE;
+            if (!hasDigit)
+                failedRules |= PasswordRules.MISSING_DIGIT;
+            result.set(steps, failedRules, length);
+        }
+        return steps;
+    }
+
+    /*
+        Here I add the values from above and get the final result.
+        If the password is too short, the insertions can also break the repeating sequences and add the missing cases
+        (a short password has at most one sequence of 3, 4 or 5 characters).
+        If the password has a proper length, every replacement can also add a missing case.
+        If the password is too long, I must do the deletions anyway, so I spend them where they save the most replacements:
+        firstly one per 3k sequence, then two per 3k+1 sequence, and the rest of them three per replacement.
+    */
+    public int minimumSteps(int length, int missingCases, int replaceCount, int threeKSeq, int threeKPlusOneSeq) {
+        if (length < minLength)
+            return Math.max(minLength - length, missingCases);
+        if (length <= maxLength)
+            return Math.max(replaceCount, missingCases);
+
+        int deleteCount = length - maxLength;
+        int remainingDeletions = deleteCount;
+
+        int usedDeletions = Math.min(remainingDeletions, threeKSeq);
+        replaceCount -= usedDeletions;
+        remainingDeletions -= usedDeletions;
+
+        usedDeletions = Math.min(remainingDeletions, threeKPlusOneSeq * 2);
+        replaceCount -= usedDeletions / 2;
+        remainingDeletions -= usedDeletions;
+
+        replaceCount -= Math.min(replaceCount, remainingDeletions / 3);
+        return deleteCount + Math.max(replaceCount, missingCases);
+    }
+
+    @Override
+    public int countSteps(String password) {
+        return passwordChecker(password);
+    }
 
-    //        Here I would have to add some values from above and get the final result
-        return 1;
+    @Override
+    public int countSteps(byte[] utf8, int offset, int length) {
+        return passwordChecker(utf8, offset, length);
     }
-}
\ No newline at end of file
+}
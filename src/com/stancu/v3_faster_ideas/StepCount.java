@@ -0,0 +1,42 @@
+package com.stancu.v3_faster_ideas;
+
+import com.stancu.constants.PasswordRules;
+
+/*
+    Result of the counting solution when the caller needs more than the steps: which rules the password fails
+    (see PasswordRules) and its length. It is mutable, so a caller that checks many passwords can reuse one instance
+    and the counting stays allocation free.
+*/
+public class StepCount {
+
+    private int steps;
+    private int failedRules;
+    private int length;
+
+    void set(int steps, int failedRules, int length) {
+        this.steps = steps;
+        this.failedRules = failedRules;
+        this.length = length;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public int getFailedRules() {
+        return failedRules;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean isStrong() {
+        return failedRules == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "StepCount{steps=" + steps + ", failedRules=" + PasswordRules.describe(failedRules) + ", length=" + length + "}";
+    }
+}
@@ -0,0 +1,131 @@
+package com.stancu.vector;
+
+import com.stancu.engine.StepCounter;
+import com.stancu.scanner.PasswordScanner;
+import com.stancu.v3_faster_ideas.Solution;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+    The counting solution for long passwords, one vector of characters at a time instead of one character.
+    For every block of LANES characters I load s[i], s[i + 1] and s[i + 2] as three vectors:
+    - s[i] != s[i + 1] are the ends of the sequences, and a block without any end is inside one sequence, so it is skipped;
+    - s[i] == s[i + 1] == s[i + 2] are the starts of 3 repeating characters. Without any of them, only the sequence that was
+      open at the start of the block can be long enough to count, so I only read its end and the last end of the block;
+    - the range compares 'a'..'z', 'A'..'Z' and '0'..'9' build the class bitmask, until it has all the classes. The
+      characters over 127 are checked one by one with Character, like in Solution.
+    The rest of the password (less than a block) and the short passwords are counted by the scalar loop, and the steps
+    come from Solution.minimumSteps, so the result is always the one of Solution.
+    The characters are copied into a reusable array, so one instance must not be used by two threads at the same time.
+*/
+public class VectorSolution implements StepCounter {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    // Shorter passwords don't fill enough blocks to pay for the copy, so they are counted by Solution directly
+    private static final int MIN_VECTOR_LENGTH = 4 * LANES;
+
+    private final Solution solution;
+    private char[] characters = new char[MIN_VECTOR_LENGTH];
+
+    private int replaceCount;
+    private int threeKSeq;
+    private int threeKPlusOneSeq;
+
+    public VectorSolution() {
+        this(new Solution());
+    }
+
+    public VectorSolution(Solution solution) {
+        this.solution = solution;
+    }
+
+    public static int lanes() {
+        return LANES;
+    }
+
+    @Override
+    public int countSteps(String password) {
+        int length = password.length();
+        if (length < MIN_VECTOR_LENGTH) {
+            return solution.passwordChecker(password);
+        }
+        if (characters.length < length) {
+            characters = new char[Math.max(length, characters.length * 2)];
+        }
+        char[] s = characters;
+        password.getChars(0, length, s, 0);
+        replaceCount = 0;
+        threeKSeq = 0;
+        threeKPlusOneSeq = 0;
+
+        int caseMask = PasswordScanner.NO_CASE;
+        int sequenceStart = 0;
+        int i = 0;
+        for (; i + LANES + 2 <= length; i += LANES) {
+            ShortVector current = ShortVector.fromCharArray(SPECIES, s, i);
+            ShortVector next = ShortVector.fromCharArray(SPECIES, s, i + 1);
+            if (caseMask != PasswordScanner.ALL_CASES) {
+                caseMask |= caseMaskOf(current, s, i);
+            }
+
+            VectorMask<Short> same = current.eq(next);
+            long ends = same.not().toLong();
+            if (ends == 0) {
+                continue;
+            }
+            ShortVector afterNext = ShortVector.fromCharArray(SPECIES, s, i + 2);
+            if (!same.and(next.eq(afterNext)).anyTrue()) {
+                int firstEnd = i + Long.numberOfTrailingZeros(ends);
+                closeSequence(firstEnd + 1 - sequenceStart);
+                sequenceStart = i + Long.SIZE - Long.numberOfLeadingZeros(ends);
+                continue;
+            }
+            while (ends != 0) {
+                int end = i + Long.numberOfTrailingZeros(ends);
+                closeSequence(end + 1 - sequenceStart);
+                sequenceStart = end + 1;
+                ends &= ends - 1;
+            }
+        }
+
+        for (; i < length; i++) {
+            caseMask |= PasswordScanner.caseOf(s[i]);
+            if (i + 1 == length || s[i + 1] != s[i]) {
+                closeSequence(i + 1 - sequenceStart);
+                sequenceStart = i + 1;
+            }
+        }
+        int missingCases = 3 - Integer.bitCount(caseMask);
+        return solution.minimumSteps(length, missingCases, replaceCount, threeKSeq, threeKPlusOneSeq);
+    }
+
+    //    The classes of the block: the ASCII ones from range compares, the others from Character (see PasswordScanner.caseOf)
+    private static int caseMaskOf(ShortVector block, char[] s, int offset) {
+        int caseMask = PasswordScanner.NO_CASE;
+        if (block.compare(VectorOperators.GE, (short) 'a').and(block.compare(VectorOperators.LE, (short) 'z')).anyTrue())
+            caseMask |= PasswordScanner.LOWER_CASE;
+        if (block.compare(VectorOperators.GE, (short) 'A').and(block.compare(VectorOperators.LE, (short) 'Z')).anyTrue())
+            caseMask |= PasswordScanner.UPPER_CASE;
+        if (block.compare(VectorOperators.GE, (short) '0').and(block.compare(VectorOperators.LE, (short) '9')).anyTrue())
+            caseMask |= PasswordScanner.DIGIT;
+        long nonAscii = block.compare(VectorOperators.UNSIGNED_GT, (short) 127).toLong();
+        while (nonAscii != 0) {
+            caseMask |= PasswordScanner.caseOf(s[offset + Long.numberOfTrailingZeros(nonAscii)]);
+            nonAscii &= nonAscii - 1;
+        }
+        return caseMask;
+    }
+
+    private void closeSequence(int sequenceLength) {
+        if (sequenceLength >= 3) {
+            replaceCount += sequenceLength / 3;
+            if (sequenceLength % 3 == 0)
+                threeKSeq++;
+            else if (sequenceLength % 3 == 1)
+                threeKPlusOneSeq++;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.stancu.verification;
+
+import com.stancu.breach.BreachIndexBuilder;
+import com.stancu.breach.BreachListFormat;
+import com.stancu.breach.BreachScreen;
+import com.stancu.breach.ScreenedStepCounter;
+import com.stancu.v2_refactored.PasswordValidator2;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/*
+    Checks the breach indexes built by BreachIndexBuilder from generated lists, in a temporary directory:
+    - the list has --passwords distinct passwords, a third of them written again further on (so the duplicates land in
+      different runs of the sorted index, which are small here), "\r\n" line ends, empty lines, lines that are not valid
+      UTF-8, and no newline at the end;
+    - the builder must count every non-empty line, and the sorted index must have exactly one entry per distinct line,
+      so the merge drops the duplicates across the runs;
+    - every listed password must be found by the Bloom filter alone and by the filter with the sorted index (no false
+      negatives);
+    - the same number of passwords that are not listed must be rejected by the filter with the sorted index, and the
+      filter alone may only accept them at about its false positive rate (at most 1.5 times --fpp);
+    - with the sorted index, ScreenedStepCounter must count the steps of the validator, and at least BREACHED_STEPS for
+      every listed password;
+    - the list written as SHA1_HEX lines (in any case, some with a count) must give the same answers.
+    The exit code is 1 if a check fails.
+
+    Usage: BreachIndexCheck [--passwords 300000] [--fpp 0.01] [--run 4096] [--seed 1]
+*/
+public class BreachIndexCheck {
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!.";
+    private static final byte[][] INVALID_UTF8 = {{(byte) 0xFF, 'a'}, {'p', (byte) 0xC3}, {(byte) 0xE9, 't', (byte) 0xE9},
+            {(byte) 0x80, (byte) 0x80, '1'}};
+
+    public static void main(String[] args) throws IOException {
+        int count = 300_000;
+        double falsePositiveRate = 0.01;
+        int runLongs = 4096;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--passwords": count = Integer.parseInt(args[i + 1]); break;
+                case "--fpp": falsePositiveRate = Double.parseDouble(args[i + 1]); break;
+                case "--run": runLongs = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        Random random = new Random(seed);
+        Set<String> all = new HashSet<>();
+        List<String> listed = new ArrayList<>(count);
+        List<String> unlisted = new ArrayList<>(count);
+        while (listed.size() < count || unlisted.size() < count) {
+            String password = randomPassword(random);
+            if (all.add(password)) {
+                (listed.size() < count && random.nextBoolean() || unlisted.size() == count ? listed : unlisted).add(password);
+            }
+        }
+
+        Path directory = Files.createTempDirectory("breach-check");
+        boolean passed = true;
+        try {
+            Path list = directory.resolve("list.txt");
+            long lines = writePasswords(list, listed, random);
+            passed &= check("passwords", BreachListFormat.PASSWORDS, list, directory, lines,
+                    listed.size() + INVALID_UTF8.length, listed, unlisted, falsePositiveRate, runLongs);
+            Path hexList = directory.resolve("list-sha1.txt");
+            long hexLines = writeHashes(hexList, listed, random);
+            passed &= check("sha1_hex", BreachListFormat.SHA1_HEX, hexList, directory, hexLines, listed.size(),
+                    listed, unlisted, falsePositiveRate, runLongs);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean check(String name, BreachListFormat format, Path list, Path directory, long lines,
+                                 long distinct, List<String> listed, List<String> unlisted, double falsePositiveRate,
+                                 int runLongs) throws IOException {
+        Path bloomFile = directory.resolve(name + ".bloom");
+        Path sortedFile = directory.resolve(name + ".sorted");
+        long entries = new BreachIndexBuilder(format, falsePositiveRate, 0, runLongs).build(list, bloomFile, sortedFile);
+        BreachScreen bloomOnly = BreachScreen.open(bloomFile);
+        BreachScreen exact = BreachScreen.open(bloomFile, sortedFile);
+        long sortedEntries = exact.getSortedIndex().getEntries();
+
+        long falseNegatives = 0;
+        for (String password : listed) {
+            if (!bloomOnly.isBreached(password) || !exact.isBreached(password)) {
+                falseNegatives++;
+            }
+        }
+        long falsePositives = 0;
+        long exactFalsePositives = 0;
+        for (String password : unlisted) {
+            if (bloomOnly.isBreached(password)) {
+                falsePositives++;
+            }
+            if (exact.isBreached(password)) {
+                exactFalsePositives++;
+            }
+        }
+        ScreenedStepCounter screened = new ScreenedStepCounter(new PasswordValidator2(), exact);
+        PasswordValidator2 validator = new PasswordValidator2();
+        long wrongSteps = 0;
+        for (String password : listed) {
+            int steps = validator.countSteps(password);
+            wrongSteps += screened.countSteps(password) == Math.max(steps, ScreenedStepCounter.BREACHED_STEPS) ? 0 : 1;
+        }
+        for (String password : unlisted) {
+            wrongSteps += screened.countSteps(password) == validator.countSteps(password) ? 0 : 1;
+        }
+        double rate = (double) falsePositives / unlisted.size();
+        boolean passed = entries == lines && sortedEntries == distinct && falseNegatives == 0 && exactFalsePositives == 0
+                && rate <= 1.5 * falsePositiveRate && wrongSteps == 0;
+        System.out.printf("%s: %d lines indexed (expected %d), %d sorted entries (expected %d distinct), %d false negatives,"
+                        + " false positive rate %.4f of the filter (%.4f expected), %d with the sorted index, %d wrong"
+                        + " screened steps: %s%n", name, entries, lines, sortedEntries, distinct, falseNegatives, rate,
+                bloomOnly.getBloomFilter().getFalsePositiveRate(), exactFalsePositives, wrongSteps,
+                passed ? "passed" : "FAILED");
+        return passed;
+    }
+
+    //    Writes the list of passwords and returns its number of non-empty lines
+    private static long writePasswords(Path list, List<String> passwords, Random random) throws IOException {
+        long lines = 0;
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(list), 1 << 16)) {
+            for (int i = 0; i < passwords.size(); i++) {
+                lines += writeLine(output, passwords.get(i).getBytes(StandardCharsets.UTF_8), random);
+                // The duplicates come a third of the list later, far from the first time in another run
+                if (i >= passwords.size() / 3 && i % 3 == 0) {
+                    lines += writeLine(output, passwords.get(i - passwords.size() / 3).getBytes(StandardCharsets.UTF_8),
+                            random);
+                }
+                if (i % (passwords.size() / INVALID_UTF8.length + 1) == 0) {
+                    // Every line which is not valid UTF-8 is written twice too
+                    byte[] invalid = INVALID_UTF8[i / (passwords.size() / INVALID_UTF8.length + 1)];
+                    lines += writeLine(output, invalid, random) + writeLine(output, invalid, random);
+                }
+            }
+            output.write("last-line-without-newline".getBytes(StandardCharsets.UTF_8));
+            passwords.add("last-line-without-newline");
+            lines++;
+        }
+        return lines;
+    }
+
+    //    Writes the SHA-1 of every password in hexadecimal, and returns the number of lines
+    private static long writeHashes(Path list, List<String> passwords, Random random) throws IOException {
+        MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-1 is not available", exception);
+        }
+        long lines = 0;
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(list), 1 << 16)) {
+            for (String password : passwords) {
+                StringBuilder line = new StringBuilder(50);
+                for (byte value : sha1.digest(password.getBytes(StandardCharsets.UTF_8))) {
+                    line.append(Character.forDigit(value >> 4 & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+                }
+                String hex = random.nextBoolean() ? line.toString().toUpperCase() : line.toString();
+                if (random.nextInt(4) == 0) {
+                    hex += ":" + (1 + random.nextInt(1000));
+                }
+                lines += writeLine(output, hex.getBytes(StandardCharsets.US_ASCII), random);
+            }
+        }
+        return lines;
+    }
+
+    //    Helper function which writes a line with "\n" or "\r\n", sometimes followed by an empty line, and returns 1
+    private static int writeLine(OutputStream output, byte[] line, Random random) throws IOException {
+        output.write(line);
+        output.write(random.nextInt(4) == 0 ? new byte[]{'\r', '\n'} : new byte[]{'\n'});
+        if (random.nextInt(50) == 0) {
+            output.write('\n');
+        }
+        return 1;
+    }
+
+    private static String randomPassword(Random random) {
+        int length = 4 + random.nextInt(13);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,196 @@
+package com.stancu.verification;
+
+import com.stancu.batch.ColumnarPasswordBatch;
+import com.stancu.v3_faster_ideas.Solution;
+import com.stancu.v3_faster_ideas.StepCount;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+    Checks ColumnarPasswordBatch on --passwords random passwords (runs, symbols and non-ASCII characters included), in a
+    temporary directory:
+    - add: the passwords go in through the three add methods, into a batch with tiny initial columns, so they grow many
+      times, and every password and length must come back as it was added;
+    - check: the batch is checked in two parts (some passwords are added after the first check), and the steps and the
+      failed rules must be the ones of Solution on the String;
+    - spill and map: the batch is spilled before its last passwords are checked, cleared and refilled with other passwords,
+      and the mapped file must have the first passwords and results, and check the rest into the file itself;
+    - remap: after force(), mapping the file again must give all the results;
+    - damaged files: a wrong first offset, offsets that go down and a last offset after the data must fail in map().
+    The exit code is 1 if a check fails.
+
+    Usage: ColumnarBatchCheck [--passwords 300000] [--length 40] [--seed 1]
+*/
+public class ColumnarBatchCheck {
+
+    private static final String ALPHABET = "abcABC123!. é€";
+
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        int count = 300_000;
+        int maxLength = 40;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--passwords": count = Integer.parseInt(args[i + 1]); break;
+                case "--length": maxLength = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        Random random = new Random(seed);
+        List<String> passwords = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            passwords.add(RandomPasswords.of(random, maxLength, RandomPasswords.REPEAT_ODDS, ALPHABET));
+        }
+        int firstPart = count / 2;
+        int spilled = count * 3 / 4;
+
+        Path directory = Files.createTempDirectory("columnar-check");
+        Path file = directory.resolve("batch.bin");
+        try {
+            ColumnarPasswordBatch batch = new ColumnarPasswordBatch(1, 1);
+            addAll(batch, passwords, 0, firstPart);
+            batch.check();
+            addAll(batch, passwords, firstPart, spilled);
+            expect("add", batch.size() == spilled && batch.getChecked() == firstPart, batch.toString());
+            verifyPasswords("add", batch, passwords, spilled);
+            batch.check();
+            verifyResults("check", batch, passwords, spilled);
+
+            // The last quarter is added after the spill point, so the mapped batch has passwords without results
+            addAll(batch, passwords, spilled, count);
+            ColumnarPasswordBatch reference = new ColumnarPasswordBatch();
+            addAll(reference, passwords, 0, count);
+            reference.check();
+            batch.spillTo(file);
+            expect("spill", batch.getChecked() == spilled, batch.toString());
+
+            // The batch in memory is reused for other passwords, which must not change the file
+            batch.clear();
+            addAll(batch, passwords, 0, 1000);
+            batch.check();
+
+            ColumnarPasswordBatch mapped = ColumnarPasswordBatch.map(file);
+            expect("map", mapped.isMapped() && mapped.size() == count && mapped.getChecked() == spilled,
+                    mapped.toString());
+            verifyPasswords("map", mapped, passwords, count);
+            verifyResults("map", mapped, passwords, spilled);
+            mapped.check();
+            mapped.force();
+            verifyResults("mapped check", mapped, passwords, count);
+
+            ColumnarPasswordBatch remapped = ColumnarPasswordBatch.map(file);
+            expect("remap", remapped.getChecked() == count && remapped.countStrong() == reference.countStrong(),
+                    remapped.toString());
+            verifyPasswords("remap", remapped, passwords, count);
+            verifyResults("remap", remapped, passwords, count);
+
+            checkDamaged(file, directory);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory.resolve("damaged.bin"));
+            Files.deleteIfExists(directory);
+        }
+        System.out.printf("%d passwords: %s%n", count, failures == 0 ? "passed" : failures + " checks FAILED");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    //    Helper function which adds the passwords [from, to) in turn as a String, a byte range and a ByteBuffer
+    private static void addAll(ColumnarPasswordBatch batch, List<String> passwords, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte[] utf8 = passwords.get(i).getBytes(StandardCharsets.UTF_8);
+            switch (i % 3) {
+                case 0:
+                    batch.add(passwords.get(i));
+                    break;
+                case 1:
+                    byte[] padded = new byte[utf8.length + 4];
+                    System.arraycopy(utf8, 0, padded, 2, utf8.length);
+                    batch.add(padded, 2, utf8.length);
+                    break;
+                default:
+                    ByteBuffer buffer = ByteBuffer.allocate(utf8.length + 3).position(3);
+                    buffer.put(utf8).position(3);
+                    batch.add(buffer);
+                    expect("add", buffer.position() == 3, "add(ByteBuffer) moved the position");
+            }
+        }
+    }
+
+    private static void verifyPasswords(String step, ColumnarPasswordBatch batch, List<String> passwords, int count) {
+        int wrong = 0;
+        for (int i = 0; i < count; i++) {
+            String password = passwords.get(i);
+            if (!batch.getPassword(i).equals(password)
+                    || batch.getLength(i) != password.getBytes(StandardCharsets.UTF_8).length) {
+                wrong++;
+            }
+        }
+        expect(step, wrong == 0, wrong + " passwords differ");
+    }
+
+    private static void verifyResults(String step, ColumnarPasswordBatch batch, List<String> passwords, int count) {
+        Solution solution = new Solution();
+        StepCount expected = new StepCount();
+        int wrong = 0;
+        for (int i = 0; i < count; i++) {
+            solution.passwordChecker(passwords.get(i), expected);
+            if (batch.getSteps(i) != expected.getSteps() || batch.getFailedRules(i) != expected.getFailedRules()) {
+                wrong++;
+            }
+        }
+        expect(step, wrong == 0, wrong + " results differ");
+    }
+
+    //    Copies the file with one offset changed, which map() must reject
+    private static void checkDamaged(Path file, Path directory) throws IOException {
+        Path damaged = directory.resolve("damaged.bin");
+        int size = ColumnarPasswordBatch.map(file).size();
+        // The header has 4 ints, then the size + 1 offsets
+        int[][] changes = {{0, 1}, {size / 2, -1}, {size, 1}};
+        for (int[] change : changes) {
+            Files.copy(file, damaged, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(damaged, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long position = (4 + change[0]) * (long) Integer.BYTES;
+                ByteBuffer offset = ByteBuffer.allocate(Integer.BYTES);
+                channel.read(offset, position);
+                int value = offset.flip().getInt();
+                // Going down means below the offset before it
+                int changed = change[1] < 0 ? readInt(channel, position - Integer.BYTES) - 1 : value + change[1];
+                channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(changed).flip(), position);
+            }
+            boolean rejected = false;
+            try {
+                ColumnarPasswordBatch.map(damaged);
+            } catch (IOException exception) {
+                rejected = true;
+            }
+            expect("damaged", rejected, "the offset " + change[0] + " changed by " + change[1] + " was accepted");
+        }
+    }
+
+    private static int readInt(FileChannel channel, long position) throws IOException {
+        ByteBuffer value = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(value, position);
+        return value.flip().getInt();
+    }
+
+    private static void expect(String step, boolean condition, String message) {
+        if (!condition) {
+            failures++;
+            System.out.println(step + ": " + message);
+        }
+    }
+}
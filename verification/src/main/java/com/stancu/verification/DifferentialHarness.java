@@ -0,0 +1,223 @@
+package com.stancu.verification;
+
+import com.stancu.constants.PasswordConstants;
+import com.stancu.engine.AdaptiveStepCounter;
+import com.stancu.engine.LookupTableStepCounter;
+import com.stancu.engine.StepCounter;
+import com.stancu.engine.UnrolledStepCounter;
+import com.stancu.engine.VectorSupport;
+import com.stancu.v1.PasswordValidator;
+import com.stancu.v2_refactored.PasswordValidator2;
+import com.stancu.v3_faster_ideas.Solution;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/*
+    Checks that the engines return the minimum steps, by comparing them with the ReferenceOracle on:
+    - every password up to --max-length characters over a reduced alphabet (--alphabet), and
+    - --random random passwords up to --random-length characters (runs and symbols included), from --seed.
+    Both corpora run in parallel. For every engine, the first counterexamples are shrunk (deleting characters and
+    changing them to the first character of the alphabet while the engine still disagrees), so they are easy to debug.
+    The exit code is 1 if any exact engine disagrees with the oracle.
+
+    v1 and v2 are known not to be minimal on some passwords (".!..1..1!..1.1..1..Aa" takes them 2 steps instead of 1),
+    so they are not in the default engines. When they are asked for, their mismatches are reported apart and do not
+    change the exit code: it shows how far they are from the minimum.
+
+    The "vector" engine needs "--add-modules jdk.incubator.vector", otherwise it is the scalar Solution (see VectorSupport).
+
+    Usage: DifferentialHarness [--max-length 8] [--alphabet aA1b] [--random 20000] [--random-length 200] [--seed 1]
+                               [--engines v3,unrolled,table,adaptive] (also v1, v2 and vector)
+*/
+public class DifferentialHarness {
+
+    private static final int REPORTED_COUNTEREXAMPLES = 5;
+
+    private final ReferenceOracle oracle = new ReferenceOracle(PasswordConstants.PASSWORD_MIN_LENGTH,
+            PasswordConstants.PASSWORD_MAX_LENGTH);
+    private final List<Engine> engines = new ArrayList<>();
+
+    public static void main(String[] args) {
+        int maxLength = 8;
+        String alphabet = "aA1b";
+        int randomCount = 20_000;
+        int randomLength = 200;
+        long seed = 1;
+        String engineNames = "v3,unrolled,table,adaptive";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--max-length": maxLength = Integer.parseInt(args[i + 1]); break;
+                case "--alphabet": alphabet = args[i + 1]; break;
+                case "--random": randomCount = Integer.parseInt(args[i + 1]); break;
+                case "--random-length": randomLength = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--engines": engineNames = args[i + 1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // v1 prints the recommended password of every check
+        PrintStream standardOutput = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        DifferentialHarness harness = new DifferentialHarness(engineNames.split(","));
+        long start = System.nanoTime();
+        harness.runExhaustive(alphabet, maxLength);
+        harness.runRandom(randomCount, randomLength, seed);
+
+        // The report runs the engines again while it shrinks the counterexamples, so it prints to the saved stream
+        boolean agree = harness.report(standardOutput);
+        standardOutput.printf("Finished in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        System.setOut(standardOutput);
+        System.exit(agree ? 0 : 1);
+    }
+
+    public DifferentialHarness(String... engineNames) {
+        for (String name : engineNames) {
+            switch (name.trim()) {
+                case "v1":
+                    engines.add(new Engine("v1", () -> new PasswordValidator()::strongPasswordChecker, false));
+                    break;
+                case "v2":
+                    engines.add(new Engine("v2", PasswordValidator2::new, false));
+                    break;
+                case "v3":
+                    engines.add(new Engine("v3", Solution::new, true));
+                    break;
+                case "unrolled":
+                    engines.add(new Engine("unrolled", UnrolledStepCounter::new, true));
+                    break;
+                case "table":
+                    engines.add(new Engine("table", LookupTableStepCounter::new, true));
+                    break;
+                case "adaptive":
+                    engines.add(new Engine("adaptive", AdaptiveStepCounter::new, true));
+                    break;
+                case "vector":
+                    engines.add(new Engine(VectorSupport.isAvailable() ? "vector" : "vector (scalar fallback)",
+                            VectorSupport::stepCounter, true));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown engine " + name);
+            }
+        }
+    }
+
+    //    Every password of length 0 to maxLength over the alphabet: the index in base alphabet.length() is the password
+    public void runExhaustive(String alphabet, int maxLength) {
+        int base = alphabet.length();
+        for (int length = 0; length <= maxLength; length++) {
+            int passwordLength = length;
+            long count = (long) Math.pow(base, length);
+            LongStream.range(0, count).parallel().forEach(index -> {
+                char[] characters = new char[passwordLength];
+                long rest = index;
+                for (int i = passwordLength - 1; i >= 0; i--) {
+                    characters[i] = alphabet.charAt((int) (rest % base));
+                    rest /= base;
+                }
+                check(new String(characters));
+            });
+        }
+    }
+
+    //    Random passwords, where a character often repeats the previous one, so there are long repeating sequences
+    public void runRandom(int count, int maxLength, long seed) {
+        LongStream.range(0, count).parallel().forEach(index -> {
+            check(RandomPasswords.of(new Random(seed * 1_000_003L + index), maxLength));
+        });
+    }
+
+    private void check(String password) {
+        int expected = oracle.minimumSteps(password);
+        for (Engine engine : engines) {
+            engine.check(password, expected);
+        }
+    }
+
+    //    Prints the result of every engine and returns true if all the exact ones agree with the oracle
+    public boolean report(PrintStream out) {
+        boolean agree = true;
+        for (Engine engine : engines) {
+            long mismatches = engine.mismatches.sum();
+            out.printf("%s: %d passwords, %d mismatches%s%n", engine.name, engine.checked.sum(), mismatches,
+                    engine.exact ? "" : " (known not to be minimal, not counted in the exit code)");
+            for (String counterexample : engine.counterexamples) {
+                String shrunk = shrink(engine, counterexample);
+                out.printf("    \"%s\" expected %d, got %d%n", shrunk, oracle.minimumSteps(shrunk), engine.steps(shrunk));
+            }
+            agree &= mismatches == 0 || !engine.exact;
+        }
+        return agree;
+    }
+
+    /*
+        Makes a counterexample smaller while the engine still disagrees with the oracle: firstly I try to delete every
+        character, then to change it to a simpler one, and I start again after every success.
+    */
+    private String shrink(Engine engine, String password) {
+        boolean shrunk = true;
+        while (shrunk) {
+            shrunk = false;
+            for (int i = 0; i < password.length() && !shrunk; i++) {
+                String candidate = password.substring(0, i) + password.substring(i + 1);
+                if (engine.steps(candidate) != oracle.minimumSteps(candidate)) {
+                    password = candidate;
+                    shrunk = true;
+                }
+            }
+            for (int i = 0; i < password.length() && !shrunk; i++) {
+                for (char simpler : new char[]{'a', 'A', '1', '.'}) {
+                    if (simpler >= password.charAt(i)) {
+                        continue;
+                    }
+                    String candidate = password.substring(0, i) + simpler + password.substring(i + 1);
+                    if (engine.steps(candidate) != oracle.minimumSteps(candidate)) {
+                        password = candidate;
+                        shrunk = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return password;
+    }
+
+    //    One engine under test. Every thread gets its own instance, because some engines keep a reusable buffer (VectorSolution).
+    private static final class Engine {
+
+        private final String name;
+        private final boolean exact;
+        private final ThreadLocal<StepCounter> counter;
+        private final LongAdder checked = new LongAdder();
+        private final LongAdder mismatches = new LongAdder();
+        private final ConcurrentLinkedQueue<String> counterexamples = new ConcurrentLinkedQueue<>();
+
+        private Engine(String name, Supplier<StepCounter> factory, boolean exact) {
+            this.name = name;
+            this.exact = exact;
+            this.counter = ThreadLocal.withInitial(factory);
+        }
+
+        private int steps(String password) {
+            return counter.get().countSteps(password);
+        }
+
+        private void check(String password, int expected) {
+            checked.increment();
+            if (steps(password) != expected) {
+                mismatches.increment();
+                if (counterexamples.size() < REPORTED_COUNTEREXAMPLES) {
+                    counterexamples.add(password);
+                }
+            }
+        }
+    }
+}
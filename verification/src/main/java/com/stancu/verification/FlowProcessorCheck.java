@@ -0,0 +1,257 @@
+package com.stancu.verification;
+
+import com.stancu.batch.BatchPasswordChecker;
+import com.stancu.flow.CheckResult;
+import com.stancu.flow.IterablePublisher;
+import com.stancu.flow.PasswordCheckProcessor;
+import com.stancu.v2_refactored.PasswordValidator2;
+import com.stancu.v3_faster_ideas.Solution;
+import com.stancu.v3_faster_ideas.StepCount;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Checks PasswordCheckProcessor with the in-process publisher: for v2 and the counting solution, ordered and
+    unordered, every password must get exactly one result, with the steps of the batch checker and the failed rules of
+    Solution, and the ordered results must come in the order of the input. The subscriber asks for a random number of
+    results at a time, and sometimes waits, so the processor must hold the upstream back: the passwords sent by the
+    publisher and not yet received by the subscriber must never be more than the capacity of the processor.
+    The publisher runs on its own thread, like a consumer of a message queue. Then --trickle passwords are published
+    one at a time with a pause between them, so almost every password starts its own worker, and the workers must reuse
+    their counters: at most twice the parallelism may be made. The exit code is 1 if a check fails.
+
+    Usage: FlowProcessorCheck [--passwords 200000] [--length 40] [--capacity 256] [--batch 16] [--parallelism 4]
+                              [--trickle 20000] [--seed 1]
+*/
+public class FlowProcessorCheck {
+
+    public static void main(String[] args) throws InterruptedException {
+        int count = 200_000;
+        int maxLength = 40;
+        int capacity = 256;
+        int batchSize = 16;
+        int parallelism = 4;
+        int trickle = 20_000;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--passwords": count = Integer.parseInt(args[i + 1]); break;
+                case "--length": maxLength = Integer.parseInt(args[i + 1]); break;
+                case "--capacity": capacity = Integer.parseInt(args[i + 1]); break;
+                case "--batch": batchSize = Integer.parseInt(args[i + 1]); break;
+                case "--parallelism": parallelism = Integer.parseInt(args[i + 1]); break;
+                case "--trickle": trickle = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        List<String> passwords = passwords(count, maxLength, seed);
+        int[] rules = new int[count];
+        StepCount stepCount = new StepCount();
+        Solution solution = new Solution();
+        for (int i = 0; i < count; i++) {
+            rules[i] = solution.passwordChecker(passwords.get(i), stepCount).getFailedRules();
+        }
+        int[] fastSteps = BatchPasswordChecker.fast().check(passwords);
+        int[] refactoredSteps = BatchPasswordChecker.refactored().check(passwords);
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        ExecutorService publisherThread = Executors.newSingleThreadExecutor();
+        boolean passed = true;
+        try {
+            for (boolean ordered : new boolean[]{true, false}) {
+                PasswordCheckProcessor fast = new PasswordCheckProcessor(Solution::new, workers, parallelism, batchSize,
+                        capacity, ordered);
+                passed &= run("v3", fast, passwords, fastSteps, rules, publisherThread, seed);
+                PasswordCheckProcessor refactored = new PasswordCheckProcessor(PasswordValidator2::new, workers,
+                        parallelism, batchSize, capacity, ordered);
+                passed &= run("v2", refactored, passwords, refactoredSteps, rules, publisherThread, seed);
+            }
+            passed &= checkTrickle(passwords.subList(0, Math.min(trickle, count)), refactoredSteps, rules, workers,
+                    parallelism, batchSize, capacity, publisherThread, seed);
+        } finally {
+            workers.shutdownNow();
+            publisherThread.shutdownNow();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean run(String name, PasswordCheckProcessor processor, List<String> passwords, int[] steps,
+                               int[] rules, ExecutorService publisherThread, long seed) throws InterruptedException {
+        AtomicLong published = new AtomicLong();
+        Iterable<String> counted = () -> new Iterator<String>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < passwords.size();
+            }
+
+            @Override
+            public String next() {
+                published.incrementAndGet();
+                return passwords.get(next++);
+            }
+        };
+        CheckingSubscriber subscriber = new CheckingSubscriber(processor, steps, rules, published, new Random(seed));
+        long start = System.nanoTime();
+        processor.subscribe(subscriber);
+        new IterablePublisher<>(counted, publisherThread).subscribe(processor);
+        boolean finished = subscriber.done.await(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<String> failures = new ArrayList<>(subscriber.failures);
+        if (!finished) {
+            failures.add("the stream did not end");
+        }
+        if (subscriber.error != null) {
+            failures.add("onError " + subscriber.error);
+        }
+        long missing = Arrays.stream(subscriber.received).filter(times -> times != 1).count();
+        if (missing > 0) {
+            failures.add(missing + " passwords did not get exactly one result");
+        }
+        System.out.printf("%s %s: %d results in %.2f s, at most %d in the processor (capacity %d), %s%n", name,
+                processor.isOrdered() ? "ordered" : "unordered", subscriber.count, seconds, subscriber.maxInFlight,
+                processor.getCapacity(), failures.isEmpty() ? "OK" : "FAILED");
+        failures.stream().limit(5).forEach(failure -> System.out.println("    " + failure));
+        return failures.isEmpty();
+    }
+
+    //    Publishes the passwords with a pause after each one, and counts the validators that the processor makes
+    private static boolean checkTrickle(List<String> passwords, int[] steps, int[] rules, ExecutorService workers,
+                                        int parallelism, int batchSize, int capacity, ExecutorService publisherThread,
+                                        long seed) throws InterruptedException {
+        AtomicInteger made = new AtomicInteger();
+        PasswordCheckProcessor processor = new PasswordCheckProcessor(() -> {
+            made.incrementAndGet();
+            return new PasswordValidator2();
+        }, workers, parallelism, batchSize, capacity, true);
+        List<String> paused = new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                LockSupport.parkNanos(20_000);
+                return passwords.get(index);
+            }
+
+            @Override
+            public int size() {
+                return passwords.size();
+            }
+        };
+        boolean passed = run("v2 trickle", processor, paused, Arrays.copyOf(steps, passwords.size()),
+                Arrays.copyOf(rules, passwords.size()), publisherThread, seed);
+        boolean reused = made.get() <= 2 * parallelism;
+        System.out.printf("v2 trickle: %d validators made for %d passwords (at most %d), %s%n", made.get(),
+                passwords.size(), 2 * parallelism, reused ? "OK" : "FAILED");
+        return passed && reused;
+    }
+
+    private static List<String> passwords(int count, int maxLength, long seed) {
+        Random random = new Random(seed);
+        List<String> passwords = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            passwords.add(RandomPasswords.of(random, maxLength));
+        }
+        return passwords;
+    }
+
+    //    Asks for 1 to 64 results at a time, and sometimes waits a bit before it asks again
+    private static final class CheckingSubscriber implements Flow.Subscriber<CheckResult> {
+
+        private final PasswordCheckProcessor processor;
+        private final int[] steps;
+        private final int[] rules;
+        private final AtomicLong published;
+        private final Random random;
+        private final int[] received;
+        private final List<String> failures = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Flow.Subscription subscription;
+        private long outstanding;
+        private long count;
+        private long lastSequence = -1;
+        private long maxInFlight;
+        private volatile Throwable error;
+
+        private CheckingSubscriber(PasswordCheckProcessor processor, int[] steps, int[] rules, AtomicLong published,
+                                   Random random) {
+            this.processor = processor;
+            this.steps = steps;
+            this.rules = rules;
+            this.published = published;
+            this.random = random;
+            this.received = new int[steps.length];
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            requestMore();
+        }
+
+        @Override
+        public void onNext(CheckResult result) {
+            count++;
+            maxInFlight = Math.max(maxInFlight, published.get() - count + 1);
+            int sequence = (int) result.getSequence();
+            received[sequence]++;
+            if (processor.isOrdered() && result.getSequence() != lastSequence + 1) {
+                failure("sequence " + result.getSequence() + " after " + lastSequence);
+            }
+            lastSequence = result.getSequence();
+            if (result.getSteps() != steps[sequence] || result.getFailedRules() != rules[sequence]) {
+                failure(result + " expected " + steps[sequence] + " steps and rules " + rules[sequence]);
+            }
+            if (maxInFlight > processor.getCapacity()) {
+                failure(maxInFlight + " passwords in the processor");
+            }
+            if (--outstanding == 0) {
+                if (random.nextInt(1000) == 0) {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                requestMore();
+            }
+        }
+
+        private void requestMore() {
+            outstanding = 1 + random.nextInt(64);
+            subscription.request(outstanding);
+        }
+
+        private void failure(String failure) {
+            if (failures.size() < 100) {
+                failures.add(failure);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
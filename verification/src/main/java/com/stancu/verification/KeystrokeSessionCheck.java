@@ -0,0 +1,179 @@
+package com.stancu.verification;
+
+import com.stancu.session.KeystrokeSession;
+import com.stancu.v3_faster_ideas.Solution;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+    Checks that a KeystrokeSession always has the steps of a full recomputation. Every session gets --edits random edits
+    (appends, backspaces, inserts and deletes at random indexes, with many repeated characters so the runs are cut and
+    fused), and after every edit its steps and its password are compared with Solution over a StringBuilder that got the
+    same edits. Every 100 edits the session is serialized and read back, and the copy goes on instead of it.
+    Serialized sessions with wrong limits or wrong runs (a run of 0 characters, two runs of the same character in a row)
+    must be rejected when they are read.
+    At the end, a password of --long-length characters is typed and edited in the middle, to show the time of one edit.
+    The exit code is 1 if any step count differs or a wrong session is read.
+
+    Usage: KeystrokeSessionCheck [--sessions 2000] [--edits 2000] [--long-length 1000000] [--seed 1]
+*/
+public class KeystrokeSessionCheck {
+
+    private static final String ALPHABET = "aaaAA11b.";
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int sessions = 2000;
+        int edits = 2000;
+        int longLength = 1_000_000;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sessions": sessions = Integer.parseInt(args[i + 1]); break;
+                case "--edits": edits = Integer.parseInt(args[i + 1]); break;
+                case "--long-length": longLength = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Solution solution = new Solution();
+        Random random = new Random(seed);
+        long mismatches = 0;
+        for (int s = 0; s < sessions; s++) {
+            KeystrokeSession session = new KeystrokeSession();
+            StringBuilder expected = new StringBuilder();
+            for (int e = 1; e <= edits; e++) {
+                edit(session, expected, random);
+                if (e % 100 == 0) {
+                    session = copy(session);
+                }
+                String password = expected.toString();
+                if (session.getSteps() != solution.passwordChecker(password) || !session.getPassword().equals(password)) {
+                    if (mismatches++ < 5) {
+                        System.out.printf("    \"%s\" expected %d, got %d for \"%s\"%n", password,
+                                solution.passwordChecker(password), session.getSteps(), session.getPassword());
+                    }
+                }
+            }
+        }
+        System.out.printf("%d sessions, %d edits each: %d mismatches%n", sessions, edits, mismatches);
+        boolean rejected = checkInvalidForms();
+
+        KeystrokeSession session = new KeystrokeSession();
+        long start = System.nanoTime();
+        for (int i = 0; i < longLength; i++) {
+            session.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        long typed = System.nanoTime();
+        int middleEdits = 100_000;
+        for (int i = 0; i < middleEdits; i++) {
+            int index = longLength / 2 + random.nextInt(1000);
+            session.insertAt(index, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            session.deleteAt(index + random.nextInt(2));
+        }
+        long edited = System.nanoTime();
+        boolean longAgrees = session.getSteps() == solution.passwordChecker(session.getPassword());
+        System.out.printf("%d characters: %.0f ns per append, %.0f ns per edit in the middle, steps %s%n", longLength,
+                (double) (typed - start) / longLength, (double) (edited - typed) / (2 * middleEdits),
+                longAgrees ? "agree" : "DIFFER");
+        System.exit(mismatches == 0 && rejected && longAgrees ? 0 : 1);
+    }
+
+    private static void edit(KeystrokeSession session, StringBuilder expected, Random random) {
+        int kind = random.nextInt(expected.length() == 0 ? 2 : 4);
+        char character = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        switch (kind) {
+            case 0:
+                session.append(character);
+                expected.append(character);
+                break;
+            case 1:
+                int insertIndex = random.nextInt(expected.length() + 1);
+                session.insertAt(insertIndex, character);
+                expected.insert(insertIndex, character);
+                break;
+            case 2:
+                session.backspace();
+                expected.setLength(expected.length() - 1);
+                break;
+            default:
+                int deleteIndex = random.nextInt(expected.length());
+                session.deleteAt(deleteIndex);
+                expected.deleteCharAt(deleteIndex);
+        }
+    }
+
+    /*
+        The serialized form ends with the runs as block data: the number of runs, then every run as its character (2 bytes)
+        and its length (4 bytes), and the end of the block data (1 byte). The limits are two ints among the fields, the
+        maximum length first.
+    */
+    private static boolean checkInvalidForms() throws IOException, ClassNotFoundException {
+        KeystrokeSession session = new KeystrokeSession(5, 0x12345678);
+        session.append('a');
+        session.append('b');
+        byte[] valid = serialize(session);
+        int end = valid.length - 1;
+        int limits = indexOf(valid, new byte[]{0x12, 0x34, 0x56, 0x78, 0, 0, 0, 5});
+        Object[][] changes = {
+                {"a minimum length of 7", limits + 7, (byte) 7},
+                {"a maximum length below the minimum", limits, (byte) 0x80},
+                {"a run of 0 characters", end - 1, (byte) 0},
+                {"two runs of 'a' in a row", end - 5, (byte) 'a'}
+        };
+        boolean allRejected = read(valid) != null;
+        for (Object[] change : changes) {
+            byte[] changed = valid.clone();
+            changed[(Integer) change[1]] = (Byte) change[2];
+            if (read(changed) != null) {
+                System.out.println("    a session with " + change[0] + " was read");
+                allRejected = false;
+            }
+        }
+        System.out.printf("wrong serialized sessions: %s%n", allRejected ? "rejected" : "NOT REJECTED");
+        return allRejected;
+    }
+
+    //    The session read from the bytes, or null if it was rejected
+    private static KeystrokeSession read(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (KeystrokeSession) in.readObject();
+        } catch (InvalidObjectException exception) {
+            return null;
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("The serialized limits were not found");
+    }
+
+    private static byte[] serialize(KeystrokeSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(session);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static KeystrokeSession copy(KeystrokeSession session) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(session);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (KeystrokeSession) in.readObject();
+        }
+    }
+}
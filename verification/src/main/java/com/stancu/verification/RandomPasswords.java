@@ -0,0 +1,39 @@
+package com.stancu.verification;
+
+import java.util.Random;
+
+/*
+    Random passwords for the checks, where a character often repeats the previous one, so there are long repeating
+    sequences: the length is drawn up to the maximum length, then every character after the first repeats the previous
+    one with the chance 1 / repeatOdds, and is otherwise drawn from the alphabet. The same Random gives the same
+    passwords, so a check can be run again on the passwords that failed.
+*/
+public final class RandomPasswords {
+
+    public static final String ALPHABET = "abcABC123!.";
+    public static final int REPEAT_ODDS = 3;
+
+    private RandomPasswords() {
+    }
+
+    public static String of(Random random, int maxLength) {
+        return of(random, maxLength, REPEAT_ODDS, ALPHABET);
+    }
+
+    public static String of(Random random, int maxLength, int repeatOdds) {
+        return of(random, maxLength, repeatOdds, ALPHABET);
+    }
+
+    public static String of(Random random, int maxLength, int repeatOdds, String alphabet) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && random.nextInt(repeatOdds) == 0) {
+                builder.append(builder.charAt(i - 1));
+            } else {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.stancu.verification;
+
+import com.stancu.recommend.CharacterChooser;
+import com.stancu.recommend.PasswordRecommender;
+import com.stancu.recommend.Recommendation;
+import com.stancu.v3_faster_ideas.Solution;
+
+import java.util.Random;
+
+/*
+    Checks PasswordRecommender on --passwords random passwords up to --length characters (long repeating sequences,
+    symbols and too short, proper and too long passwords), with the deterministic chooser and a seeded one:
+    - the steps of the recommendation must be the steps of Solution;
+    - the recommended password must be strong (0 steps for Solution);
+    - its edit distance (insertions, deletions and replacements) from the checked password must be the steps: at most
+      the steps, because it is that many steps away, and at least the steps, because they are the minimum.
+    The exit code is 1 if a check fails.
+
+    Usage: RecommenderCheck [--passwords 300000] [--length 50] [--seed 1]
+*/
+public class RecommenderCheck {
+
+    private static final int REPORTED_COUNTEREXAMPLES = 5;
+
+    public static void main(String[] args) {
+        int count = 300_000;
+        int maxLength = 50;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--passwords": count = Integer.parseInt(args[i + 1]); break;
+                case "--length": maxLength = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        boolean passed = check("deterministic", new PasswordRecommender(), count, maxLength, seed);
+        passed &= check("seeded", new PasswordRecommender(CharacterChooser.seeded(seed)), count, maxLength, seed + 1);
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean check(String name, PasswordRecommender recommender, int count, int maxLength, long seed) {
+        Solution solution = new Solution();
+        Random random = new Random(seed);
+        int[] previousRow = new int[maxLength + 1];
+        int[] row = new int[maxLength + 1];
+        int wrongSteps = 0;
+        int weak = 0;
+        int wrongDistance = 0;
+        int reported = 0;
+        for (int i = 0; i < count; i++) {
+            String password = RandomPasswords.of(random, maxLength);
+            int expected = solution.passwordChecker(password);
+            Recommendation recommendation = recommender.recommend(password);
+            String recommended = recommendation.getPassword();
+            boolean stepsAgree = recommendation.getSteps() == expected;
+            boolean strong = solution.passwordChecker(recommended) == 0;
+            int distance = editDistance(password, recommended, previousRow, row);
+            boolean distanceAgrees = distance == recommendation.getSteps();
+            wrongSteps += stepsAgree ? 0 : 1;
+            weak += strong ? 0 : 1;
+            wrongDistance += distanceAgrees ? 0 : 1;
+            if (!(stepsAgree && strong && distanceAgrees) && reported++ < REPORTED_COUNTEREXAMPLES) {
+                System.out.printf("    \"%s\" expected %d steps, got %s at edit distance %d%n", password, expected,
+                        recommendation, distance);
+            }
+        }
+        boolean passed = wrongSteps == 0 && weak == 0 && wrongDistance == 0;
+        System.out.printf("%s chooser: %d passwords, %d wrong steps, %d weak recommendations, %d at another edit distance:"
+                + " %s%n", name, count, wrongSteps, weak, wrongDistance, passed ? "passed" : "FAILED");
+        return passed;
+    }
+
+    //    Helper function which returns the Levenshtein distance, with two rows that grow for longer passwords
+    private static int editDistance(String from, String to, int[] previousRow, int[] row) {
+        if (to.length() >= row.length) {
+            previousRow = new int[to.length() + 1];
+            row = new int[to.length() + 1];
+        }
+        for (int j = 0; j <= to.length(); j++) {
+            previousRow[j] = j;
+        }
+        for (int i = 1; i <= from.length(); i++) {
+            row[0] = i;
+            for (int j = 1; j <= to.length(); j++) {
+                int replace = previousRow[j - 1] + (from.charAt(i - 1) == to.charAt(j - 1) ? 0 : 1);
+                row[j] = Math.min(replace, Math.min(previousRow[j], row[j - 1]) + 1);
+            }
+            int[] swap = previousRow;
+            previousRow = row;
+            row = swap;
+        }
+        return previousRow[to.length()];
+    }
+}
@@ -0,0 +1,173 @@
+package com.stancu.verification;
+
+import com.stancu.policy.EditCosts;
+import com.stancu.policy.PasswordPolicy;
+
+import java.util.Arrays;
+
+/*
+    Reference answer for the differential harness, computed in a completely different way than the validators:
+    a dynamic programming over the edit alignment of the password. The state after reading a prefix of the password is
+    (length written so far, last written character, how many times it repeats at the end, cases written so far), and every
+    character of the password is kept, replaced or deleted, with insertions allowed anywhere. A state that would make a
+    too long repeating sequence is never created, and the written length never goes over the maximum, so the minimum over the
+    final states with a proper length and all the cases is exactly the minimum number of steps.
+    The rules come from a PasswordPolicy, so the same oracle checks any run limit, set of classes and forbidden characters
+    (a forbidden character is never written, so it can only be replaced or deleted), and the steps can have EditCosts.
+    The written characters are the ones of the password plus one "fresh" character of every class (symbols included). A fresh
+    character stands for any character of that case that is not in the password, so two fresh characters written one after
+    another can always be different, and they never start a repeating sequence.
+*/
+public class ReferenceOracle {
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final int[] FRESH_CASES = {PasswordPolicy.LOWER_CASE, PasswordPolicy.UPPER_CASE, PasswordPolicy.DIGIT,
+            PasswordPolicy.SYMBOL};
+    private static final int MASKS = PasswordPolicy.ALL_CLASSES + 1;
+
+    private final int minLength;
+    private final int maxLength;
+    private final int runLimit;
+    private final int requiredClasses;
+    private final String forbiddenCharacters;
+    private final int insertCost;
+    private final int deleteCost;
+    private final int replaceCost;
+
+    public ReferenceOracle(int minLength, int maxLength) {
+        this(new PasswordPolicy(minLength, maxLength, PasswordPolicy.DEFAULT.getMaxRunLength(),
+                PasswordPolicy.DEFAULT.getRequiredClasses(), ""));
+    }
+
+    public ReferenceOracle(PasswordPolicy policy) {
+        this(policy, EditCosts.UNIT);
+    }
+
+    public ReferenceOracle(PasswordPolicy policy, EditCosts costs) {
+        this.minLength = policy.getMinLength();
+        this.maxLength = policy.getMaxLength();
+        this.runLimit = policy.getMaxRunLength() + 1;
+        this.requiredClasses = policy.getRequiredClasses();
+        this.forbiddenCharacters = policy.getForbiddenCharacters();
+        this.insertCost = costs.getInsertCost();
+        this.deleteCost = costs.getDeleteCost();
+        this.replaceCost = costs.getReplaceCost();
+    }
+
+    public int minimumSteps(String password) {
+        // The distinct characters of the password come first, and the fresh characters after them
+        char[] passwordCharacters = password.chars().distinct().sorted().collect(StringBuilder::new,
+                StringBuilder::appendCodePoint, StringBuilder::append).toString().toCharArray();
+        int freshStart = passwordCharacters.length;
+        int characterCount = freshStart + FRESH_CASES.length;
+        int[] characterCases = new int[characterCount];
+        for (int c = 0; c < freshStart; c++) {
+            // A forbidden character gets no class, and write() never writes it
+            characterCases[c] = forbiddenCharacters.indexOf(passwordCharacters[c]) >= 0
+                    ? -1 : PasswordPolicy.classOf(passwordCharacters[c]);
+        }
+        System.arraycopy(FRESH_CASES, 0, characterCases, freshStart, FRESH_CASES.length);
+        int[] indexOfPasswordCharacter = new int[password.length()];
+        for (int i = 0; i < password.length(); i++) {
+            indexOfPasswordCharacter[i] = Arrays.binarySearch(passwordCharacters, password.charAt(i));
+        }
+
+        // last == characterCount means that nothing was written yet
+        int states = (maxLength + 1) * (characterCount + 1) * runLimit * MASKS;
+        int[] current = new int[states];
+        int[] next = new int[states];
+        Arrays.fill(current, INFINITY);
+        current[state(0, characterCount, 0, 0, characterCount)] = 0;
+
+        for (int i = 0; i <= password.length(); i++) {
+            insertAnywhere(current, characterCases, freshStart, characterCount);
+            if (i == password.length()) {
+                break;
+            }
+            Arrays.fill(next, INFINITY);
+            int passwordCharacter = indexOfPasswordCharacter[i];
+            for (int length = 0; length <= maxLength; length++) {
+                for (int last = 0; last <= characterCount; last++) {
+                    for (int run = 0; run < runLimit; run++) {
+                        for (int mask = 0; mask < MASKS; mask++) {
+                            int cost = current[state(length, last, run, mask, characterCount)];
+                            if (cost >= INFINITY) {
+                                continue;
+                            }
+                            // Delete the character
+                            relax(next, state(length, last, run, mask, characterCount), cost + deleteCost);
+                            // Keep it, or replace it with any other character
+                            for (int c = 0; c < characterCount; c++) {
+                                int target = write(length, last, run, mask, c, characterCases, freshStart, characterCount);
+                                if (target >= 0) {
+                                    relax(next, target, cost + (c == passwordCharacter ? 0 : replaceCost));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            int[] swap = current;
+            current = next;
+            next = swap;
+        }
+
+        int best = INFINITY;
+        for (int length = minLength; length <= maxLength; length++) {
+            for (int last = 0; last <= characterCount; last++) {
+                for (int run = 0; run < runLimit; run++) {
+                    for (int mask = 0; mask < MASKS; mask++) {
+                        if ((mask & requiredClasses) == requiredClasses) {
+                            best = Math.min(best, current[state(length, last, run, mask, characterCount)]);
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    //    Insertions don't read the password, and they only make the length bigger, so one pass by length covers chained ones
+    private void insertAnywhere(int[] costs, int[] characterCases, int freshStart, int characterCount) {
+        for (int length = 0; length < maxLength; length++) {
+            for (int last = 0; last <= characterCount; last++) {
+                for (int run = 0; run < runLimit; run++) {
+                    for (int mask = 0; mask < MASKS; mask++) {
+                        int cost = costs[state(length, last, run, mask, characterCount)];
+                        if (cost >= INFINITY) {
+                            continue;
+                        }
+                        for (int c = 0; c < characterCount; c++) {
+                            int target = write(length, last, run, mask, c, characterCases, freshStart, characterCount);
+                            if (target >= 0) {
+                                relax(costs, target, cost + insertCost);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    //    The state after writing the character c, or -1 if it is forbidden, makes a too long sequence or a too long password
+    private int write(int length, int last, int run, int mask, int c, int[] characterCases, int freshStart, int characterCount) {
+        if (length == maxLength || characterCases[c] < 0) {
+            return -1;
+        }
+        int newRun = c == last && c < freshStart ? run + 1 : 1;
+        if (newRun >= runLimit) {
+            return -1;
+        }
+        return state(length + 1, c, newRun, mask | characterCases[c], characterCount);
+    }
+
+    private static void relax(int[] costs, int state, int cost) {
+        if (cost < costs[state]) {
+            costs[state] = cost;
+        }
+    }
+
+    private int state(int length, int last, int run, int mask, int characterCount) {
+        return ((length * (characterCount + 1) + last) * runLimit + run) * MASKS + mask;
+    }
+}
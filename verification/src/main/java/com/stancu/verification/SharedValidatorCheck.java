@@ -0,0 +1,138 @@
+package com.stancu.verification;
+
+import com.stancu.engine.StepCounter;
+import com.stancu.policy.PasswordPolicy;
+import com.stancu.v2_refactored.PasswordValidator2;
+import com.stancu.v3_faster_ideas.Solution;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Checks the concurrency contract of the validators that are meant to be shared (v2, v3 and the compiled default policy):
+    - one instance used by many threads at the same time gives the same results as checking the passwords one after another
+      (v2 is compared with itself, because its greedy repair is not always the minimum, see the differential harness);
+    - after a warm-up, a check allocates nothing: the bytes allocated by the current thread (com.sun.management.ThreadMXBean)
+      over --checks checks must stay under one byte per hundred checks, which only leaves room for the measurement itself.
+    v1 is not checked for allocations, because it prints the repaired password of every check.
+    The exit code is 1 if any engine fails.
+
+    Usage: SharedValidatorCheck [--checks 1000000] [--threads 64] [--seed 1]
+*/
+public class SharedValidatorCheck {
+
+    private static final int CORPUS_SIZE = 4096;
+
+    public static void main(String[] args) throws InterruptedException {
+        int checks = 1_000_000;
+        int threads = 64;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--checks": checks = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        String[] corpus = generateCorpus(new Random(seed));
+        byte[][] utf8Corpus = new byte[corpus.length][];
+        Solution solution = new Solution();
+        for (int i = 0; i < corpus.length; i++) {
+            utf8Corpus[i] = corpus[i].getBytes(StandardCharsets.UTF_8);
+        }
+        Engine[] engines = {
+                new Engine("v2", new PasswordValidator2(), false),
+                new Engine("v3", solution, false),
+                new Engine("v3 (UTF-8 bytes)", solution, true),
+                new Engine("policy", PasswordPolicy.DEFAULT.compile(), false)
+        };
+
+        boolean passed = true;
+        for (Engine engine : engines) {
+            long mismatches = engine.checkConcurrently(corpus, utf8Corpus, threads, checks);
+            long allocated = engine.measureAllocations(corpus, utf8Corpus, checks);
+            boolean engineFailed = mismatches > 0 || allocated * 100 > checks;
+            System.out.printf("%s: %d mismatches with %d threads, %d bytes allocated in %d checks (%.4f per check)%s%n",
+                    engine.name, mismatches, threads, allocated, checks, (double) allocated / checks, engineFailed ? "  FAILED" : "");
+            passed &= !engineFailed;
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    //    One shared instance, checked from Strings or from the UTF-8 bytes of the same passwords
+    private static final class Engine {
+
+        private final String name;
+        private final StepCounter counter;
+        private final boolean utf8;
+
+        private Engine(String name, StepCounter counter, boolean utf8) {
+            this.name = name;
+            this.counter = counter;
+            this.utf8 = utf8;
+        }
+
+        private int steps(String[] corpus, byte[][] utf8Corpus, int index) {
+            return utf8 ? counter.countSteps(utf8Corpus[index], 0, utf8Corpus[index].length) : counter.countSteps(corpus[index]);
+        }
+
+        /*
+            The passwords are checked one after another firstly, then all the threads check them with the same instance at
+            the same time, starting at different passwords, and every result is compared with the first one.
+        */
+        private long checkConcurrently(String[] corpus, byte[][] utf8Corpus, int threads, int checks) throws InterruptedException {
+            int[] expected = new int[corpus.length];
+            for (int i = 0; i < corpus.length; i++) {
+                expected[i] = steps(corpus, utf8Corpus, i);
+            }
+            LongAdder mismatches = new LongAdder();
+            int checksPerThread = Math.max(corpus.length, checks / threads);
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int first = t * 997;
+                workers[t] = new Thread(() -> {
+                    for (int c = 0; c < checksPerThread; c++) {
+                        int index = (first + c) % corpus.length;
+                        if (steps(corpus, utf8Corpus, index) != expected[index]) {
+                            mismatches.increment();
+                        }
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            return mismatches.sum();
+        }
+
+        //    The bytes allocated by this thread in 'checks' checks, after as many checks of warm-up
+        private long measureAllocations(String[] corpus, byte[][] utf8Corpus, int checks) {
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            int sink = 0;
+            for (int c = 0; c < checks; c++) {
+                sink += steps(corpus, utf8Corpus, c & (CORPUS_SIZE - 1));
+            }
+            long before = threadBean.getCurrentThreadAllocatedBytes();
+            for (int c = 0; c < checks; c++) {
+                sink += steps(corpus, utf8Corpus, c & (CORPUS_SIZE - 1));
+            }
+            long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+            // The sink keeps the checks from being removed as dead code
+            return sink == Integer.MIN_VALUE ? -1 : allocated;
+        }
+    }
+
+    //    Passwords of every length up to 60, with repeating sequences, so every branch of the validators runs
+    private static String[] generateCorpus(Random random) {
+        String[] corpus = new String[CORPUS_SIZE];
+        for (int p = 0; p < corpus.length; p++) {
+            corpus[p] = RandomPasswords.of(random, 60);
+        }
+        return corpus;
+    }
+}
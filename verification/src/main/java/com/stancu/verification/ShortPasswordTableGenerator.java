@@ -0,0 +1,216 @@
+package com.stancu.verification;
+
+import com.stancu.constants.PasswordConstants;
+import com.stancu.engine.LookupTableStepCounter;
+import com.stancu.engine.StepCounter;
+import com.stancu.scanner.PasswordScanner;
+import com.stancu.v1.PasswordValidator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/*
+    Generates the table of LookupTableStepCounter (the source of com.stancu.engine.ShortPasswordTable) and checks it.
+    For every signature (length, case mask, replacements, see LookupTableStepCounter) I build one password that has it,
+    and its steps in the table are the ones of PasswordValidator.strongPasswordChecker. A signature that no password has
+    is marked with '-'. Then every password of a corpus must have the steps of its signature, both in the generated
+    table and in the compiled engine:
+    - every password up to --max-length characters over a reduced alphabet (--alphabet), and
+    - --random random passwords up to PASSWORD_MAX_LENGTH characters (runs and symbols included), from --seed.
+    --write writes the source of the table, --check compares it with the file (so a stale table fails the build of the
+    "table" profile). The exit code is 1 if a password disagrees or the file is stale.
+
+    Usage: ShortPasswordTableGenerator [--write path | --check path] [--max-length 7] [--alphabet aA1b.] [--random 200000]
+                                       [--seed 1]
+*/
+public class ShortPasswordTableGenerator {
+
+    public static final String TABLE_SOURCE = "src/com/stancu/engine/ShortPasswordTable.java";
+
+    private static final int MAX_LENGTH = PasswordConstants.PASSWORD_MAX_LENGTH;
+    private static final int CASE_MASKS = PasswordScanner.ALL_CASES + 1;
+    private static final char NO_PASSWORD = '-';
+    // Several characters of every case, so the neighbours of a representative password can always differ
+    private static final String[] CASE_CHARACTERS = {"abcdefg", "ABCDEFG", "1234567"};
+    private static final String NO_CASE_CHARACTERS = "!.#$%&*";
+
+    private final PasswordValidator validator = new PasswordValidator();
+    private final StepCounter engine = new LookupTableStepCounter();
+    private final char[] table = new char[LookupTableStepCounter.indexOf(MAX_LENGTH + 1, 0, 0)];
+
+    private long checked;
+    private long mismatches;
+
+    public static void main(String[] args) throws IOException {
+        Path write = null;
+        Path check = null;
+        int maxLength = 7;
+        String alphabet = "aA1b.";
+        int randomCount = 200_000;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--write": write = Paths.get(args[i + 1]); break;
+                case "--check": check = Paths.get(args[i + 1]); break;
+                case "--max-length": maxLength = Integer.parseInt(args[i + 1]); break;
+                case "--alphabet": alphabet = args[i + 1]; break;
+                case "--random": randomCount = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // v1 prints the recommended password of every check
+        PrintStream standardOutput = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ShortPasswordTableGenerator generator = new ShortPasswordTableGenerator();
+        long start = System.nanoTime();
+        generator.generate();
+        generator.checkExhaustive(alphabet, maxLength);
+        generator.checkRandom(randomCount, seed);
+        System.setOut(standardOutput);
+        System.out.printf("%d passwords, %d mismatches, in %.1f s%n", generator.checked, generator.mismatches,
+                (System.nanoTime() - start) / 1e9);
+
+        boolean stale = false;
+        String source = generator.source();
+        if (write != null) {
+            Files.writeString(write, source, StandardCharsets.UTF_8);
+            System.out.println("Wrote " + write);
+        }
+        if (check != null) {
+            stale = !Files.readString(check, StandardCharsets.UTF_8).equals(source);
+            System.out.println(stale ? check + " is stale, regenerate it with --write" : check + " is up to date");
+        }
+        System.exit(generator.mismatches == 0 && !stale ? 0 : 1);
+    }
+
+    //    The steps of one password of every signature, from v1
+    public void generate() {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            for (int caseMask = 0; caseMask < CASE_MASKS; caseMask++) {
+                for (int replacements = 0; replacements < LookupTableStepCounter.REPLACEMENT_SLOTS; replacements++) {
+                    String password = representative(length, caseMask, replacements);
+                    table[LookupTableStepCounter.indexOf(length, caseMask, replacements)] = password == null
+                            ? NO_PASSWORD : (char) ('0' + validator.strongPasswordChecker(password));
+                }
+            }
+        }
+    }
+
+    /*
+        A password with the signature, or null if there is none: 'replacements' runs of 3 characters and single
+        characters for the rest, every one of them different from its neighbours, where the first ones take the cases of
+        the mask, so every case is there. A password without cases only has symbols.
+    */
+    static String representative(int length, int caseMask, int replacements) {
+        int singles = length - 3 * replacements;
+        int cases = Integer.bitCount(caseMask);
+        if (singles < 0 || replacements + singles < cases) {
+            return null;
+        }
+        StringBuilder pool = new StringBuilder();
+        if (caseMask == PasswordScanner.NO_CASE) {
+            pool.append(NO_CASE_CHARACTERS);
+        } else {
+            // The characters are interleaved by case, so the first 'cases' of them have all the cases of the mask
+            for (int i = 0; i < CASE_CHARACTERS[0].length(); i++) {
+                for (int slot = 0; slot < CASE_CHARACTERS.length; slot++) {
+                    if ((caseMask & (1 << slot)) != 0) {
+                        pool.append(CASE_CHARACTERS[slot].charAt(i));
+                    }
+                }
+            }
+        }
+        StringBuilder password = new StringBuilder(length);
+        for (int block = 0; block < replacements + singles; block++) {
+            char character = pool.charAt(block % pool.length());
+            password.append(character);
+            if (block < replacements) {
+                password.append(character).append(character);
+            }
+        }
+        return password.toString();
+    }
+
+    //    The signature of a password, counted independently from the engine
+    static int indexOf(String password) {
+        int caseMask = PasswordScanner.NO_CASE;
+        int replacements = 0;
+        int sequenceStart = 0;
+        for (int i = 0; i < password.length(); i++) {
+            caseMask |= PasswordScanner.caseOf(password.charAt(i));
+            if (i + 1 == password.length() || password.charAt(i + 1) != password.charAt(i)) {
+                replacements += (i + 1 - sequenceStart) / 3;
+                sequenceStart = i + 1;
+            }
+        }
+        return LookupTableStepCounter.indexOf(password.length(), caseMask, replacements);
+    }
+
+    public void checkExhaustive(String alphabet, int maxLength) {
+        int base = alphabet.length();
+        for (int length = 0; length <= Math.min(maxLength, MAX_LENGTH); length++) {
+            long count = (long) Math.pow(base, length);
+            char[] characters = new char[length];
+            for (long index = 0; index < count; index++) {
+                long rest = index;
+                for (int i = length - 1; i >= 0; i--) {
+                    characters[i] = alphabet.charAt((int) (rest % base));
+                    rest /= base;
+                }
+                check(new String(characters));
+            }
+        }
+    }
+
+    //    Random passwords, where a character often repeats the previous one, so there are long repeating sequences
+    public void checkRandom(int count, long seed) {
+        Random random = new Random(seed);
+        for (int n = 0; n < count; n++) {
+            check(RandomPasswords.of(random, MAX_LENGTH));
+        }
+    }
+
+    private void check(String password) {
+        checked++;
+        int expected = validator.strongPasswordChecker(password);
+        char generated = table[indexOf(password)];
+        if (generated != '0' + expected || engine.countSteps(password) != expected) {
+            if (mismatches++ < 5) {
+                System.err.printf("\"%s\" expected %d, the table has %c, the engine returns %d%n", password, expected,
+                        generated, engine.countSteps(password));
+            }
+        }
+    }
+
+    //    The source of ShortPasswordTable: one line of the table for every length
+    public String source() {
+        int lineLength = CASE_MASKS * LookupTableStepCounter.REPLACEMENT_SLOTS;
+        StringBuilder source = new StringBuilder();
+        source.append("package com.stancu.engine;\n\n")
+                .append("/*\n")
+                .append("    Generated by com.stancu.verification.ShortPasswordTableGenerator, do not edit it (see LookupTableStepCounter).\n")
+                .append("    The steps of every signature, as a digit, at LookupTableStepCounter.indexOf(length, caseMask, replacements):\n")
+                .append("    one line for every length, with ").append(LookupTableStepCounter.REPLACEMENT_SLOTS)
+                .append(" replacement counts for every case mask. '").append(NO_PASSWORD)
+                .append("' is a signature that no password has.\n")
+                .append("*/\n")
+                .append("final class ShortPasswordTable {\n\n")
+                .append("    static final int MAX_LENGTH = ").append(MAX_LENGTH).append(";\n")
+                .append("    static final char NO_PASSWORD = '").append(NO_PASSWORD).append("';\n\n")
+                .append("    static final String STEPS = \"\"\n");
+        for (int line = 0; line * lineLength < table.length; line++) {
+            source.append("            + \"").append(table, line * lineLength, lineLength).append('"')
+                    .append(line * lineLength + lineLength == table.length ? ";\n" : "\n");
+        }
+        source.append("\n    private ShortPasswordTable() {\n    }\n}\n");
+        return source.toString();
+    }
+}
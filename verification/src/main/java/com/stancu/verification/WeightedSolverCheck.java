@@ -0,0 +1,228 @@
+package com.stancu.verification;
+
+import com.stancu.policy.EditCosts;
+import com.stancu.policy.PasswordPolicy;
+import com.stancu.policy.WeightedStepSolver;
+import com.stancu.v3_faster_ideas.Solution;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+/*
+    Checks the WeightedStepSolver in three ways:
+    - against the ReferenceOracle with the same costs, for run limits 2 to 5, small length limits (so the too short, proper
+      and too long passwords all appear), the longer limits (8, 14) and (6, 12) and several EditCosts, on every password up
+      to --max-length characters over --alphabet;
+    - against the ReferenceOracle on --oracle-random random passwords up to --oracle-length characters with long repeating
+      sequences, for the longer limits, where several items share a sequence;
+    - against Solution with the default policy and unit costs, on --random random passwords up to --random-length characters;
+    - the time of long passwords (20000 and 45000 characters: one sequence, long random sequences and random text) with
+      long maximum lengths (256 to 4096): with every EditCosts, the slowest check must take less than --timing-limit
+      milliseconds.
+    The exit code is 1 if any answer differs or a check is too slow.
+
+    Usage: WeightedSolverCheck [--max-length 6] [--alphabet aA1b.] [--oracle-random 20000] [--oracle-length 18]
+                               [--random 200000] [--random-length 300] [--timing-limit 100] [--seed 1]
+*/
+public class WeightedSolverCheck {
+
+    private static final int REPORTED_COUNTEREXAMPLES = 5;
+    private static final EditCosts[] COSTS = {EditCosts.UNIT, new EditCosts(1, 3, 1), new EditCosts(2, 1, 1),
+            new EditCosts(1, 1, 3), new EditCosts(1, 2, 5), new EditCosts(3, 1, 2), new EditCosts(5, 1, 1)};
+
+    public static void main(String[] args) {
+        int maxLength = 6;
+        String alphabet = "aA1b.";
+        int oracleCount = 20_000;
+        int oracleLength = 18;
+        int randomCount = 200_000;
+        int randomLength = 300;
+        long timingLimit = 100;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--max-length": maxLength = Integer.parseInt(args[i + 1]); break;
+                case "--alphabet": alphabet = args[i + 1]; break;
+                case "--oracle-random": oracleCount = Integer.parseInt(args[i + 1]); break;
+                case "--oracle-length": oracleLength = Integer.parseInt(args[i + 1]); break;
+                case "--random": randomCount = Integer.parseInt(args[i + 1]); break;
+                case "--random-length": randomLength = Integer.parseInt(args[i + 1]); break;
+                case "--timing-limit": timingLimit = Long.parseLong(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        boolean agree = true;
+        int required = PasswordPolicy.LOWER_CASE | PasswordPolicy.UPPER_CASE | PasswordPolicy.DIGIT;
+        PasswordPolicy[] policies = {
+                new PasswordPolicy(3, 4, 1, required, ""),
+                new PasswordPolicy(2, 5, 2, required, ""),
+                new PasswordPolicy(4, 4, 3, required | PasswordPolicy.SYMBOL, ""),
+                new PasswordPolicy(0, 3, 2, PasswordPolicy.DIGIT, "")
+        };
+        PasswordPolicy[] longerPolicies = new PasswordPolicy[8];
+        for (int run = 1; run <= 4; run++) {
+            longerPolicies[2 * run - 2] = new PasswordPolicy(8, 14, run, required, "");
+            longerPolicies[2 * run - 1] = new PasswordPolicy(6, 12, run, required, "");
+        }
+        agree &= checkKnownCases(required);
+        for (PasswordPolicy policy : policies) {
+            for (EditCosts costs : COSTS) {
+                agree &= checkExhaustive(policy, costs, alphabet, maxLength);
+            }
+        }
+        for (PasswordPolicy policy : longerPolicies) {
+            for (EditCosts costs : COSTS) {
+                agree &= checkExhaustive(policy, costs, alphabet, maxLength);
+                agree &= checkOracleRandom(policy, costs, oracleCount, oracleLength, seed);
+            }
+        }
+        agree &= checkRandom(randomCount, randomLength, seed);
+        agree &= checkTiming(required, timingLimit, seed);
+        System.exit(agree ? 0 : 1);
+    }
+
+    //    Passwords where several insertions share one sequence, which an earlier greedy got wrong
+    private static boolean checkKnownCases(int required) {
+        Object[][] cases = {
+                {new PasswordPolicy(8, 14, 2, required, ""), "aaaaa", 3L},
+                {new PasswordPolicy(6, 12, 1, required, ""), "aaa", 3L},
+                {new PasswordPolicy(12, 12, 2, required, ""), "!!!bbbbb", 4L}
+        };
+        boolean agree = true;
+        for (Object[] known : cases) {
+            long actual = new WeightedStepSolver((PasswordPolicy) known[0], EditCosts.UNIT).minimumCost((String) known[1]);
+            if (actual != (Long) known[2]) {
+                System.out.println(known[0] + " \"" + known[1] + "\" expected " + known[2] + ", got " + actual);
+                agree = false;
+            }
+        }
+        System.out.printf("known cases: %d passwords, %s%n", cases.length, agree ? "all agree" : "mismatches");
+        return agree;
+    }
+
+    private static boolean checkExhaustive(PasswordPolicy policy, EditCosts costs, String alphabet, int maxLength) {
+        ReferenceOracle oracle = new ReferenceOracle(policy, costs);
+        WeightedStepSolver solver = new WeightedStepSolver(policy, costs);
+        LongAdder checked = new LongAdder();
+        LongAdder mismatches = new LongAdder();
+        ConcurrentLinkedQueue<String> counterexamples = new ConcurrentLinkedQueue<>();
+        int base = alphabet.length();
+        for (int length = 0; length <= maxLength; length++) {
+            int passwordLength = length;
+            LongStream.range(0, (long) Math.pow(base, length)).parallel().forEach(index -> {
+                char[] characters = new char[passwordLength];
+                long rest = index;
+                for (int i = passwordLength - 1; i >= 0; i--) {
+                    characters[i] = alphabet.charAt((int) (rest % base));
+                    rest /= base;
+                }
+                String password = new String(characters);
+                checked.increment();
+                int expected = oracle.minimumSteps(password);
+                long actual = solver.minimumCost(password);
+                if (actual != expected) {
+                    mismatches.increment();
+                    if (counterexamples.size() < REPORTED_COUNTEREXAMPLES) {
+                        counterexamples.add("\"" + password + "\" expected " + expected + ", got " + actual);
+                    }
+                }
+            });
+        }
+        System.out.printf("%s %s: %d passwords, %d mismatches%n", policy, costs, checked.sum(), mismatches.sum());
+        for (String counterexample : counterexamples) {
+            System.out.println("    " + counterexample);
+        }
+        return mismatches.sum() == 0;
+    }
+
+    private static boolean checkOracleRandom(PasswordPolicy policy, EditCosts costs, int count, int maxLength, long seed) {
+        ReferenceOracle oracle = new ReferenceOracle(policy, costs);
+        WeightedStepSolver solver = new WeightedStepSolver(policy, costs);
+        LongAdder mismatches = new LongAdder();
+        ConcurrentLinkedQueue<String> counterexamples = new ConcurrentLinkedQueue<>();
+        LongStream.range(0, count).parallel().forEach(index -> {
+            String password = RandomPasswords.of(new Random(seed * 1_000_003L + index), maxLength, 2);
+            int expected = oracle.minimumSteps(password);
+            long actual = solver.minimumCost(password);
+            if (actual != expected) {
+                mismatches.increment();
+                if (counterexamples.size() < REPORTED_COUNTEREXAMPLES) {
+                    counterexamples.add("\"" + password + "\" expected " + expected + ", got " + actual);
+                }
+            }
+        });
+        System.out.printf("%s %s: %d random passwords, %d mismatches%n", policy, costs, count, mismatches.sum());
+        for (String counterexample : counterexamples) {
+            System.out.println("    " + counterexample);
+        }
+        return mismatches.sum() == 0;
+    }
+
+    //    Random passwords, where a character often repeats the previous one, so there are long repeating sequences
+    private static boolean checkRandom(int count, int maxLength, long seed) {
+        WeightedStepSolver solver = new WeightedStepSolver(PasswordPolicy.DEFAULT, EditCosts.UNIT);
+        Solution solution = new Solution();
+        LongAdder mismatches = new LongAdder();
+        ConcurrentLinkedQueue<String> counterexamples = new ConcurrentLinkedQueue<>();
+        LongStream.range(0, count).parallel().forEach(index -> {
+            String password = RandomPasswords.of(new Random(seed * 1_000_003L + index), maxLength);
+            int expected = solution.passwordChecker(password);
+            int actual = solver.countSteps(password);
+            if (actual != expected) {
+                mismatches.increment();
+                if (counterexamples.size() < REPORTED_COUNTEREXAMPLES) {
+                    counterexamples.add("\"" + password + "\" expected " + expected + ", got " + actual);
+                }
+            }
+        });
+        System.out.printf("default policy, unit costs, against Solution: %d passwords, %d mismatches%n", count, mismatches.sum());
+        for (String counterexample : counterexamples) {
+            System.out.println("    " + counterexample);
+        }
+        return mismatches.sum() == 0;
+    }
+
+    private static boolean checkTiming(int required, long limitMillis, long seed) {
+        Random random = new Random(seed);
+        StringBuilder runs = new StringBuilder(45_000);
+        while (runs.length() < 45_000) {
+            runs.append(String.valueOf(RandomPasswords.ALPHABET.charAt(random.nextInt(RandomPasswords.ALPHABET.length())))
+                    .repeat(1 + random.nextInt(40)));
+        }
+        StringBuilder text = new StringBuilder(45_000);
+        while (text.length() < 45_000) {
+            text.append(RandomPasswords.of(random, 1000, 2));
+        }
+        String[] passwords = {"a".repeat(20_000), runs.substring(0, 20_000), runs.toString(), text.toString()};
+        PasswordPolicy[] policies = {new PasswordPolicy(8, 256, 2, required, ""), new PasswordPolicy(8, 512, 2, required, ""),
+                new PasswordPolicy(8, 512, 5, required, ""), new PasswordPolicy(64, 4096, 3, required, "")};
+        long slowest = 0;
+        String slowestCase = "";
+        for (PasswordPolicy policy : policies) {
+            for (EditCosts costs : COSTS) {
+                WeightedStepSolver solver = new WeightedStepSolver(policy, costs);
+                for (String password : passwords) {
+                    // The first check warms the solver up, and the slowest of the next ones counts
+                    solver.minimumCost(password);
+                    for (int run = 0; run < 3; run++) {
+                        long start = System.nanoTime();
+                        solver.minimumCost(password);
+                        long nanos = System.nanoTime() - start;
+                        if (nanos > slowest) {
+                            slowest = nanos;
+                            slowestCase = policy + " " + costs + ", " + password.length() + " characters";
+                        }
+                    }
+                }
+            }
+        }
+        boolean fast = slowest < limitMillis * 1_000_000;
+        System.out.printf("long passwords: slowest check %.2f ms (%s), limit %d ms, %s%n", slowest / 1e6, slowestCase,
+                limitMillis, fast ? "OK" : "TOO SLOW");
+        return fast;
+    }
+}